@@ -25,7 +25,9 @@ import com.philippelangevin.sdk.addressBook.tos.Tables;
 import com.philippelangevin.sdk.database.connector.DatabaseDefinitionIF;
 import com.philippelangevin.sdk.database.dbAccess.AbstractDatabaseDAO;
 import com.philippelangevin.sdk.database.dbAccess.ConnectionModeEnum;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseConnection;
 import com.philippelangevin.sdk.database.dbAccess.DatabaseConnectionFactory;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseConnectionPool;
 import com.philippelangevin.sdk.database.tables.TableInfo;
 import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
 
@@ -46,6 +48,10 @@ public class AddressBookDAO extends AbstractDatabaseDAO {
 		
 		openConnection() ;
 	}
+	
+	public AddressBookDAO(DatabaseConnectionPool connectionPool) {
+		super(connectionPool);
+	}
 
 
 	
@@ -68,19 +74,24 @@ public class AddressBookDAO extends AbstractDatabaseDAO {
 	public void insert(ContactInfoTOIF to) throws SQLException {
 		if (to.getId() == null)	{
 			String maxQuery = String.format("SELECT MAX (id) AS currentMax FROM %s WHERE contactId = ? AND contactCategory = ?", to.getTOStructure().getRepresentedTable()) ;
-			PreparedStatement ps = dbAccess.prepareStatement(maxQuery) ;
-			
-			ps.setInt(1, to.getContactId()) ;
-			ps.setInt(2, to.getContactCategory()) ;
-			
-			ResultSet rs = ps.executeQuery() ;
-			
-			if (rs.next())	{
-				int currentMax = rs.getInt("currentMax") ;
-				to.setId(currentMax + 1) ;
-			}
-			else	{
-				throw new SQLException("Unable to get current max for " + to.toStringCompact()) ;
+			DatabaseConnection conn = acquireConnection() ;
+			try {
+				PreparedStatement ps = conn.prepareStatement(maxQuery) ;
+				
+				ps.setInt(1, to.getContactId()) ;
+				ps.setInt(2, to.getContactCategory()) ;
+				
+				ResultSet rs = ps.executeQuery() ;
+				
+				if (rs.next())	{
+					int currentMax = rs.getInt("currentMax") ;
+					to.setId(currentMax + 1) ;
+				}
+				else	{
+					throw new SQLException("Unable to get current max for " + to.toStringCompact()) ;
+				}
+			} finally {
+				releaseConnection(conn) ;
 			}
 		}
 		
@@ -90,19 +101,36 @@ public class AddressBookDAO extends AbstractDatabaseDAO {
 	
 	public void deleteAllContactTypeForContact(ContactInfoTOIF contactInfo, Integer id) throws SQLException {
 		String sql = String.format("DELETE FROM %s WHERE contactId = %d", contactInfo.getTOStructure().getRepresentedTable().toString(), id) ;
-		dbAccess.executeUpdate(sql) ;
+		DatabaseConnection conn = acquireConnection() ;
+		try {
+			conn.executeUpdate(sql) ;
+		} finally {
+			releaseConnection(conn) ;
+		}
+		
+		if (toCache != null)	{
+			toCache.invalidateAll(contactInfo.getClass()) ;
+		}
+		if (queryCache != null)	{
+			queryCache.invalidate(contactInfo.getTOStructure().getRepresentedTable()) ;
+		}
 	}
 	
 	public Integer getMaxValue(TableInfo representedTable, ColumnInfo<Integer> id) throws SQLException {
 		String query = String.format("SELECT MAX(%s) AS maxValue FROM %s", id, representedTable);
 		
-		ResultSet rs = dbAccess.executeQuery(query) ;
-		
-		if (rs.next()){
-			return rs.getInt(1) ;
+		DatabaseConnection conn = acquireConnection() ;
+		try {
+			ResultSet rs = conn.executeQuery(query) ;
+			
+			if (rs.next()){
+				return rs.getInt(1) ;
+			}
+			
+			return -1 ;
+		} finally {
+			releaseConnection(conn) ;
 		}
-		
-		return -1 ;
 	}
 
 
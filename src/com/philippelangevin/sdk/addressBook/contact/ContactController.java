@@ -13,14 +13,16 @@ import com.philippelangevin.sdk.addressBook.tos.ContactTOStructure;
 import com.philippelangevin.sdk.addressBook.tos.ContactTypeTO;
 import com.philippelangevin.sdk.addressBook.tos.PreferedContactInfoTO;
 import com.philippelangevin.sdk.addressBook.tos.Tables;
+import com.philippelangevin.sdk.database.dbAccess.ReferenceTable;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
 import com.philippelangevin.sdk.uiUtil.interfaces.ControllerIF;
 import com.philippelangevin.sdk.uiUtil.interfaces.EventRouterIF;
 
 public class ContactController extends ControllerIF {
 
-	private static List<ContactInfoTypeTO> contactInfoTypes = null ;
-	private static List<ContactCategoryTO> contactCategories = null ;
-	private static List<ContactTypeTO> contactTypes = null ;
+	private static ReferenceTable<ContactInfoTypeTO> contactInfoTypes = null ;
+	private static ReferenceTable<ContactCategoryTO> contactCategories = null ;
+	private static ReferenceTable<ContactTypeTO> contactTypes = null ;
 	
 	private AddressBookDAO dao = null ;
 	
@@ -28,9 +30,9 @@ public class ContactController extends ControllerIF {
 	
 	public ContactController(AddressBookDAO dao)	{
 		try {
-			contactInfoTypes = dao.selectTOList(ContactInfoTypeTO.class, null) ;
-			contactCategories = dao.selectTOList(ContactCategoryTO.class, null) ;
-			contactTypes = dao.selectTOList(ContactTypeTO.class, null) ;
+			contactInfoTypes = loadReferenceTable(contactInfoTypes, dao, ContactInfoTypeTO.class) ;
+			contactCategories = loadReferenceTable(contactCategories, dao, ContactCategoryTO.class) ;
+			contactTypes = loadReferenceTable(contactTypes, dao, ContactTypeTO.class) ;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
@@ -38,6 +40,18 @@ public class ContactController extends ControllerIF {
 		this.setDao(dao) ;
 	}
 	
+	/*
+	 * The reference tables are shared by the controllers; they are only reloaded if they changed.
+	 */
+	private static <T extends TransferableObject> ReferenceTable<T> loadReferenceTable(ReferenceTable<T> table, AddressBookDAO dao, Class<T> clazz) throws SQLException {
+		if (table == null || table.getDAO() != dao)	{
+			return new ReferenceTable<T>(dao, clazz) ;
+		}
+		
+		table.refreshIfChanged() ;
+		return table ;
+	}
+	
 	@Override
 	protected EventRouterIF getEventRouter() {
 		if (eventRouter == null){
@@ -94,13 +108,13 @@ public class ContactController extends ControllerIF {
 				 */
 				item.setId(id++) ;
 				item.setContactId(currentContactTO.getId()) ;
-				
-				try {
-					dao.insert(item) ;
-				} catch (SQLException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
+			}
+			
+			try {
+				dao.insertAll(items) ;
+			} catch (SQLException e) {
+				// TODO Auto-generated catch block
+				e.printStackTrace();
 			}
 		}
 	}
@@ -189,13 +203,16 @@ public class ContactController extends ControllerIF {
 
 	
 	public static List<ContactInfoTypeTO> getContactInfoTypes() {
-		return contactInfoTypes;
+		return contactInfoTypes.getAll();
 	}
 	public static List<ContactCategoryTO> getContactCategories() {
-		return contactCategories;
+		return contactCategories.getAll();
+	}
+	public static ContactCategoryTO getContactCategory(Integer id) {
+		return contactCategories.get(id);
 	}
 	public static List<ContactTypeTO> getContactTypes() {
-		return contactTypes;
+		return contactTypes.getAll();
 	}
 
 	public void saveContactTO() {
@@ -110,9 +110,7 @@ public class ContactInfoTypeTableModel extends AbstractTableModel {
 			value = "* " ;
 		}
 		
-		ContactCategoryTO contactCategoryTO = new ContactCategoryTO() ;
-		contactCategoryTO.setId(to.getContactCategory()) ;
-		contactCategoryTO = ContactController.getContactCategories().get(ContactController.getContactCategories().indexOf(contactCategoryTO)) ;
+		ContactCategoryTO contactCategoryTO = ContactController.getContactCategory(to.getContactCategory()) ;
 		
 		return value + to.getOneLineStringRepresentation() + " - " + contactCategoryTO.toString() ;
 	}
@@ -3,6 +3,7 @@ package com.philippelangevin.sdk.addressBook.tos;
 import com.philippelangevin.sdk.database.tables.TableInfo;
 import com.philippelangevin.sdk.database.transferableObject.AdditionalFieldInfo;
 import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.GenerateTOInfo;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfoContainer;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObjectStructureIF;
@@ -13,6 +14,7 @@ public class AddressTOStructure implements TransferableObjectStructureIF {
 
 	private static final long serialVersionUID = -4804154593557739003L;
 	
+	@GenerateTOInfo
 	public static final class ColumnNames extends TransferableObjectInfoContainer {
 		public static final ColumnInfo<Integer> contactId = createColumn(new IntegerMetaData( false, false ));
 		public static final ColumnInfo<Integer> id = createColumn(new IntegerMetaData( false, false ));
@@ -23,6 +25,10 @@ public class AddressTOStructure implements TransferableObjectStructureIF {
 		public static final ColumnInfo<Integer> contactCategory = createColumn(new IntegerMetaData(false, false)) ;
 		
 		private static final ColumnNames INSTANCE = new ColumnNames();
+		
+		private ColumnNames() {
+			super(AddressTOStructure_ColumnNamesInfo.layout());
+		}
 	}
 
 
@@ -3,6 +3,7 @@ package com.philippelangevin.sdk.addressBook.tos;
 import com.philippelangevin.sdk.database.tables.TableInfo;
 import com.philippelangevin.sdk.database.transferableObject.AdditionalFieldInfo;
 import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.GenerateTOInfo;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfoContainer;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObjectStructureIF;
@@ -13,11 +14,16 @@ public class ContactTypeTOStructure implements TransferableObjectStructureIF {
 
 	private static final long serialVersionUID = 4569549358444479211L;
 	
+	@GenerateTOInfo
 	public static final class ColumnNames extends TransferableObjectInfoContainer {
 		public static final ColumnInfo<Integer> id = createColumn(new IntegerMetaData( false, false ));
 		public static final ColumnInfo<String> nameKey = createColumn(new StringMetaData( false, 50 ));
 		
 		private static final ColumnNames INSTANCE = new ColumnNames();
+		
+		private ColumnNames() {
+			super(ContactTypeTOStructure_ColumnNamesInfo.layout());
+		}
 	}
 
 	@Override
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.addressBook.tos;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.philippelangevin.sdk.database.tables.TableInfo;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
 import com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF;
@@ -15,6 +18,13 @@ public enum Tables implements TableInfo {
 	PREFEREDCONTACTINFO	("PreferedContactInfo", PreferedContactInfoTO.class)
 	;
 
+	private static final Map<String, Tables> TABLES_BY_NAME = new HashMap<String, Tables>();
+	static {
+		for (Tables table : Tables.values()) {
+			TABLES_BY_NAME.put(table.toString(), table);
+		}
+	}
+	
 	private String stringReplacement = null;
 	private Class<? extends TransferableObject> toClass = null;
 	
@@ -28,13 +38,7 @@ public enum Tables implements TableInfo {
 	}
 	
 	public static Tables fromTableName(String tableName){
-		for (Tables table : Tables.values()) {
-			if (table.toString().equals(tableName))	{
-				return table ;
-			}
-		}
-		
-		return null ;
+		return TABLES_BY_NAME.get(tableName) ;
 	}
 	
 	@Override
@@ -0,0 +1,227 @@
+package com.philippelangevin.sdk.database;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.joda.time.Duration;
+import org.joda.time.LocalDate;
+
+import com.philippelangevin.sdk.database.connector.SQLiteConnector;
+import com.philippelangevin.sdk.database.transferableObject.metaData.DurationMetaData;
+import com.philippelangevin.sdk.database.util.ClassicSQLRequests;
+
+/**
+ * <p> Title: {@link BindingBenchmark} <p>
+ * <p> Description: Binds rows of mixed types with {@link ClassicSQLRequests} from 1 to
+ * [threads] threads, each one inserting in its own temporary SQLite database, and prints
+ * the throughput for each number of threads. The same runs are made with a global lock
+ * around the binding, as ClassicSQLRequests used to do.</p>
+ * <p> Every row is read back and compared with the values bound, so the runs also check
+ * that concurrent binding never mixes up the values of two threads.</p>
+ * <p> Usage: BindingBenchmark [rows per thread] [threads]</p>
+ */
+public class BindingBenchmark {
+
+	private static final int DEFAULT_ROWS = 50000;
+	private static final int DEFAULT_THREADS = 8;
+	private static final int BATCH_SIZE = 1000;
+
+	private static final String TABLE = "Binding";
+	private static final Object GLOBAL_LOCK = new Object();
+
+	private interface Binder {
+		void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException;
+	}
+
+	/**
+	 * @param args [rows per thread] [threads]
+	 */
+	public static void main(String[] args) throws Exception {
+		int rows = (args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS);
+		int maxThreads = (args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_THREADS);
+
+		Binder lockFree = new Binder() {
+			@Override
+			public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+				ClassicSQLRequests.setPreparedStatement(ps, index, o, type);
+			}
+		};
+		Binder globalLock = new Binder() {
+			@Override
+			public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+				synchronized (GLOBAL_LOCK) {
+					ClassicSQLRequests.setPreparedStatement(ps, index, o, type);
+				}
+			}
+		};
+
+		// Warm up, also checks the values once before timing anything
+		run(1, rows, lockFree);
+
+		System.out.println(rows + " rows per thread, " + Runtime.getRuntime().availableProcessors() + " processors");
+		System.out.println(String.format("%-8s %14s %14s", "threads", "lock-free", "global lock"));
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			long lockFreeRate = run(threads, rows, lockFree);
+			long globalLockRate = run(threads, rows, globalLock);
+			System.out.println(String.format("%-8d %10d r/s %10d r/s", threads, lockFreeRate, globalLockRate));
+		}
+	}
+
+	/*
+	 * Returns the rows bound per second by all the threads.
+	 */
+	private static long run(int threads, final int rows, final Binder binder) throws Exception {
+		final List<File> dbFiles = new ArrayList<File>();
+		final List<Connection> connections = new ArrayList<Connection>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int i = 0; i < threads; i++) {
+				File dbFile = File.createTempFile("binding", ".db");
+				dbFile.deleteOnExit();
+				dbFiles.add(dbFile);
+				connections.add(open(dbFile));
+			}
+
+			final CountDownLatch start = new CountDownLatch(1);
+			List<Future<Long>> futures = new ArrayList<Future<Long>>();
+			for (int i = 0; i < threads; i++) {
+				final Connection conn = connections.get(i);
+				final int thread = i;
+				futures.add(executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() throws Exception {
+						start.await();
+						long begin = System.nanoTime();
+						insert(conn, thread, rows, binder);
+						return System.nanoTime() - begin;
+					}
+				}));
+			}
+
+			start.countDown();
+			long slowest = 0;
+			for (Future<Long> future : futures) {
+				slowest = Math.max(slowest, future.get());
+			}
+
+			for (int i = 0; i < threads; i++) {
+				check(connections.get(i), i, rows);
+			}
+			return (long) threads * rows * 1000000000L / slowest;
+		} finally {
+			executor.shutdown();
+			for (Connection conn : connections) {
+				conn.close();
+			}
+			for (File dbFile : dbFiles) {
+				dbFile.delete();
+			}
+		}
+	}
+
+	private static Connection open(File dbFile) throws Exception {
+		SQLiteConnector connector = new SQLiteConnector(dbFile.getParent(), dbFile.getName());
+		Class.forName(connector.getClassForName());
+		Connection conn = DriverManager.getConnection(connector.getConnectionString());
+
+		Statement statement = conn.createStatement();
+		try {
+			statement.executeUpdate("CREATE TABLE " + TABLE + " (id INTEGER PRIMARY KEY, thread INTEGER, amount BIGINT, "
+					+ "label VARCHAR(40), ratio DOUBLE, day DATE, length BIGINT, note VARCHAR(40))");
+		} finally {
+			statement.close();
+		}
+		return conn;
+	}
+
+	private static void insert(Connection conn, int thread, int rows, Binder binder) throws SQLException {
+		conn.setAutoCommit(false);
+		PreparedStatement ps = conn.prepareStatement("INSERT INTO " + TABLE + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+		try {
+			for (int row = 0; row < rows; row++) {
+				binder.bind(ps, 1, row, Types.INTEGER);
+				binder.bind(ps, 2, thread, Types.INTEGER);
+				binder.bind(ps, 3, getAmount(thread, row), Types.BIGINT);
+				binder.bind(ps, 4, getLabel(thread, row), Types.VARCHAR);
+				binder.bind(ps, 5, getRatio(thread, row), Types.DOUBLE);
+				binder.bind(ps, 6, getDay(thread, row), Types.TIMESTAMP);
+				binder.bind(ps, 7, getLength(thread, row), Types.BIGINT);
+				binder.bind(ps, 8, null, Types.VARCHAR);
+				ps.addBatch();
+
+				if ((row + 1) % BATCH_SIZE == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+			conn.commit();
+		} finally {
+			ps.close();
+			conn.setAutoCommit(true);
+		}
+	}
+
+	/*
+	 * Reads back every row and compares it with what the thread bound.
+	 */
+	private static void check(Connection conn, int thread, int rows) throws SQLException {
+		Statement statement = conn.createStatement();
+		try {
+			ResultSet rs = statement.executeQuery("SELECT * FROM " + TABLE + " ORDER BY id");
+			int count = 0;
+			while (rs.next()) {
+				int row = rs.getInt("id");
+				if (row != count++
+						|| rs.getInt("thread") != thread
+						|| rs.getLong("amount") != getAmount(thread, row)
+						|| !getLabel(thread, row).equals(rs.getString("label"))
+						|| rs.getDouble("ratio") != getRatio(thread, row)
+						|| rs.getLong("day") != getDay(thread, row).toDateMidnight().getMillis()
+						|| rs.getLong("length") != DurationMetaData.format(getLength(thread, row))
+						|| rs.getString("note") != null) {
+					throw new IllegalStateException("Row " + row + " of thread " + thread + " doesn't hold the values bound");
+				}
+			}
+			rs.close();
+
+			if (count != rows) {
+				throw new IllegalStateException("Thread " + thread + " inserted " + count + " rows instead of " + rows);
+			}
+		} finally {
+			statement.close();
+		}
+	}
+
+	private static long getAmount(int thread, int row) {
+		return thread * 1000000000L + row;
+	}
+
+	private static String getLabel(int thread, int row) {
+		return "label-" + thread + "-" + row;
+	}
+
+	private static double getRatio(int thread, int row) {
+		return (thread + 1) * row / 7.0;
+	}
+
+	private static LocalDate getDay(int thread, int row) {
+		return new LocalDate(2000, 1, 1).plusDays(thread * 100 + row % 3650);
+	}
+
+	private static Duration getLength(int thread, int row) {
+		return Duration.standardMinutes(thread * 60 + row % 1440);
+	}
+}
@@ -0,0 +1,271 @@
+package com.philippelangevin.sdk.database;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.philippelangevin.sdk.database.connector.SQLiteConnector;
+import com.philippelangevin.sdk.database.tables.TableInfo;
+import com.philippelangevin.sdk.database.transferableObject.AdditionalFieldInfo;
+import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfo;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfoContainer;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObjectStructureIF;
+import com.philippelangevin.sdk.database.transferableObject.metaData.DoubleMetaData;
+import com.philippelangevin.sdk.database.transferableObject.metaData.IntegerMetaData;
+import com.philippelangevin.sdk.database.transferableObject.metaData.LongMetaData;
+import com.philippelangevin.sdk.database.transferableObject.metaData.StringMetaData;
+import com.philippelangevin.sdk.database.util.ResultSetTranslator;
+
+/**
+ * <p> Title: {@link HydrationBenchmark} <p>
+ * <p> Description: Compares the ways of building TOs from a ResultSet on a 20 column
+ * table in a temporary SQLite database: set() with the columns found by name (the former
+ * ResultSetTranslator), set() with the columns found by index, and the hydration path
+ * now used by ResultSetTranslator.</p>
+ * <p> Usage: HydrationBenchmark [rows] [runs]</p>
+ */
+public class HydrationBenchmark {
+
+	private static final int DEFAULT_ROWS = 100000;
+	private static final int DEFAULT_RUNS = 5;
+
+	public enum BenchmarkTables implements TableInfo {
+		WIDE;
+
+		@Override
+		public String toString() {
+			return "Wide";
+		}
+
+		@Override
+		public Class<? extends TransferableObject> getTransferableObjectClass() {
+			return WideTO.class;
+		}
+	}
+
+	public static class WideTOStructure implements TransferableObjectStructureIF {
+		private static final long serialVersionUID = 1L;
+
+		public static final class ColumnNames extends TransferableObjectInfoContainer {
+			public static final ColumnInfo<Integer> id = createColumn(new IntegerMetaData(false, false));
+			public static final ColumnInfo<Integer> int1 = createColumn(new IntegerMetaData(true));
+			public static final ColumnInfo<Integer> int2 = createColumn(new IntegerMetaData(true));
+			public static final ColumnInfo<Integer> int3 = createColumn(new IntegerMetaData(true));
+			public static final ColumnInfo<Integer> int4 = createColumn(new IntegerMetaData(true));
+			public static final ColumnInfo<Integer> int5 = createColumn(new IntegerMetaData(true));
+			public static final ColumnInfo<Long> long1 = createColumn(new LongMetaData(true));
+			public static final ColumnInfo<Long> long2 = createColumn(new LongMetaData(true));
+			public static final ColumnInfo<Long> long3 = createColumn(new LongMetaData(true));
+			public static final ColumnInfo<Long> long4 = createColumn(new LongMetaData(true));
+			public static final ColumnInfo<Double> double1 = createColumn(new DoubleMetaData(true));
+			public static final ColumnInfo<Double> double2 = createColumn(new DoubleMetaData(true));
+			public static final ColumnInfo<Double> double3 = createColumn(new DoubleMetaData(true));
+			public static final ColumnInfo<Double> double4 = createColumn(new DoubleMetaData(true));
+			public static final ColumnInfo<String> string1 = createColumn(new StringMetaData(true, 40));
+			public static final ColumnInfo<String> string2 = createColumn(new StringMetaData(true, 40));
+			public static final ColumnInfo<String> string3 = createColumn(new StringMetaData(true, 40));
+			public static final ColumnInfo<String> string4 = createColumn(new StringMetaData(true, 40));
+			public static final ColumnInfo<String> string5 = createColumn(new StringMetaData(true, 40));
+			public static final ColumnInfo<String> string6 = createColumn(new StringMetaData(true, 40));
+
+			private static final ColumnNames INSTANCE = new ColumnNames();
+		}
+
+		@Override
+		public TableInfo getRepresentedTable() {
+			return BenchmarkTables.WIDE;
+		}
+
+		@Override
+		public Class<? extends TransferableObject> getRepresentedTOClass() {
+			return WideTO.class;
+		}
+
+		@Override
+		public Integer getPrimaryKeySize() {
+			return 1;
+		}
+
+		@Override
+		public ColumnInfo<?>[] getColumns() {
+			return ColumnNames.INSTANCE.getColumns();
+		}
+
+		@Override
+		public AdditionalFieldInfo<?>[] getAdditionalFields() {
+			return EMPTY_ADDITIONAL_FIELDS;
+		}
+	}
+
+	public static class WideTO extends TransferableObject {
+		private static final long serialVersionUID = 1L;
+		private static final WideTOStructure STRUCTURE = new WideTOStructure();
+
+		@Override
+		public TransferableObjectStructureIF getTOStructure() {
+			return STRUCTURE;
+		}
+	}
+
+	private interface Strategy {
+		List<WideTO> read(ResultSet rs) throws Exception;
+	}
+
+	/**
+	 * @param args [rows] [runs]
+	 */
+	public static void main(String[] args) throws Exception {
+		int rows = (args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS);
+		int runs = (args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS);
+
+		File dbFile = File.createTempFile("hydration", ".db");
+		dbFile.deleteOnExit();
+		SQLiteConnector connector = new SQLiteConnector(dbFile.getParent(), dbFile.getName());
+		Class.forName(connector.getClassForName());
+		Connection conn = DriverManager.getConnection(connector.getConnectionString());
+		try {
+			fill(conn, rows);
+
+			System.out.println(rows + " rows of " + WideTOStructure.ColumnNames.INSTANCE.getColumns().length + " columns, best of " + runs + " runs");
+			run(conn, runs, "set() by name", new Strategy() {
+				@Override
+				public List<WideTO> read(ResultSet rs) throws Exception {
+					return readByName(rs);
+				}
+			});
+			run(conn, runs, "set() by index", new Strategy() {
+				@Override
+				public List<WideTO> read(ResultSet rs) throws Exception {
+					return readByIndex(rs);
+				}
+			});
+			run(conn, runs, "hydration", new Strategy() {
+				@Override
+				public List<WideTO> read(ResultSet rs) throws Exception {
+					return ResultSetTranslator.getTOListFromRS(rs, WideTO.class);
+				}
+			});
+		} finally {
+			conn.close();
+			dbFile.delete();
+		}
+	}
+
+	private static void fill(Connection conn, int rows) throws SQLException {
+		ColumnInfo<?>[] columns = WideTOStructure.ColumnNames.INSTANCE.getColumns();
+		StringBuilder create = new StringBuilder("CREATE TABLE " + BenchmarkTables.WIDE + " (");
+		StringBuilder insert = new StringBuilder("INSERT INTO " + BenchmarkTables.WIDE + " VALUES (");
+		for (int i = 0; i < columns.length; i++) {
+			if (i != 0) {
+				create.append(", ");
+				insert.append(",");
+			}
+			create.append(columns[i]).append(' ').append(columns[i].getMetaData().getSQLDeclarationString());
+			insert.append('?');
+		}
+		create.append(", PRIMARY KEY (").append(columns[0]).append("))");
+		insert.append(')');
+
+		Statement statement = conn.createStatement();
+		try {
+			statement.executeUpdate(create.toString());
+		} finally {
+			statement.close();
+		}
+
+		conn.setAutoCommit(false);
+		PreparedStatement ps = conn.prepareStatement(insert.toString());
+		try {
+			for (int row = 0; row < rows; row++) {
+				for (int i = 0; i < columns.length; i++) {
+					ps.setObject(i + 1, sampleValue(columns[i], row));
+				}
+				ps.addBatch();
+			}
+			ps.executeBatch();
+			conn.commit();
+		} finally {
+			ps.close();
+			conn.setAutoCommit(true);
+		}
+	}
+
+	private static Object sampleValue(ColumnInfo<?> column, int row) {
+		String name = column.toString();
+		if (name.equals("id")) {
+			return row;
+		} else if (name.startsWith("int")) {
+			return row % 1000;
+		} else if (name.startsWith("long")) {
+			return row * 1000000L;
+		} else if (name.startsWith("double")) {
+			return row / 7.0;
+		}
+		return name + "-" + row;
+	}
+
+	private static void run(Connection conn, int runs, String name, Strategy strategy) throws Exception {
+		long best = Long.MAX_VALUE;
+		int count = 0;
+		for (int run = 0; run < runs; run++) {
+			Statement statement = conn.createStatement();
+			try {
+				long start = System.nanoTime();
+				ResultSet rs = statement.executeQuery("SELECT * FROM " + BenchmarkTables.WIDE);
+				count = strategy.read(rs).size();
+				rs.close();
+				best = Math.min(best, System.nanoTime() - start);
+			} finally {
+				statement.close();
+			}
+		}
+		System.out.println(String.format("%-16s %6d ms  (%d TOs)", name, best / 1000000, count));
+	}
+
+	/*
+	 * What ResultSetTranslator used to do for each row.
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<WideTO> readByName(ResultSet rs) throws Exception {
+		List<WideTO> list = new ArrayList<WideTO>();
+		while (rs.next()) {
+			WideTO to = new WideTO();
+			for (TransferableObjectInfo<?> column : to.getTOStructure().getColumns()) {
+				try {
+					to.set((TransferableObjectInfo<Object>) column, rs.getObject(column.toString()));
+				} catch (SQLException e) {
+					/* Not in the ResultSet */
+				}
+			}
+			list.add(to);
+		}
+		return list;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<WideTO> readByIndex(ResultSet rs) throws Exception {
+		ColumnInfo<?>[] columns = WideTOStructure.ColumnNames.INSTANCE.getColumns();
+		int[] indexes = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			indexes[i] = rs.findColumn(columns[i].toString());
+		}
+
+		List<WideTO> list = new ArrayList<WideTO>();
+		while (rs.next()) {
+			WideTO to = new WideTO();
+			for (int i = 0; i < columns.length; i++) {
+				to.set((TransferableObjectInfo<Object>) columns[i], rs.getObject(indexes[i]));
+			}
+			list.add(to);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,199 @@
+package com.philippelangevin.sdk.database;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.philippelangevin.sdk.database.connector.SQLiteConnector;
+import com.philippelangevin.sdk.database.dbAccess.AbstractDatabaseDAO;
+import com.philippelangevin.sdk.database.dbAccess.ConnectionModeEnum;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseConnectionFactory;
+import com.philippelangevin.sdk.database.tables.TableInfo;
+import com.philippelangevin.sdk.database.transferableObject.AdditionalFieldInfo;
+import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.LazyColumnLoader;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfoContainer;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObjectStructureIF;
+import com.philippelangevin.sdk.database.transferableObject.metaData.IntegerMetaData;
+import com.philippelangevin.sdk.database.transferableObject.metaData.StringMetaData;
+
+/**
+ * <p> Title: {@link LazyColumnBenchmark} <p>
+ * <p> Description: Reads a table of documents holding a large lazy text in a temporary
+ * SQLite database with selectTOList(): eagerly, lazily without reading the texts, and
+ * lazily reading all the texts (one request per batch, see {@link LazyColumnLoader}).</p>
+ * <p> The texts read lazily are compared with the ones inserted.</p>
+ * <p> Usage: LazyColumnBenchmark [rows] [runs] [text length]</p>
+ */
+public class LazyColumnBenchmark {
+
+	private static final int DEFAULT_ROWS = 20000;
+	private static final int DEFAULT_RUNS = 5;
+	private static final int DEFAULT_TEXT_LENGTH = 4000;
+
+	public enum BenchmarkTables implements TableInfo {
+		DOCUMENT;
+
+		@Override
+		public String toString() {
+			return "Document";
+		}
+
+		@Override
+		public Class<? extends TransferableObject> getTransferableObjectClass() {
+			return DocumentTO.class;
+		}
+	}
+
+	public static class DocumentTOStructure implements TransferableObjectStructureIF {
+		private static final long serialVersionUID = 1L;
+
+		public static final class ColumnNames extends TransferableObjectInfoContainer {
+			public static final ColumnInfo<Integer> id = createColumn(new IntegerMetaData(false, false));
+			public static final ColumnInfo<String> title = createColumn(new StringMetaData(false, 40));
+			public static final ColumnInfo<String> body = createLazyColumn(new StringMetaData(true, 1000000));
+
+			private static final ColumnNames INSTANCE = new ColumnNames();
+		}
+
+		@Override
+		public TableInfo getRepresentedTable() {
+			return BenchmarkTables.DOCUMENT;
+		}
+
+		@Override
+		public Class<? extends TransferableObject> getRepresentedTOClass() {
+			return DocumentTO.class;
+		}
+
+		@Override
+		public Integer getPrimaryKeySize() {
+			return 1;
+		}
+
+		@Override
+		public ColumnInfo<?>[] getColumns() {
+			return ColumnNames.INSTANCE.getColumns();
+		}
+
+		@Override
+		public AdditionalFieldInfo<?>[] getAdditionalFields() {
+			return EMPTY_ADDITIONAL_FIELDS;
+		}
+	}
+
+	public static class DocumentTO extends TransferableObject {
+		private static final long serialVersionUID = 1L;
+		private static final DocumentTOStructure STRUCTURE = new DocumentTOStructure();
+
+		@Override
+		public TransferableObjectStructureIF getTOStructure() {
+			return STRUCTURE;
+		}
+	}
+
+	private static class BenchmarkDAO extends AbstractDatabaseDAO {
+		private BenchmarkDAO(File dbFile) throws SQLException {
+			super(ConnectionModeEnum.READ_WRITE_AUTO_COMMIT);
+			dbAccess = DatabaseConnectionFactory.buildConnection(new SQLiteConnector(dbFile.getParent(), dbFile.getName()), "", "");
+			openConnection();
+		}
+
+		private void executeUpdate(String sql) throws SQLException {
+			dbAccess.executeUpdate(sql);
+		}
+	}
+
+	private interface Reader {
+		int read(BenchmarkDAO dao) throws SQLException;
+	}
+
+	/**
+	 * @param args [rows] [runs] [text length]
+	 */
+	public static void main(String[] args) throws Exception {
+		int rows = (args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS);
+		int runs = (args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS);
+		final int textLength = (args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TEXT_LENGTH);
+
+		File dbFile = File.createTempFile("lazy", ".db");
+		dbFile.deleteOnExit();
+		BenchmarkDAO dao = new BenchmarkDAO(dbFile);
+		try {
+			fill(dao, rows, textLength);
+
+			System.out.println(rows + " rows, texts of " + textLength + " characters, best of " + runs + " runs");
+			run(dao, runs, "eager", new Reader() {
+				@Override
+				public int read(BenchmarkDAO dao) throws SQLException {
+					return dao.selectTOList(DocumentTO.class, null, true).size();
+				}
+			});
+			run(dao, runs, "lazy", new Reader() {
+				@Override
+				public int read(BenchmarkDAO dao) throws SQLException {
+					return dao.selectTOList(DocumentTO.class, null).size();
+				}
+			});
+			run(dao, runs, "lazy, all read", new Reader() {
+				@Override
+				public int read(BenchmarkDAO dao) throws SQLException {
+					List<DocumentTO> tos = dao.selectTOList(DocumentTO.class, null);
+					for (DocumentTO to : tos) {
+						int id = to.get(DocumentTOStructure.ColumnNames.id);
+						if (!getBody(id, textLength).equals(to.get(DocumentTOStructure.ColumnNames.body))) {
+							throw new IllegalStateException("Document " + id + " doesn't hold the text inserted");
+						}
+					}
+					return tos.size();
+				}
+			});
+		} finally {
+			dao.close();
+			dbFile.delete();
+		}
+	}
+
+	private static void fill(BenchmarkDAO dao, int rows, int textLength) throws SQLException {
+		ColumnInfo<?>[] columns = DocumentTOStructure.ColumnNames.INSTANCE.getColumns();
+		StringBuilder create = new StringBuilder("CREATE TABLE " + BenchmarkTables.DOCUMENT + " (");
+		for (int i = 0; i < columns.length; i++) {
+			if (i != 0) {
+				create.append(", ");
+			}
+			create.append(columns[i]).append(' ').append(columns[i].getMetaData().getSQLDeclarationString());
+		}
+		create.append(", PRIMARY KEY (").append(columns[0]).append("))");
+		dao.executeUpdate(create.toString());
+
+		List<DocumentTO> tos = new ArrayList<DocumentTO>(rows);
+		for (int row = 0; row < rows; row++) {
+			DocumentTO to = new DocumentTO();
+			to.set(DocumentTOStructure.ColumnNames.id, row);
+			to.set(DocumentTOStructure.ColumnNames.title, "title-" + row);
+			to.set(DocumentTOStructure.ColumnNames.body, getBody(row, textLength));
+			tos.add(to);
+		}
+		dao.insertAll(tos);
+	}
+
+	private static String getBody(int row, int textLength) {
+		char[] text = new char[textLength];
+		Arrays.fill(text, (char) ('a' + row % 26));
+		return row + new String(text);
+	}
+
+	private static void run(BenchmarkDAO dao, int runs, String name, Reader reader) throws Exception {
+		long best = Long.MAX_VALUE;
+		int count = 0;
+		for (int run = 0; run < runs; run++) {
+			long start = System.nanoTime();
+			count = reader.read(dao);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.println(String.format("%-16s %6d ms  (%d TOs)", name, best / 1000000, count));
+	}
+}
@@ -0,0 +1,101 @@
+package com.philippelangevin.sdk.database;
+
+import java.util.List;
+
+import com.philippelangevin.sdk.database.HydrationBenchmark.WideTO;
+import com.philippelangevin.sdk.database.HydrationBenchmark.WideTOStructure;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryConditionStruct;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryMathOperatorStruct;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryOperatorStruct;
+
+/**
+ * <p> Title: {@link QueryBuilderBenchmark} <p>
+ * <p> Description: Compares the WHERE clause built from the expression tree of a
+ * {@link QueryBuilder} with its disjunctive normal form, on generated filters of
+ * [clauses] blocks joined by AND: (int1 = 0 OR NOT (int2 &gt;= 0 AND int3 = 0)) AND ...
+ * The DNF triples with each block, the tree grows with the number of conditions.</p>
+ * <p> The DNF is no longer timed once a run took more than 10 seconds.</p>
+ * <p> Usage: QueryBuilderBenchmark [max clauses] [runs]</p>
+ */
+public class QueryBuilderBenchmark {
+
+	private static final int DEFAULT_MAX_CLAUSES = 12;
+	private static final int DEFAULT_RUNS = 5;
+	private static final long DNF_TIME_LIMIT = 10000000000L;
+
+	/**
+	 * @param args [max clauses] [runs]
+	 */
+	public static void main(String[] args) throws Exception {
+		int maxClauses = (args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_CLAUSES);
+		int runs = (args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS);
+
+		System.out.println("best of " + runs + " runs");
+		System.out.println(String.format("%-8s %10s %10s %12s | %10s %12s %12s",
+				"clauses", "conditions", "tree ms", "tree chars", "DNF ms", "conjunctions", "conditions"));
+
+		boolean dnfTimed = true;
+		for (int clauses = 2; clauses <= maxClauses; clauses += 2) {
+			QueryBuilder qb = buildQuery(clauses);
+
+			long treeBest = Long.MAX_VALUE;
+			int treeLength = 0;
+			for (int run = 0; run < runs; run++) {
+				long start = System.nanoTime();
+				StringBuilder sb = new StringBuilder();
+				qb.appendSQLCondition(sb, null);
+				treeBest = Math.min(treeBest, System.nanoTime() - start);
+				treeLength = sb.length();
+			}
+
+			String dnf = "skipped";
+			if (dnfTimed) {
+				long dnfBest = Long.MAX_VALUE;
+				int conjunctions = 0;
+				int conditions = 0;
+				for (int run = 0; run < runs && dnfTimed; run++) {
+					long start = System.nanoTime();
+					List<QueryConditionStruct> elements = qb.getDNFQueryElements();
+					long time = System.nanoTime() - start;
+					dnfBest = Math.min(dnfBest, time);
+					dnfTimed = (time < DNF_TIME_LIMIT);
+
+					conjunctions = elements.size();
+					conditions = 0;
+					for (QueryConditionStruct element : elements) {
+						conditions += element.getColumns().size();
+					}
+				}
+				dnf = String.format("%10.3f %12d %12d", dnfBest / 1000000.0, conjunctions, conditions);
+			}
+
+			System.out.println(String.format("%-8d %10d %10.3f %12d | %s", clauses, 3 * clauses, treeBest / 1000000.0, treeLength, dnf));
+		}
+	}
+
+	/*
+	 * (int1 = 0 OR NOT (int2 >= 0 AND int3 = 0)) AND (int1 = 1 OR NOT (int2 >= 1 AND int3 = 1)) AND ...
+	 */
+	private static QueryBuilder buildQuery(int clauses) throws Exception {
+		QueryBuilder qb = new QueryBuilder();
+		qb.addJoiningTable(WideTO.class);
+
+		for (int i = 0; i < clauses; i++) {
+			if (i != 0) {
+				qb.addOperator(QueryOperatorStruct.AND);
+			}
+			qb.addOperator(QueryOperatorStruct.PARENTHESIS_OPEN);
+			qb.addCondition(WideTO.class, WideTOStructure.ColumnNames.int1, QueryMathOperatorStruct.eq, i);
+			qb.addOperator(QueryOperatorStruct.OR);
+			qb.addOperator(QueryOperatorStruct.NOT);
+			qb.addOperator(QueryOperatorStruct.PARENTHESIS_OPEN);
+			qb.addCondition(WideTO.class, WideTOStructure.ColumnNames.int2, QueryMathOperatorStruct.gte, i);
+			qb.addOperator(QueryOperatorStruct.AND);
+			qb.addCondition(WideTO.class, WideTOStructure.ColumnNames.int3, QueryMathOperatorStruct.eq, i);
+			qb.addOperator(QueryOperatorStruct.PARENTHESIS_CLOSE);
+			qb.addOperator(QueryOperatorStruct.PARENTHESIS_CLOSE);
+		}
+		return qb;
+	}
+}
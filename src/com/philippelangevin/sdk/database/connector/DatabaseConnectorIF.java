@@ -14,4 +14,9 @@ public interface DatabaseConnectorIF {
 	public boolean isCaseSensitive();
 	
 	public boolean isReturningSupported();
+	
+	/**
+	 * @return The SQL syntax spoken by the database.
+	 */
+	public SQLDialect getSQLDialect();
 }
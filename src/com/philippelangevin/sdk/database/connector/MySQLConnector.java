@@ -44,4 +44,9 @@ public class MySQLConnector implements RemoteDatabaseConnectorIF {
 	public boolean isReturningSupported() {
 		return false;
 	}
+	
+	@Override
+	public SQLDialect getSQLDialect() {
+		return SQLDialect.MYSQL;
+	}
 }
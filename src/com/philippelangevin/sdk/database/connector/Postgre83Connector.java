@@ -54,4 +54,9 @@ public class Postgre83Connector implements RemoteDatabaseConnectorIF{
 	public boolean isReturningSupported() {
 		return true;
 	}
+	
+	@Override
+	public SQLDialect getSQLDialect() {
+		return SQLDialect.POSTGRESQL;
+	}
 }
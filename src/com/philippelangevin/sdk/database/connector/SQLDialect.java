@@ -0,0 +1,531 @@
+package com.philippelangevin.sdk.database.connector;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * <p> Title: {@link SQLDialect} <p>
+ * <p> Description: The SQL syntax differences between the databases we connect to.
+ * Each {@link DatabaseConnectorIF} tells which dialect its database speaks.</p>
+ */
+public enum SQLDialect {
+	POSTGRESQL {
+		@Override
+		public boolean isUpsertSupported(DatabaseMetaData metaData) throws SQLException {
+			// INSERT ... ON CONFLICT appeared in PostgreSQL 9.5
+			int major = metaData.getDatabaseMajorVersion();
+			return major > 9 || (major == 9 && metaData.getDatabaseMinorVersion() >= 5);
+		}
+
+		@Override
+		public boolean isStreamingTransactionRequired() {
+			// Without a transaction, the driver ignores the fetch size and reads the whole result
+			return true;
+		}
+
+		@Override
+		public int[] appendKeysetCondition(StringBuilder sb, String[] columns) {
+			return appendRowValueCondition(sb, columns);
+		}
+
+		@Override
+		public int getMaxParameters() {
+			return Short.MAX_VALUE;
+		}
+
+		@Override
+		public String getArrayTypeName(int sqlType) {
+			switch (sqlType) {
+			case Types.SMALLINT:
+			case Types.TINYINT:
+				return "int2";
+			case Types.INTEGER:
+				return "int4";
+			case Types.BIGINT:
+				return "int8";
+			case Types.REAL:
+				return "float4";
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return "float8";
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				return "numeric";
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+				return "varchar";
+			case Types.BIT:
+			case Types.BOOLEAN:
+				return "bool";
+			case Types.DATE:
+				return "date";
+			case Types.TIME:
+				return "time";
+			case Types.TIMESTAMP:
+				return "timestamp";
+			default:
+				return null;
+			}
+		}
+
+		@Override
+		public String anyCondition(String column, boolean not) {
+			return not ? column + " <> ALL(?)" : column + " = ANY(?)";
+		}
+
+		@Override
+		public boolean isNullSortedLow() {
+			return false;
+		}
+
+		@Override
+		public void appendOrderBy(StringBuilder sb, String column, boolean descending, boolean nullsFirst) {
+			sb.append(column).append(descending ? " DESC" : " ASC");
+			if (nullsFirst != descending) {
+				sb.append(nullsFirst ? " NULLS FIRST" : " NULLS LAST");
+			}
+		}
+
+		@Override
+		public String buildUpsert(String table, String[] columns, int primaryKeySize, boolean[] nullColumns) {
+			return buildOnConflictUpsert(table, columns, primaryKeySize, nullColumns);
+		}
+	},
+
+	MYSQL {
+		@Override
+		public boolean isUpsertSupported(DatabaseMetaData metaData) {
+			return true;
+		}
+
+		@Override
+		public PreparedStatement prepareStreamingStatement(Connection connection, String sql, int fetchSize) throws SQLException {
+			/*
+			 * Connector/J only streams rows with this special fetch size; no other request
+			 * can be sent on the connection until the ResultSet is closed.
+			 */
+			PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			return ps;
+		}
+
+		@Override
+		public int[] appendKeysetCondition(StringBuilder sb, String[] columns) {
+			return appendRowValueCondition(sb, columns);
+		}
+
+		@Override
+		public int getMaxParameters() {
+			return 65535;
+		}
+
+		@Override
+		public String buildUpsert(String table, String[] columns, int primaryKeySize, boolean[] nullColumns) {
+			StringBuilder sb = new StringBuilder(200);
+			appendInsert(sb, "INSERT INTO ", table, columns, nullColumns);
+
+			sb.append(" ON DUPLICATE KEY UPDATE ");
+			if (columns.length == primaryKeySize) {
+				sb.append(columns[0]).append(" = ").append(columns[0]);
+			} else {
+				appendAssignments(sb, columns, primaryKeySize, nullColumns, "VALUES(%s)");
+			}
+			return sb.toString();
+		}
+	},
+
+	/**
+	 * As for PostgreSQL, an existing row is updated in place and the null columns of the
+	 * TO only get their default value in a new row. Before SQLite 3.24, which has no
+	 * ON CONFLICT, the upserts go through a select.
+	 */
+	SQLITE {
+		@Override
+		public boolean isUpsertSupported(DatabaseMetaData metaData) throws SQLException {
+			/*
+			 * INSERT ... ON CONFLICT appeared in SQLite 3.24. INSERT OR REPLACE is not an
+			 * option: it deletes the row, which fires the deletes in cascade.
+			 * Some drivers don't give the minor version, it is read from the product version.
+			 */
+			String[] version = metaData.getDatabaseProductVersion().split("\\.");
+			try {
+				int major = Integer.parseInt(version[0]);
+				int minor = (version.length > 1 ? Integer.parseInt(version[1]) : 0);
+				return major > 3 || (major == 3 && minor >= 24);
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public String buildUpsert(String table, String[] columns, int primaryKeySize, boolean[] nullColumns) {
+			return buildOnConflictUpsert(table, columns, primaryKeySize, nullColumns);
+		}
+
+		@Override
+		public int getMaxParameters() {
+			// SQLITE_MAX_VARIABLE_NUMBER of the versions before 3.32
+			return 999;
+		}
+	},
+
+	/**
+	 * Rows are streamed through server side cursors, which both our connectors
+	 * enable by default (see {@link DatabaseConnectorIF#setUseCursors(boolean)}).
+	 */
+	SQLSERVER {
+		@Override
+		public boolean isUpsertSupported(DatabaseMetaData metaData) throws SQLException {
+			// MERGE appeared in SQL Server 2008
+			return metaData.getDatabaseMajorVersion() >= 10;
+		}
+
+		@Override
+		public String buildUpsert(String table, String[] columns, int primaryKeySize, boolean[] nullColumns) {
+			StringBuilder sb = new StringBuilder(300);
+			sb.append("MERGE INTO ").append(table).append(" WITH (HOLDLOCK) AS target USING (SELECT ");
+			boolean first = true;
+			for (int i = 0; i < columns.length; i++) {
+				if (!nullColumns[i]) {
+					if (!first) {
+						sb.append(",");
+					}
+					first = false;
+					sb.append("? AS ").append(columns[i]);
+				}
+			}
+
+			sb.append(") AS source ON ");
+			for (int i = 0; i < primaryKeySize; i++) {
+				if (i != 0) {
+					sb.append(" AND ");
+				}
+				sb.append("target.").append(columns[i]).append(" = source.").append(columns[i]);
+			}
+
+			if (columns.length > primaryKeySize) {
+				sb.append(" WHEN MATCHED THEN UPDATE SET ");
+				appendAssignments(sb, columns, primaryKeySize, nullColumns, "source.%s");
+			}
+
+			sb.append(" WHEN NOT MATCHED THEN INSERT (");
+			appendList(sb, columns, 0, columns.length, nullColumns, "", "");
+			sb.append(") VALUES (");
+			appendList(sb, columns, 0, columns.length, nullColumns, "source.", "");
+			sb.append(");");
+			return sb.toString();
+		}
+
+		@Override
+		public int getMaxParameters() {
+			return 2100;
+		}
+
+		@Override
+		public String limit(String selectQuery, int limit, int offset) {
+			if (offset > 0) {
+				// SQL Server 2012, the query must have an ORDER BY
+				return selectQuery + " OFFSET " + offset + " ROWS FETCH NEXT " + limit + " ROWS ONLY";
+			}
+			return selectQuery.replaceFirst("(?i)^\\s*SELECT\\s+(DISTINCT\\s+)?", "SELECT $1TOP " + limit + " ");
+		}
+	},
+
+	/**
+	 * A database we know nothing about: only standard SQL is used.
+	 */
+	GENERIC {
+		@Override
+		public boolean isUpsertSupported(DatabaseMetaData metaData) {
+			return false;
+		}
+
+		@Override
+		public String buildUpsert(String table, String[] columns, int primaryKeySize, boolean[] nullColumns) {
+			return null;
+		}
+
+		@Override
+		public String limit(String selectQuery, int limit, int offset) {
+			// SQL:2008
+			return selectQuery + " OFFSET " + offset + " ROWS FETCH FIRST " + limit + " ROWS ONLY";
+		}
+
+		@Override
+		public void appendOrderBy(StringBuilder sb, String column, boolean descending, boolean nullsFirst) {
+			// Where the nulls go by default is up to the database
+			sb.append(column).append(descending ? " DESC" : " ASC").append(nullsFirst ? " NULLS FIRST" : " NULLS LAST");
+		}
+	};
+
+	/**
+	 * Tells whether the database, as described by its metadata, supports the request
+	 * built by {@link #buildUpsert(String, String[], int, boolean[])}.
+	 */
+	public abstract boolean isUpsertSupported(DatabaseMetaData metaData) throws SQLException;
+
+	/**
+	 * Builds a request that inserts a row, or updates it if its primary key already exists.
+	 * The parameters are the non null columns, in column order.
+	 * @param table The table name
+	 * @param columns The column names, primary key first
+	 * @param primaryKeySize The number of columns in the primary key
+	 * @param nullColumns The columns that are null: they are left to their default value
+	 *                    upon insertion and set to NULL upon update.
+	 * @return The request, or null if the dialect has no such request.
+	 */
+	public abstract String buildUpsert(String table, String[] columns, int primaryKeySize, boolean[] nullColumns);
+
+	/**
+	 * Prepares a statement whose ResultSet is read from the server as it is iterated,
+	 * fetchSize rows at a time, instead of being loaded all at once.
+	 */
+	public PreparedStatement prepareStreamingStatement(Connection connection, String sql, int fetchSize) throws SQLException {
+		PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		ps.setFetchSize(fetchSize);
+		return ps;
+	}
+
+	/**
+	 * @return True if the rows are only streamed when auto-commit is off.
+	 */
+	public boolean isStreamingTransactionRequired() {
+		return false;
+	}
+
+	/**
+	 * @return The maximum number of parameters the database accepts in a request.
+	 */
+	public int getMaxParameters() {
+		return 1000;
+	}
+
+	/**
+	 * Returns the type name to give to {@link Connection#createArrayOf(String, Object[])}
+	 * for an array of values of this SQL type.
+	 * @param sqlType A {@link Types} constant
+	 * @return The type name, or null if arrays of this type can't be used as parameters.
+	 */
+	public String getArrayTypeName(int sqlType) {
+		return null;
+	}
+
+	/**
+	 * Returns the condition comparing a column with every value of an array parameter.
+	 * Only called if {@link #getArrayTypeName(int)} returned a type.
+	 * @param column The column name
+	 * @param not True for "not in", false for "in"
+	 */
+	public String anyCondition(String column, boolean not) {
+		throw new UnsupportedOperationException(name() + " does not support array parameters.");
+	}
+
+	/**
+	 * Limits the number of rows returned by a SELECT request.
+	 * @param selectQuery The request, with its ORDER BY clause if any
+	 * @param limit The maximum number of rows
+	 * @param offset The number of rows to skip first, 0 for none
+	 * @return The limited request
+	 */
+	public String limit(String selectQuery, int limit, int offset) {
+		if (offset > 0) {
+			return selectQuery + " LIMIT " + limit + " OFFSET " + offset;
+		}
+		return selectQuery + " LIMIT " + limit;
+	}
+
+	/**
+	 * @return True if the nulls come before the other values in ascending order, when
+	 * the ORDER BY doesn't tell.
+	 */
+	public boolean isNullSortedLow() {
+		return true;
+	}
+
+	/**
+	 * Appends a column of an ORDER BY clause. Where the nulls go is only written when it
+	 * differs from where the database puts them (see {@link #isNullSortedLow()}), so an
+	 * index on the column can still give the order.
+	 * @param sb The request being built
+	 * @param column The column name
+	 * @param descending
+	 * @param nullsFirst True to put the nulls before the other values
+	 */
+	public void appendOrderBy(StringBuilder sb, String column, boolean descending, boolean nullsFirst) {
+		if (nullsFirst != (isNullSortedLow() != descending)) {
+			// No NULLS FIRST/LAST, the nulls are sorted by a column of their own
+			sb.append("CASE WHEN ").append(column).append(" IS NULL THEN ").append(nullsFirst ? 0 : 1)
+					.append(" ELSE ").append(nullsFirst ? 1 : 0).append(" END, ");
+		}
+		sb.append(column).append(descending ? " DESC" : " ASC");
+	}
+
+	/**
+	 * Appends the condition of the rows that come after a key when ordering by these
+	 * columns, in ascending order. The condition is expanded as
+	 * (c1 &gt; ? OR (c1 = ? AND c2 &gt; ?)) unless the dialect supports row values.
+	 * @param sb The request being built
+	 * @param columns The ordering columns
+	 * @return For each parameter of the condition, the index of its value in the key.
+	 */
+	public int[] appendKeysetCondition(StringBuilder sb, String[] columns) {
+		int[] keyIndexes = new int[columns.length * (columns.length + 1) / 2];
+		int param = 0;
+
+		sb.append("(");
+		for (int i = 0; i < columns.length; i++) {
+			if (i != 0) {
+				sb.append(" OR ");
+			}
+			sb.append("(");
+			for (int j = 0; j < i; j++) {
+				sb.append(columns[j]).append(" = ? AND ");
+				keyIndexes[param++] = j;
+			}
+			sb.append(columns[i]).append(" > ?)");
+			keyIndexes[param++] = i;
+		}
+		sb.append(")");
+		return keyIndexes;
+	}
+
+	/**
+	 * Same as {@link #appendKeysetCondition(StringBuilder, String[])} when some columns may
+	 * be null, in which case they must be ordered with their nulls first (see
+	 * {@link #appendOrderBy(StringBuilder, String, boolean, boolean)}). The condition is
+	 * always expanded: a null value of the key is compared with IS NULL, and any value
+	 * comes after it.
+	 * @param sb The request being built
+	 * @param columns The ordering columns
+	 * @param nullKeys Whether the value of each column is null in the key
+	 * @return For each parameter of the condition, the index of its value in the key.
+	 */
+	public int[] appendKeysetCondition(StringBuilder sb, String[] columns, boolean[] nullKeys) {
+		int[] keyIndexes = new int[columns.length * (columns.length + 1) / 2];
+		int param = 0;
+
+		sb.append("(");
+		for (int i = 0; i < columns.length; i++) {
+			if (i != 0) {
+				sb.append(" OR ");
+			}
+			sb.append("(");
+			for (int j = 0; j < i; j++) {
+				if (nullKeys[j]) {
+					sb.append(columns[j]).append(" IS NULL AND ");
+				} else {
+					sb.append(columns[j]).append(" = ? AND ");
+					keyIndexes[param++] = j;
+				}
+			}
+			if (nullKeys[i]) {
+				sb.append(columns[i]).append(" IS NOT NULL)");
+			} else {
+				sb.append(columns[i]).append(" > ?)");
+				keyIndexes[param++] = i;
+			}
+		}
+		sb.append(")");
+		return Arrays.copyOf(keyIndexes, param);
+	}
+
+	/*
+	 * INSERT INTO table(c1,c2,c3) VALUES (?,?,?) ON CONFLICT (c1) DO UPDATE SET c2 = EXCLUDED.c2, c3 = EXCLUDED.c3
+	 */
+	private static String buildOnConflictUpsert(String table, String[] columns, int primaryKeySize, boolean[] nullColumns) {
+		StringBuilder sb = new StringBuilder(200);
+		appendInsert(sb, "INSERT INTO ", table, columns, nullColumns);
+
+		sb.append(" ON CONFLICT (");
+		appendList(sb, columns, 0, primaryKeySize, "", "");
+		sb.append(")");
+
+		if (columns.length == primaryKeySize) {
+			sb.append(" DO NOTHING");
+		} else {
+			sb.append(" DO UPDATE SET ");
+			appendAssignments(sb, columns, primaryKeySize, nullColumns, "EXCLUDED.%s");
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * (c1, c2) > (?, ?)
+	 */
+	private static int[] appendRowValueCondition(StringBuilder sb, String[] columns) {
+		int[] keyIndexes = new int[columns.length];
+		sb.append("(");
+		appendList(sb, columns, 0, columns.length, "", "");
+		sb.append(") > (");
+		for (int i = 0; i < columns.length; i++) {
+			if (i != 0) {
+				sb.append(",");
+			}
+			sb.append("?");
+			keyIndexes[i] = i;
+		}
+		sb.append(")");
+		return keyIndexes;
+	}
+
+	/*
+	 * INSERT INTO table(c1,c2) VALUES (?,?), with the null columns left out.
+	 */
+	private static void appendInsert(StringBuilder sb, String insert, String table, String[] columns, boolean[] nullColumns) {
+		sb.append(insert).append(table).append("(");
+		appendList(sb, columns, 0, columns.length, nullColumns, "", "");
+		sb.append(") VALUES (");
+
+		boolean first = true;
+		for (int i = 0; i < columns.length; i++) {
+			if (!nullColumns[i]) {
+				if (!first) {
+					sb.append(",");
+				}
+				first = false;
+				sb.append("?");
+			}
+		}
+		sb.append(")");
+	}
+
+	private static void appendList(StringBuilder sb, String[] columns, int from, int to, String prefix, String suffix) {
+		appendList(sb, columns, from, to, null, prefix, suffix);
+	}
+
+	private static void appendList(StringBuilder sb, String[] columns, int from, int to, boolean[] skippedColumns, String prefix, String suffix) {
+		boolean first = true;
+		for (int i = from; i < to; i++) {
+			if (skippedColumns == null || !skippedColumns[i]) {
+				if (!first) {
+					sb.append(",");
+				}
+				first = false;
+				sb.append(prefix).append(columns[i]).append(suffix);
+			}
+		}
+	}
+
+	/*
+	 * c = <value>, ... for the non key columns, where the value format receives the column name.
+	 */
+	private static void appendAssignments(StringBuilder sb, String[] columns, int primaryKeySize, boolean[] nullColumns, String valueFormat) {
+		for (int i = primaryKeySize; i < columns.length; i++) {
+			if (i != primaryKeySize) {
+				sb.append(", ");
+			}
+			sb.append(columns[i]).append(" = ");
+			if (nullColumns[i]) {
+				sb.append("NULL");
+			} else {
+				sb.append(String.format(valueFormat, columns[i]));
+			}
+		}
+	}
+}
@@ -50,4 +50,9 @@ public class SQLServerJTDSConnector implements RemoteDatabaseConnectorIF{
 	public boolean isReturningSupported() {
 		return false;
 	}
+	
+	@Override
+	public SQLDialect getSQLDialect() {
+		return SQLDialect.SQLSERVER;
+	}
 }
@@ -55,4 +55,9 @@ public class SQLServerMicrosoftConnector implements RemoteDatabaseConnectorIF{
 	public boolean isReturningSupported() {
 		return false;
 	}
+	
+	@Override
+	public SQLDialect getSQLDialect() {
+		return SQLDialect.SQLSERVER;
+	}
 }
@@ -48,4 +48,9 @@ public class SQLiteConnector implements LocalDatabaseConnectorIF {
 	public File getDatabaseFile()	{
 		return databaseFile ;
 	}
+	
+	@Override
+	public SQLDialect getSQLDialect() {
+		return SQLDialect.SQLITE;
+	}
 }
@@ -1,29 +1,44 @@
 package com.philippelangevin.sdk.database.dbAccess;
 
+import java.sql.Array;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryConditionStruct;
+import com.philippelangevin.sdk.database.connector.SQLDialect;
 import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryMathOperatorStruct;
-import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryMathOperatorStructIF;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryOrderDirection;
 import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.TblColStruct;
 import com.philippelangevin.sdk.database.exception.TONotFoundException;
 import com.philippelangevin.sdk.database.tables.TableInfo;
 import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.LazyColumnLoader;
+import com.philippelangevin.sdk.database.transferableObject.TOChangeSet;
 import com.philippelangevin.sdk.database.transferableObject.TOColumnFilter;
+import com.philippelangevin.sdk.database.transferableObject.TOColumnOrder;
+import com.philippelangevin.sdk.database.transferableObject.TOStructureRegistry;
 import com.philippelangevin.sdk.database.transferableObject.TOUtil;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
-import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfo;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObjectStructureIF;
 import com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF;
-import com.philippelangevin.sdk.database.util.ClassicSQLRequests;
 import com.philippelangevin.sdk.database.util.ResultSetTranslator;
 
 /**
@@ -40,12 +55,66 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 
 	protected DatabaseConnection dbAccess=null;
 	protected ConnectionModeEnum connectionMode = null;
+	
+	/*
+	 * When the DAO is built over a pool, dbAccess is not used: every request borrows
+	 * a connection, unless the calling thread has bound one (i.e. during a transaction).
+	 */
+	protected DatabaseConnectionPool connectionPool = null;
+	private final ThreadLocal<DatabaseConnection> boundConnection = new ThreadLocal<DatabaseConnection>();
+	
+	public static final int DEFAULT_BATCH_SIZE = 500;
+	protected int batchSize = DEFAULT_BATCH_SIZE;
+	
+	public static final int DEFAULT_FETCH_SIZE = 500;
+	
+	public static final int DEFAULT_LAZY_BATCH_SIZE = 500;
+	protected int lazyBatchSize = DEFAULT_LAZY_BATCH_SIZE;
+	
+	protected InListStrategy inListStrategy = InListStrategy.PADDED;
+	protected ExecutorService inListExecutor = null;
+	
+	protected TOCache toCache = null;
+	protected TOQueryCache queryCache = null;
+	
+	/*
+	 * The TOs written by each transaction in progress, by connection. They are removed
+	 * from the caches again when the transaction ends: until then, another thread reads
+	 * the rows as they were and might cache them.
+	 */
+	private final ConcurrentMap<DatabaseConnection, List<TransferableObject>> transactionWrites = new ConcurrentHashMap<DatabaseConnection, List<TransferableObject>>();
+	
+	protected CaseInsensitiveStrategy caseInsensitiveStrategy = CaseInsensitiveStrategy.LOWER;
+	
+	/*
+	 * The SQL of select(QueryBuilder) by query shape (see QueryBuilder.getSQLShape()).
+	 * Emptied once full, the shapes of an application being usually few.
+	 */
+	private static final int MAX_SELECT_SHAPES = 512;
+	private final ConcurrentMap<List<Object>, String> selectSQLByShape = new ConcurrentHashMap<List<Object>, String>();
 
 	/**
 	 * Test if the containing DatabaseConnection is connected
 	 * @return True if connected
 	 */
 	public boolean isConnectionAlive()	{
+		if (connectionPool != null)	{
+			if (connectionPool.isClosed())	{
+				return false ;
+			}
+			
+			try {
+				DatabaseConnection conn = acquireConnection();
+				try {
+					return conn.isConnectionAlive(false) ;
+				} finally {
+					releaseConnection(conn);
+				}
+			} catch (SQLException e) {
+				return false ;
+			}
+		}
+		
 		if (dbAccess == null)	{
 			return false ;
 		}
@@ -57,12 +126,84 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 		this.connectionMode = connectionMode;
 	}
 	
+	/**
+	 * Builds a DAO that can be shared by many threads: each request uses a
+	 * connection borrowed from the pool, and a transaction keeps its connection
+	 * bound to the calling thread until commit() or rollback().
+	 * @param connectionPool
+	 */
+	public AbstractDatabaseDAO(DatabaseConnectionPool connectionPool){
+		this(connectionPool.getConnectionMode());
+		this.connectionPool = connectionPool;
+	}
+	
+	/**
+	 * Returns the connection to use for a request: the DAO's connection, the connection
+	 * bound to the current thread, or a connection borrowed from the pool.
+	 * Must always be paired with {@link #releaseConnection(DatabaseConnection)}.
+	 */
+	protected DatabaseConnection acquireConnection() throws SQLException {
+		if (connectionPool == null) {
+			return dbAccess;
+		}
+		
+		DatabaseConnection conn = boundConnection.get();
+		if (conn != null) {
+			return conn;
+		}
+		return connectionPool.borrowConnection();
+	}
+	
+	protected void releaseConnection(DatabaseConnection conn) {
+		if (connectionPool == null || conn == null || conn == boundConnection.get()) {
+			return;
+		}
+		connectionPool.releaseConnection(conn);
+	}
+	
+	/*
+	 * The connection the current thread should be working with, null if none is bound in pooled mode.
+	 */
+	private DatabaseConnection currentConnection() {
+		if (connectionPool == null) {
+			return dbAccess;
+		}
+		return boundConnection.get();
+	}
+	
+	/**
+	 * In pooled mode, reserves a connection for the current thread until
+	 * {@link #unbindConnection()} is called. Does nothing otherwise.
+	 */
+	public void bindConnection() throws SQLException {
+		if (connectionPool != null && boundConnection.get() == null) {
+			boundConnection.set(connectionPool.borrowConnection());
+		}
+	}
+	
+	/**
+	 * Gives back the connection reserved by {@link #bindConnection()}.
+	 */
+	public void unbindConnection() {
+		if (connectionPool == null) {
+			return;
+		}
+		
+		DatabaseConnection conn = boundConnection.get();
+		if (conn != null) {
+			boundConnection.remove();
+			connectionPool.releaseConnection(conn);
+		}
+	}
+	
 	@Override
 	public void beginTransaction() throws SQLException{
 		switch (connectionMode) {
 		case READ_WRITE_MANUAL_COMMIT:
-			dbAccess.setReadOnly(false);
-			dbAccess.setAutoCommit(false);
+			bindConnection();
+			DatabaseConnection conn = currentConnection();
+			conn.setReadOnly(false);
+			conn.setAutoCommit(false);
 			break;
 			
 		case READ_ONLY:
@@ -77,9 +218,20 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 		try {
 			switch (connectionMode) {
 			case READ_WRITE_MANUAL_COMMIT:
-				dbAccess.dbConnection.rollback();
-				dbAccess.setAutoCommit(true);
-				dbAccess.setReadOnly(true);
+				DatabaseConnection conn = currentConnection();
+				if (conn == null) {
+					System.err.println("AbstractDatabaseDAO.rollback() - No transaction was started by this thread.");
+					return false;
+				}
+				
+				try {
+					conn.dbConnection.rollback();
+					conn.setAutoCommit(true);
+					conn.setReadOnly(true);
+				} finally {
+					unbindConnection();
+					invalidateTransactionWrites(conn);
+				}
 				return true;
 				
 			case READ_ONLY:
@@ -96,7 +248,11 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 	
 	@Override
 	public void close() {
-		dbAccess.closeConnection();
+		if (connectionPool != null) {
+			connectionPool.close();
+		} else {
+			dbAccess.closeConnection();
+		}
 		System.out.println("Closing " + getClass().getSimpleName() + "...");
 	}
 	
@@ -104,9 +260,19 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 	public void commit() throws SQLException {
 		switch (connectionMode) {
 		case READ_WRITE_MANUAL_COMMIT:
-			dbAccess.commit();
-			dbAccess.setAutoCommit(true);
-			dbAccess.setReadOnly(true);
+			DatabaseConnection conn = currentConnection();
+			if (conn == null) {
+				throw new SQLException("No transaction was started by this thread.");
+			}
+			
+			try {
+				conn.commit();
+				conn.setAutoCommit(true);
+				conn.setReadOnly(true);
+			} finally {
+				unbindConnection();
+				invalidateTransactionWrites(conn);
+			}
 			break;
 			
 		case READ_ONLY:
@@ -118,16 +284,32 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 	
 	@Override
 	public void deferConstraints(){
-		dbAccess.deferConstraints();
+		DatabaseConnection conn = currentConnection();
+		if (conn == null) {
+			System.err.println("AbstractDatabaseDAO.deferConstraints() - Must be called in a transaction when using a connection pool.");
+			return;
+		}
+		conn.deferConstraints();
 	}
 	
 	@Override
 	public void undeferConstraints(){
-		dbAccess.undeferConstraints();
+		DatabaseConnection conn = currentConnection();
+		if (conn == null) {
+			System.err.println("AbstractDatabaseDAO.undeferConstraints() - Must be called in a transaction when using a connection pool.");
+			return;
+		}
+		conn.undeferConstraints();
 	}
 	
 	@Override
 	public void reconnect() {
+		if (connectionPool != null) {
+			// Connections in use are closed when given back
+			connectionPool.reset();
+			return;
+		}
+		
 		dbAccess.closeConnection();
 		
 		try {
@@ -144,19 +326,25 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 	
 	protected void openConnection() throws SQLException {
 		dbAccess.openConnection();
-		
+		applyConnectionMode(dbAccess, connectionMode);
+	}
+	
+	/**
+	 * Puts an opened connection in the state expected for the connection mode.
+	 */
+	static void applyConnectionMode(DatabaseConnection connection, ConnectionModeEnum connectionMode) throws SQLException {
 		switch (connectionMode) {
 		case READ_ONLY:
-			dbAccess.setReadOnly(true);
+			connection.setReadOnly(true);
 			break;
 			
 		case READ_WRITE_AUTO_COMMIT:
-			dbAccess.setAutoCommit(true);
+			connection.setAutoCommit(true);
 			break;
 			
 		case READ_WRITE_MANUAL_COMMIT:
-			dbAccess.setAutoCommit(true);
-			dbAccess.setReadOnly(true);
+			connection.setAutoCommit(true);
+			connection.setReadOnly(true);
 			break;
 			
 		default:
@@ -171,92 +359,66 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 			throw new SQLException("insert() should never be called with a null value!");
 		}
 		
-		// We retrieve all columns and column values we will be requiring
-		@SuppressWarnings("unchecked")
-		ColumnInfo<Object>[] toColumns = (ColumnInfo<Object>[]) to.getTOStructure().getColumns();
-		Object[] columnValues = new Object[toColumns.length];
-		for (int i = 0; i < toColumns.length; i++) {
-			columnValues[i] = to.get(toColumns[i]);
-		}
-		
-		// We start building the query
-		StringBuilder query = new StringBuilder(50);
-		query.append("INSERT INTO ");
-		query.append(to.getTOStructure().getRepresentedTable());
-		query.append("(");
-		
-		// We append the query columns
-		for (int i = 0; i < toColumns.length; i++) {
-			if (i != 0) {
-				query.append(",");
-			}
-			query.append(toColumns[i]);
-		}
-		
-		// We append the query values, while keeping track of the null valued columns
-		List<Integer> nullColumnIndexes = new ArrayList<Integer>();
-		List<Integer> nonNullColumnIndexes = new ArrayList<Integer>();
-		query.append(") VALUES (");
-		for (int i = 0; i < toColumns.length; i++) {
-			if (i != 0) {
-				query.append(",");
-			}
-			
-			if (columnValues[i] == null) {
-				nullColumnIndexes.add(i);
-				query.append("DEFAULT");
-			} else {
-				nonNullColumnIndexes.add(i);
-				query.append("?");
-			}
-		}
+		// The null valued columns are left to DEFAULT
+		TOSQLTemplate template = TOSQLTemplate.get(to.getTOStructure());
+		Object[] columnValues = template.getValues(to);
+		TOSQLTemplate.InsertVariant variant = template.getInsertVariant(columnValues);
 		
-		query.append(")");
+		DatabaseConnection conn = acquireConnection();
 		
 		// If the query contains null values, we will be using a RETURNING statement
-		boolean returningStatement = (dbAccess.isReturningSupported() && nullColumnIndexes.size() != 0);
+		boolean returningStatement = (conn.isReturningSupported() && variant.returningSQL != null);
 		
-		if (returningStatement) {
-			/*
-			 * TODO RETURNING works with PostgreSQL but is not compatible with MS SQL Server.
-			 * If we ever use auto-increment numbers or want to receive return values on
-			 * a MS SQL Server BD, we will have to implement it using a different method
-			 * (possibly stored procedures, see http://en.wikipedia.org/wiki/Insert_%28SQL%29).
-			 */
-			query.append(" RETURNING ");
-			for (int i = 0; i < nullColumnIndexes.size(); i++) {
-				if (i != 0) {
-					query.append(",");
-				}
-				query.append(toColumns[nullColumnIndexes.get(i)]);
-			}
-		}
+		/*
+		 * TODO RETURNING works with PostgreSQL but is not compatible with MS SQL Server.
+		 * If we ever use auto-increment numbers or want to receive return values on
+		 * a MS SQL Server BD, we will have to implement it using a different method
+		 * (possibly stored procedures, see http://en.wikipedia.org/wiki/Insert_%28SQL%29).
+		 */
+		String query = returningStatement ? variant.returningSQL : variant.sql;
 		
 		try {
 			// We prepare the query by setting all the values
-			PreparedStatement ps = dbAccess.prepareStatement(query.toString());
-			int sqlIndex = 1;
-			for (Integer index: nonNullColumnIndexes) {
-				ClassicSQLRequests.setPreparedStatement(ps, sqlIndex++, columnValues[index], toColumns[index].getMetaData().getSQLDataType());
-			}
-			
-			/*
-			 * We can now execute the query; if there were null values we have to use
-			 * executeQuery() since we have return values, otherwise we use executeUpdate().
-			 */
-			if (!returningStatement) {
-				ps.executeUpdate();
-			} else {
-				ResultSet rs = ps.executeQuery();
-				rs.next();
-				for (int i = 0; i < nullColumnIndexes.size(); i++) {
-					to.set(toColumns[nullColumnIndexes.get(i)], rs.getObject(i+1));
+			PreparedStatement ps = conn.prepareCachedStatement(query);
+			try {
+				int[] boundColumns = variant.boundColumns;
+				for (int i = 0; i < boundColumns.length; i++) {
+					int index = boundColumns[i];
+					template.metaData[index].bind(ps, i + 1, columnValues[index]);
+				}
+				
+				/*
+				 * We can now execute the query; if there were null values we have to use
+				 * executeQuery() since we have return values, otherwise we use executeUpdate().
+				 */
+				if (!returningStatement) {
+					ps.executeUpdate();
+				} else {
+					ResultSet rs = ps.executeQuery();
+					try {
+						rs.next();
+						int[] defaultColumns = variant.defaultColumns;
+						for (int i = 0; i < defaultColumns.length; i++) {
+							to.set(template.columns[defaultColumns[i]], rs.getObject(i+1));
+						}
+					} finally {
+						closeResultSet(rs);
+					}
 				}
+			} catch (SQLException e) {
+				conn.evictCachedStatement(query);
+				throw e;
+			} finally {
+				conn.releaseCachedStatement(ps);
 			}
+			to.markClean();
+			invalidateCaches(to);
 			
 		} catch (SQLException e) {
 			System.err.println("Failed to insert the following TO: " + to);
 			throw e;
+		} finally {
+			releaseConnection(conn);
 		}
 	}
 	
@@ -268,72 +430,50 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 			return false;
 		}
 		
-		String update = "UPDATE %s SET %s WHERE %s";
-		TransferableObjectInfo<?> colObjList[] = null;
-		StringBuilder columnList = new StringBuilder();
-		StringBuilder primaryKeyList = new StringBuilder();
-		/*
-		 * generate the insert SQL request
-		 */
+		TOSQLTemplate template = TOSQLTemplate.get(TO.getTOStructure());
+		assert 0 < template.columns.length && 0 < template.primaryKeySize;
+		assert template.primaryKeySize <= template.columns.length;
+		
+		TOSQLTemplate.UpdateVariant variant = template.getUpdateVariant(TO);
+		if (variant == null) {
+			// Only primary key columns or no dirty column, there is nothing to update
+			return true;
+		}
+		
+		DatabaseConnection conn = null;
 		try {
-			colObjList = TO.getTOStructure().getColumns();//getColumnList( TO );
-			assert null != colObjList;
-			assert 0 < colObjList.length && 0 < TO.getTOStructure().getPrimaryKeySize();
-			assert TO.getTOStructure().getPrimaryKeySize() <= colObjList.length;
-			//				long start = System.currentTimeMillis();
-			/*
-			 * Handles the Where statement first
-			 */
-			primaryKeyList.append( colObjList[0].toString() );
-			primaryKeyList.append( " = ?" );
-			int index = 1;
-			while( index < TO.getTOStructure().getPrimaryKeySize() ) {
-				primaryKeyList.append( " AND " );
-				primaryKeyList.append( colObjList[index].toString() );
-				primaryKeyList.append( " = ?" );
-				index++;
-			}
-			/*
-			 * Handles the new values to set
-			 */
-			columnList.append( colObjList[index].toString() );
-			columnList.append( " = ?" );
-			index++;
-			while( index < colObjList.length ) {
-				columnList.append( ", " );
-				columnList.append( colObjList[index].toString() );
-				columnList.append( " = ?" );
-				index++;
-			}
-	
-			String sqlQuery = String.format( update,
-					TO.getTOStructure().getRepresentedTable().toString(),
-					columnList.toString(),
-					primaryKeyList.toString() ) ;
-			
-			PreparedStatement ps = dbAccess.prepareStatement( sqlQuery );
-			/*
-			 * insert the values into the SQL prepared statement
-			 */
-			for( int i = 0; i < colObjList.length; i++ ) {
+			conn = acquireConnection();
+			PreparedStatement ps = conn.prepareCachedStatement( variant.sql );
+			try {
 				/*
-				 * The modulo is to make sure that the Primary key will receive the right
-				 * PreparedStatement index.
+				 * insert the values into the SQL prepared statement; the dirty
+				 * columns come first, followed by the primary key.
 				 */
-				ClassicSQLRequests.setPreparedStatement( ps, i + 1, TO.get( colObjList[(i + TO.getTOStructure().getPrimaryKeySize())%colObjList.length] ), colObjList[(i + TO.getTOStructure().getPrimaryKeySize())%colObjList.length].getMetaData().getSQLDataType() );
-				
+				int[] boundColumns = variant.boundColumns;
+				for( int i = 0; i < boundColumns.length; i++ ) {
+					int index = boundColumns[i];
+					template.metaData[index].bind( ps, i + 1, TO.get( template.columns[index] ) );
+				}
+				/*
+				 * execute the update!!!
+				 */
+				ps.executeUpdate();
+			} catch (SQLException e) {
+				conn.evictCachedStatement(variant.sql);
+				throw e;
+			} finally {
+				conn.releaseCachedStatement(ps);
 			}
-			/*
-			 * execute the update!!!
-			 */
-			 
-			ps.executeUpdate();
+			TO.markClean();
+			invalidateCaches(TO);
 
 			return true;
 			
 		}catch(SQLException e){
 			System.err.println("Failed to update the following TO: " + TO);
 			e.printStackTrace();
+		} finally {
+			releaseConnection(conn);
 		}
 		return false;
 	}
@@ -346,45 +486,8 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 			return false;
 		}
 		
-		String delete = "DELETE FROM %s WHERE %s ";
-		TransferableObjectInfo<?> colObjList[] = null;
-		StringBuilder primaryKeyList = new StringBuilder();
-		/*
-		 * generate the insert SQL request
-		 */
 		try {
-			colObjList = TO.getTOStructure().getColumns();
-			assert null != colObjList;
-			assert 0 < colObjList.length && 0 < TO.getTOStructure().getPrimaryKeySize();
-			assert TO.getTOStructure().getPrimaryKeySize() <= colObjList.length;
-			/*
-			 * Handles the Where statement first
-			 */
-			primaryKeyList.append( colObjList[0].toString() );
-			primaryKeyList.append( " = ?" );
-			int index = 1;
-			while( index < TO.getTOStructure().getPrimaryKeySize() ) {
-				primaryKeyList.append( " AND " );
-				primaryKeyList.append( colObjList[index].toString() );
-				primaryKeyList.append( " = ?" );
-				index++;
-			}
-	
-			String sqlQuery = String.format( delete, TO.getTOStructure().getRepresentedTable().toString(), primaryKeyList.toString() ) ;
-
-			//			System.out.println( sqlQuery );
-			PreparedStatement ps = dbAccess.prepareStatement( sqlQuery );
-			/*
-			 * insert the values into the SQL prepared statement
-			 */
-			for( int i = 0; i < TO.getTOStructure().getPrimaryKeySize(); i++ ) {
-				//				System.out.println( colObjList[i] + " " + TO.get( colObjList[i] ) );
-				ClassicSQLRequests.setPreparedStatement( ps, i + 1, TO.get( colObjList[i] ),colObjList[i].getMetaData().getSQLDataType()  );
-			}
-			/*
-			 * execute the delete!!!
-			 */
-			ps.executeUpdate();
+			executeDelete(TO);
 			return true;
 			
 		}catch(SQLException e){
@@ -400,252 +503,1507 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 			throw new NullPointerException();
 		}
 		
-		String delete = "DELETE FROM %s WHERE %s ";
-		TransferableObjectInfo<?> colObjList[] = null;
-		StringBuilder primaryKeyList = new StringBuilder();
-		
-		colObjList = to.getTOStructure().getColumns();
-		assert null != colObjList;
-		assert 0 < colObjList.length && 0 < to.getTOStructure().getPrimaryKeySize();
-		assert to.getTOStructure().getPrimaryKeySize() <= colObjList.length;
-		
-		/*
-		 * Handles the Where statement first
-		 */
-		primaryKeyList.append( colObjList[0].toString() );
-		primaryKeyList.append( " = ?" );
-		int index = 1;
-		while( index < to.getTOStructure().getPrimaryKeySize() ) {
-			primaryKeyList.append( " AND " );
-			primaryKeyList.append( colObjList[index].toString() );
-			primaryKeyList.append( " = ?" );
-			index++;
-		}
-		
-		String sqlQuery = String.format( delete, to.getTOStructure().getRepresentedTable().toString(), primaryKeyList.toString() ) ;
-		
-		PreparedStatement ps = dbAccess.prepareStatement( sqlQuery );
-		/*
-		 * insert the values into the SQL prepared statement
-		 */
-		for( int i = 0; i < to.getTOStructure().getPrimaryKeySize(); i++ ) {
-			ClassicSQLRequests.setPreparedStatement( ps, i + 1, to.get( colObjList[i] ),colObjList[i].getMetaData().getSQLDataType()  );
-		}
-		/*
-		 * execute the delete!!!
-		 */
-		if (ps.executeUpdate() == 0) {
+		if (executeDelete(to) == 0) {
 			throw new TONotFoundException("Failed to delete the following TO: " + to);
 		}
 	}
 	
-	@Override
-	public void deleteTOSemiQuiet(TransferableObject to) throws NullPointerException, SQLException {
+	/*
+	 * Deletes a TO by its primary key and returns the number of deleted rows.
+	 */
+	private int executeDelete(TransferableObject to) throws SQLException {
+		TOSQLTemplate template = TOSQLTemplate.get(to.getTOStructure());
+		assert 0 < template.columns.length && 0 < template.primaryKeySize;
+		
+		DatabaseConnection conn = acquireConnection();
 		try {
-			deleteTO(to);
-		} catch (TONotFoundException e) {
-			// Do nothing of the TO is not found
+			PreparedStatement ps = conn.prepareCachedStatement( template.deleteSQL );
+			int count;
+			try {
+				/*
+				 * insert the values into the SQL prepared statement
+				 */
+				for( int i = 0; i < template.primaryKeySize; i++ ) {
+					template.metaData[i].bind( ps, i + 1, to.get( template.columns[i] ) );
+				}
+				/*
+				 * execute the delete!!!
+				 */
+				count = ps.executeUpdate();
+			} catch (SQLException e) {
+				conn.evictCachedStatement(template.deleteSQL);
+				throw e;
+			} finally {
+				conn.releaseCachedStatement(ps);
+			}
+			invalidateCaches(to);
+			return count;
+		} finally {
+			releaseConnection(conn);
 		}
 	}
 	
-	@Override
-	public <T extends TransferableObject> void synchronizeTO(Collection<T> beforeTO, Collection<T> afterTO) throws SQLException {
-
-		List<T> toAdd = new ArrayList<T>();
-		if (afterTO != null) {
-			toAdd.addAll(afterTO);
-		}
-		TOUtil.shallowRemoveAll(toAdd, beforeTO);
+	/*
+	 * The rows of a batch, all sharing the same request.
+	 */
+	private static class BatchGroup {
+		private final String sql;
+		private final TOSQLTemplate template;
+		private final int[] boundColumns;
+		private final List<Integer> positions = new ArrayList<Integer>();
 		
-		List<T> toRemove = new ArrayList<T>();
-		if (afterTO != null) {
-			toRemove.addAll(beforeTO);
-		}
-		TOUtil.shallowRemoveAll(toRemove, afterTO);
+		// For inserts on a database without RETURNING, the columns to read from the generated keys
+		private int[] generatedColumns = null;
 		
-		List<T> toUpdate = new ArrayList<T>();
-		if (afterTO != null) {
-			toUpdate.addAll(afterTO);
+		private BatchGroup(String sql, TOSQLTemplate template, int[] boundColumns) {
+			this.sql = sql;
+			this.template = template;
+			this.boundColumns = boundColumns;
 		}
-		TOUtil.shallowRetainAll(toUpdate, beforeTO);
-		
-		//Remove missing TO
-		for(T currTO : toRemove){
-			deleteTO(currTO);
+	}
+	
+	/**
+	 * Sets the maximum number of rows sent in a single JDBC batch by
+	 * {@link #insertAll(Collection)}, {@link #updateAll(Collection)} and {@link #deleteAll(Collection)}.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
 		}
-		
-		//Add TO
-		for(T currTO : toAdd){
-			insert(currTO);
+		this.batchSize = batchSize;
+	}
+	
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	/**
+	 * Sets the maximum number of TOs whose lazy columns are read at once (see {@link LazyColumnLoader}),
+	 * with several requests if the database doesn't accept as many parameters.
+	 */
+	public void setLazyBatchSize(int lazyBatchSize) {
+		if (lazyBatchSize <= 0) {
+			throw new IllegalArgumentException("The batch size must be positive: " + lazyBatchSize);
+		}
+		this.lazyBatchSize = lazyBatchSize;
+	}
+	
+	public int getLazyBatchSize() {
+		return lazyBatchSize;
+	}
+	
+	/**
+	 * Sets how the values of the <i>in</i> and <i>not in</i> filters are sent to the database.
+	 * @see InListStrategy
+	 */
+	public void setInListStrategy(InListStrategy inListStrategy) {
+		if (inListStrategy == null) {
+			throw new IllegalArgumentException("The IN list strategy can't be null");
+		}
+		this.inListStrategy = inListStrategy;
+	}
+	
+	public InListStrategy getInListStrategy() {
+		return inListStrategy;
+	}
+	
+	/**
+	 * Sets the cache of the TOs selected by primary key. Once set, {@link #selectTO(TransferableObject)}
+	 * looks in the cache first, the TOs read by selectTO() and selectTOList() are added to it,
+	 * and the TOs written by the DAO are removed from it. The cache is not used in a transaction.
+	 * A cache can be shared by the DAOs of the same database.
+	 * @param toCache The cache, null to disable it
+	 */
+	public void setTOCache(TOCache toCache) {
+		this.toCache = toCache;
+	}
+	
+	public TOCache getTOCache() {
+		return toCache;
+	}
+	
+	/**
+	 * Sets the cache of the results of {@link #selectTOList(Class, List)}, which also serves
+	 * the other selectTOList() methods. Only the tables enabled in the cache are cached, and
+	 * any write of the DAO on a table removes its results. The cache is not used in a transaction.
+	 * @param queryCache The cache, null to disable it
+	 */
+	public void setQueryCache(TOQueryCache queryCache) {
+		this.queryCache = queryCache;
+	}
+	
+	public TOQueryCache getQueryCache() {
+		return queryCache;
+	}
+	
+	/**
+	 * Sets how the conditions of {@link #select(QueryBuilder)} on text columns ignore the
+	 * case, when the database compares them with case.
+	 * @see CaseInsensitiveStrategy
+	 */
+	public void setCaseInsensitiveStrategy(CaseInsensitiveStrategy caseInsensitiveStrategy) {
+		if (caseInsensitiveStrategy == null) {
+			throw new IllegalArgumentException("The case insensitive strategy can't be null");
 		}
+		this.caseInsensitiveStrategy = caseInsensitiveStrategy;
+	}
+	
+	public CaseInsensitiveStrategy getCaseInsensitiveStrategy() {
+		return caseInsensitiveStrategy;
+	}
+	
+	/**
+	 * When a DAO built over a pool has to split an <i>in</i> filter in several requests,
+	 * the requests are run by this executor, each with its own connection.
+	 * Without executor, or if a connection is bound to the thread, they are run one after the other.
+	 * @param inListExecutor The executor, null to run the requests one after the other
+	 */
+	public void setInListExecutor(ExecutorService inListExecutor) {
+		this.inListExecutor = inListExecutor;
+	}
+	
+	@Override
+	public int[] insertAll(Collection<? extends TransferableObject> tos) throws SQLException {
+		List<TransferableObject> toList = new ArrayList<TransferableObject>(tos);
+		int[] counts = new int[toList.size()];
 		
-		//Update if necessary
-		for(T currTO : toUpdate){
-			//found this TO in the 'before' list
-			for(T currBeforeTO : beforeTO){
-				if(currTO.shallowEquals(currBeforeTO)){
-					if(!currTO.deepEquals(currBeforeTO)){
-						if (!update(currTO)) {
-							throw new SQLException("Failed to update this TO: " + currTO);
+		// All the rows must use the same connection, even the ones inserted one by one
+		boolean alreadyBound = (currentConnection() != null);
+		bindConnection();
+		try {
+			DatabaseConnection conn = acquireConnection();
+			try {
+				boolean returningSupported = conn.isReturningSupported();
+				boolean generatedKeysSupported = conn.dbConnection.getMetaData().supportsGetGeneratedKeys();
+				Map<String, BatchGroup> groups = new LinkedHashMap<String, BatchGroup>();
+				
+				for (int i = 0; i < toList.size(); i++) {
+					TransferableObject to = toList.get(i);
+					if (to == null) {
+						throw new SQLException("insertAll() should never be called with a null value!");
+					}
+					
+					TOSQLTemplate template = TOSQLTemplate.get(to.getTOStructure());
+					TOSQLTemplate.InsertVariant variant = template.getInsertVariant(template.getValues(to));
+					
+					if (returningSupported && variant.returningSQL != null) {
+						// The default values can only be read back one row at a time, after the rows before it
+						executeBatchGroups(conn, groups, toList, counts);
+						groups.clear();
+						insert(to);
+						counts[i] = 1;
+						continue;
+					}
+					
+					BatchGroup group = groups.get(variant.sql);
+					if (group == null) {
+						group = new BatchGroup(variant.sql, template, variant.boundColumns);
+						if (variant.defaultColumns.length != 0 && generatedKeysSupported) {
+							group.generatedColumns = variant.defaultColumns;
 						}
+						groups.put(variant.sql, group);
 					}
+					group.positions.add(i);
 				}
+				
+				executeBatchGroups(conn, groups, toList, counts);
+			} finally {
+				releaseConnection(conn);
+			}
+		} finally {
+			if (!alreadyBound) {
+				unbindConnection();
 			}
 		}
+		
+		return counts;
 	}
 	
 	@Override
-	public <T extends TransferableObject> T selectTO(Class<T> clazz, Object... keys) throws SQLException {
-		return selectTO(TOUtil.createInstance(clazz, keys));
+	public int[] updateAll(Collection<? extends TransferableObject> tos) throws SQLException {
+		return updateAll(tos, null);
 	}
 	
-	@SuppressWarnings("unchecked")
-	@Override
-	public <T extends TransferableObject> T selectTO(T to) throws SQLException {
-		// Variables we will require
-		TransferableObjectStructureIF structure = to.getTOStructure();
-		int primaryKeySize = structure.getPrimaryKeySize();
-		ColumnInfo<?>[] columns = structure.getColumns();
-		
-		// We build the select query
-		StringBuilder selectQuery = new StringBuilder(50);
-		selectQuery.append("SELECT * FROM ");
-		selectQuery.append(structure.getRepresentedTable());
-		selectQuery.append(" WHERE ");
+	/*
+	 * updateAll() of the TOs of a change set: the columns that differ from the original
+	 * TOs are set along with the dirty ones, as the TOs might not come from this database.
+	 */
+	private int[] updateAll(Collection<? extends TransferableObject> tos, List<? extends TransferableObject> originals) throws SQLException {
+		List<TransferableObject> toList = new ArrayList<TransferableObject>(tos);
+		int[] counts = new int[toList.size()];
+		Map<String, BatchGroup> groups = new LinkedHashMap<String, BatchGroup>();
 		
-		// We append the WHERE arguments
-		for (int i = 0; i < primaryKeySize; i++) {
-			if (i > 0) {
-				selectQuery.append(" AND ");
+		for (int i = 0; i < toList.size(); i++) {
+			TransferableObject to = toList.get(i);
+			if (to == null) {
+				throw new SQLException("updateAll() should never be called with a null value!");
 			}
-			selectQuery.append(columns[i]);
-			selectQuery.append(" = ?");
-		}
-		
-		// We prepare the query and set the variables
-		PreparedStatement ps = dbAccess.prepareStatement(selectQuery.toString());
-		for (int i = 0; i < primaryKeySize; i++) {
-			ps.setObject(i+1, to.get(columns[i]));
+			
+			TOSQLTemplate template = TOSQLTemplate.get(to.getTOStructure());
+			TOSQLTemplate.UpdateVariant variant = template.getUpdateVariant(to, originals == null ? null : originals.get(i));
+			if (variant == null) {
+				// Only primary key columns or no dirty column, there is nothing to update
+				counts[i] = Statement.SUCCESS_NO_INFO;
+				continue;
+			}
+			
+			BatchGroup group = groups.get(variant.sql);
+			if (group == null) {
+				group = new BatchGroup(variant.sql, template, variant.boundColumns);
+				groups.put(variant.sql, group);
+			}
+			group.positions.add(i);
 		}
 		
-		// We execute the query
-		return (T) ResultSetTranslator.getDistinctTOFromResultSet(ps.executeQuery(), structure.getRepresentedTOClass());
+		executeBatchGroups(groups, toList, counts);
+		markClean(groups, toList);
+		return counts;
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
-	public <TO extends TransferableObject, V> List<TO> selectTOListByKeys(TableInfo table, Collection<V> ids) {
-		TransferableObjectStructureIF structure = TOUtil.getTOStructure(table.getTransferableObjectClass());
-		return selectTOListByIDs(table, (ColumnInfo<V>)structure.getColumns()[0], ids);
+	public int[] deleteAll(Collection<? extends TransferableObject> tos) throws SQLException {
+		List<TransferableObject> toList = new ArrayList<TransferableObject>(tos);
+		int[] counts = new int[toList.size()];
+		Map<String, BatchGroup> groups = new LinkedHashMap<String, BatchGroup>();
+		
+		for (int i = 0; i < toList.size(); i++) {
+			TransferableObject to = toList.get(i);
+			if (to == null) {
+				throw new SQLException("deleteAll() should never be called with a null value!");
+			}
+			
+			TOSQLTemplate template = TOSQLTemplate.get(to.getTOStructure());
+			BatchGroup group = groups.get(template.deleteSQL);
+			if (group == null) {
+				group = new BatchGroup(template.deleteSQL, template, template.primaryKeyColumns);
+				groups.put(template.deleteSQL, group);
+			}
+			group.positions.add(i);
+		}
+		
+		executeBatchGroups(groups, toList, counts);
+		return counts;
 	}
 	
-	@SuppressWarnings("unchecked")
-	@Override
-	public <TO extends TransferableObject, V> List<TO> selectTOListByIDs(TableInfo table, ColumnInfo<V> column, Collection<V> ids) {
-		if (ids == null || ids.isEmpty()) {
-			return new ArrayList<TO>();
+	private void executeBatchGroups(Map<String, BatchGroup> groups, List<TransferableObject> toList, int[] counts) throws SQLException {
+		if (groups.isEmpty()) {
+			return;
 		}
 		
+		DatabaseConnection conn = acquireConnection();
 		try {
-			StringBuilder sb = new StringBuilder(200);
-			sb.append(" SELECT * FROM " + table);
-			sb.append(" WHERE " + column + " IN (");
-			for (int i = 0; i < ids.size(); i++) {
-				if (i != 0) {
-					sb.append(", ");
-				}
-				sb.append("?");
+			for (BatchGroup group : groups.values()) {
+				executeBatchGroup(conn, group, toList, counts);
 			}
-			sb.append(")");
+		} finally {
+			releaseConnection(conn);
+		}
+	}
+	
+	/*
+	 * Writes the groups and marks their TOs clean.
+	 */
+	private void executeBatchGroups(DatabaseConnection conn, Map<String, BatchGroup> groups, List<TransferableObject> toList, int[] counts) throws SQLException {
+		for (BatchGroup group : groups.values()) {
+			executeBatchGroup(conn, group, toList, counts);
+		}
+		markClean(groups, toList);
+	}
+	
+	/*
+	 * Once all the groups were written, their TOs hold the values of the database.
+	 */
+	private static void markClean(Map<String, BatchGroup> groups, List<TransferableObject> toList) {
+		for (BatchGroup group : groups.values()) {
+			for (Integer position : group.positions) {
+				toList.get(position).markClean();
+			}
+		}
+	}
+	
+	/*
+	 * Sends the rows of a group in batches of batchSize rows, and copies the update counts
+	 * at the position of each TO.
+	 */
+	private void executeBatchGroup(DatabaseConnection conn, BatchGroup group, List<TransferableObject> toList, int[] counts) throws SQLException {
+		PreparedStatement ps;
+		if (group.generatedColumns == null) {
+			ps = conn.prepareCachedStatement(group.sql);
+		} else {
+			ps = conn.dbConnection.prepareStatement(group.sql, Statement.RETURN_GENERATED_KEYS);
+		}
+		
+		try {
+			int[] boundColumns = group.boundColumns;
+			ColumnInfo<Object>[] columns = group.template.columns;
+			TOColumnMetaDataIF<Object>[] metaData = group.template.metaData;
+			
+			int start = 0;
+			while (start < group.positions.size()) {
+				int end = Math.min(start + batchSize, group.positions.size());
+				
+				for (int row = start; row < end; row++) {
+					TransferableObject to = toList.get(group.positions.get(row));
+					for (int i = 0; i < boundColumns.length; i++) {
+						int index = boundColumns[i];
+						metaData[index].bind(ps, i + 1, to.get(columns[index]));
+					}
+					ps.addBatch();
+				}
+				
+				int[] batchCounts = ps.executeBatch();
+				for (int row = start; row < end; row++) {
+					counts[group.positions.get(row)] = batchCounts[row - start];
+					invalidateCaches(toList.get(group.positions.get(row)));
+				}
+				
+				if (group.generatedColumns != null) {
+					readGeneratedKeys(ps, group, toList, start, end);
+				}
+				
+				start = end;
+			}
+		} catch (SQLException e) {
+			System.err.println("Failed to execute the following batch: " + group.sql);
+			if (group.generatedColumns == null) {
+				conn.evictCachedStatement(group.sql);
+			}
+			throw e;
+		} finally {
+			if (group.generatedColumns != null) {
+				ps.close();
+			} else {
+				conn.releaseCachedStatement(ps);
+			}
+		}
+	}
+	
+	/*
+	 * The generated keys are only set if the driver returned one row per inserted
+	 * row, otherwise they can't be matched with their TO and are ignored like in insert().
+	 * They are matched with the columns left to DEFAULT by name; a single key without the
+	 * name of a column (MySQL, SQLite) is the value of the auto-number column.
+	 */
+	private static void readGeneratedKeys(PreparedStatement ps, BatchGroup group, List<TransferableObject> toList, int start, int end) throws SQLException {
+		List<Object[]> keys = new ArrayList<Object[]>(end - start);
+		ResultSet rs = ps.getGeneratedKeys();
+		if (rs == null) {
+			return;
+		}
+		
+		int[] keyColumns;
+		try {
+			keyColumns = getGeneratedKeyColumns(rs.getMetaData(), group);
+			if (keyColumns == null) {
+				return;
+			}
+			
+			int columnCount = keyColumns.length;
+			while (rs.next()) {
+				Object[] key = new Object[columnCount];
+				for (int i = 0; i < columnCount; i++) {
+					key[i] = rs.getObject(i + 1);
+				}
+				keys.add(key);
+			}
+		} finally {
+			closeResultSet(rs);
+		}
+		
+		if (keys.size() != end - start) {
+			return;
+		}
+		
+		for (int row = start; row < end; row++) {
+			TransferableObject to = toList.get(group.positions.get(row));
+			Object[] key = keys.get(row - start);
+			for (int i = 0; i < key.length; i++) {
+				if (keyColumns[i] >= 0) {
+					to.set(group.template.columns[keyColumns[i]], key[i]);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * The index in the template of the column of each generated key, -1 for a key that
+	 * isn't one of the columns left to DEFAULT. Returns null if no key has a column.
+	 */
+	private static int[] getGeneratedKeyColumns(ResultSetMetaData rsMetaData, BatchGroup group) throws SQLException {
+		ColumnInfo<Object>[] columns = group.template.columns;
+		int[] keyColumns = new int[rsMetaData.getColumnCount()];
+		boolean found = false;
+		for (int i = 0; i < keyColumns.length; i++) {
+			keyColumns[i] = -1;
+			String label = rsMetaData.getColumnLabel(i + 1);
+			for (int index : group.generatedColumns) {
+				if (columns[index].toString().equalsIgnoreCase(label)) {
+					keyColumns[i] = index;
+					found = true;
+					break;
+				}
+			}
+		}
+		
+		if (!found && keyColumns.length == 1) {
+			for (int index : group.generatedColumns) {
+				if (group.template.metaData[index].isAutoNumber()) {
+					if (found) {
+						// Many auto-number columns, the key can't be matched
+						return null;
+					}
+					keyColumns[0] = index;
+					found = true;
+				}
+			}
+		}
+		return (found ? keyColumns : null);
+	}
+	
+	@Override
+	public void deleteTOSemiQuiet(TransferableObject to) throws NullPointerException, SQLException {
+		try {
+			deleteTO(to);
+		} catch (TONotFoundException e) {
+			// Do nothing of the TO is not found
+		}
+	}
+	
+	@Override
+	public <T extends TransferableObject> void synchronizeTO(Collection<T> beforeTO, Collection<T> afterTO) throws SQLException {
+		synchronizeTO(beforeTO, afterTO, false);
+	}
+	
+	@Override
+	public <T extends TransferableObject> TOChangeSet<T> synchronizeTO(Collection<T> beforeTO, Collection<T> afterTO, boolean dryRun) throws SQLException {
+		TOChangeSet<T> changeSet = TOChangeSet.compute(beforeTO, afterTO);
+		if (dryRun || changeSet.isEmpty()) {
+			return changeSet;
+		}
+		
+		boolean alreadyBound = (currentConnection() != null);
+		bindConnection();
+		try {
+			DatabaseConnection conn = currentConnection();
+			
+			// If the caller did not start a transaction, the changes are applied in our own
+			boolean ownTransaction = conn.dbConnection.getAutoCommit();
+			boolean readOnly = conn.isReadOnly();
+			if (ownTransaction) {
+				if (readOnly && connectionMode == ConnectionModeEnum.READ_WRITE_MANUAL_COMMIT) {
+					conn.setReadOnly(false);
+				}
+				conn.setAutoCommit(false);
+			}
+			
+			try {
+				//Remove missing TO
+				int[] counts = deleteAll(changeSet.getTOsToDelete());
+				for (int i = 0; i < counts.length; i++) {
+					if (counts[i] == 0) {
+						throw new TONotFoundException("Failed to delete the following TO: " + changeSet.getTOsToDelete().get(i));
+					}
+				}
+				
+				//Add TO
+				insertAll(changeSet.getTOsToInsert());
+				
+				//Update if necessary
+				updateAll(changeSet.getTOsToUpdate(), changeSet.getOriginalTOsToUpdate());
+				
+				if (ownTransaction) {
+					conn.commit();
+				}
+			} catch (SQLException e) {
+				if (ownTransaction) {
+					try {
+						conn.dbConnection.rollback();
+					} catch (SQLException rollbackException) {
+						rollbackException.printStackTrace();
+					}
+				}
+				throw e;
+			} finally {
+				if (ownTransaction) {
+					try {
+						conn.setAutoCommit(true);
+						conn.setReadOnly(readOnly);
+					} finally {
+						invalidateTransactionWrites(conn);
+					}
+				}
+			}
+		} finally {
+			if (!alreadyBound) {
+				unbindConnection();
+			}
+		}
+		
+		return changeSet;
+	}
+	
+	@Override
+	public <T extends TransferableObject> T selectTO(Class<T> clazz, Object... keys) throws SQLException {
+		return selectTO(TOUtil.createInstance(clazz, keys));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends TransferableObject> T selectTO(T to) throws SQLException {
+		// Variables we will require
+		TransferableObjectStructureIF structure = to.getTOStructure();
+		TOSQLTemplate template = TOSQLTemplate.get(structure);
+		
+		// A transaction must see its own writes, which are only invalidated in the cache
+		boolean cacheUsed = (toCache != null && !isInTransaction());
+		if (cacheUsed) {
+			T cached = toCache.get(to);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		
+		DatabaseConnection conn = acquireConnection();
+		try {
+			// We prepare the query and set the variables
+			PreparedStatement ps = conn.prepareCachedStatement(template.selectByPrimaryKeySQL);
+			try {
+				for (int i = 0; i < template.primaryKeySize; i++) {
+					template.metaData[i].bind(ps, i + 1, to.get(template.columns[i]));
+				}
+				
+				// We execute the query
+				ResultSet rs = ps.executeQuery();
+				try {
+					T selected = (T) ResultSetTranslator.getDistinctTOFromResultSet(rs, structure.getRepresentedTOClass());
+					if (cacheUsed && selected != null) {
+						toCache.put(selected);
+					}
+					return selected;
+				} finally {
+					closeResultSet(rs);
+				}
+			} catch (SQLException e) {
+				conn.evictCachedStatement(template.selectByPrimaryKeySQL);
+				throw e;
+			} finally {
+				conn.releaseCachedStatement(ps);
+			}
+		} finally {
+			releaseConnection(conn);
+		}
+	}
+	
+	/**
+	 * Selects a TO by primary key, reading only some of its columns along with the
+	 * primary key. The other columns are not loaded (see {@link TransferableObject#isLoaded(ColumnInfo)}),
+	 * and an update of the TO only writes the columns set afterwards. The TO is not
+	 * added to the TO cache, but a cached TO is returned if there is one.
+	 * @param to A TO holding the primary key to look for
+	 * @param columns The columns to read, all of them if none is given
+	 * @return The TO, null if there is none
+	 * @throws SQLException
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends TransferableObject> T selectTO(T to, ColumnInfo<?>... columns) throws SQLException {
+		if (columns.length == 0) {
+			return selectTO(to);
+		}
+		
+		TransferableObjectStructureIF structure = to.getTOStructure();
+		TOSQLTemplate template = TOSQLTemplate.get(structure);
+		String sql = template.getSelectByPrimaryKeySQL(columns);
+		
+		// A cached TO holds all the columns
+		if (toCache != null && !isInTransaction()) {
+			T cached = toCache.get(to);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		
+		DatabaseConnection conn = acquireConnection();
+		try {
+			PreparedStatement ps = conn.prepareCachedStatement(sql);
+			try {
+				for (int i = 0; i < template.primaryKeySize; i++) {
+					template.metaData[i].bind(ps, i + 1, to.get(template.columns[i]));
+				}
+				
+				ResultSet rs = ps.executeQuery();
+				try {
+					return (T) ResultSetTranslator.getDistinctTOFromResultSet(rs, structure.getRepresentedTOClass());
+				} finally {
+					closeResultSet(rs);
+				}
+			} catch (SQLException e) {
+				conn.evictCachedStatement(sql);
+				throw e;
+			} finally {
+				conn.releaseCachedStatement(ps);
+			}
+		} finally {
+			releaseConnection(conn);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public <TO extends TransferableObject, V> List<TO> selectTOListByKeys(TableInfo table, Collection<V> ids) {
+		TransferableObjectStructureIF structure = TOStructureRegistry.getStructure(table.getTransferableObjectClass());
+		return selectTOListByIDs(table, (ColumnInfo<V>)structure.getColumns()[0], ids);
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public <TO extends TransferableObject, V> List<TO> selectTOListByIDs(TableInfo table, ColumnInfo<V> column, Collection<V> ids) {
+		if (ids == null || ids.isEmpty()) {
+			return new ArrayList<TO>();
+		}
+		
+		List<TOColumnFilter<?> > filters = new ArrayList<TOColumnFilter<?> >(1);
+		filters.add(new TOColumnFilter<V>(column, QueryMathOperatorStruct.in, ids.toArray()));
+		
+		try {
+			return selectTOList((Class<TO>)table.getTransferableObjectClass(), filters);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Select a list of TOs filtering by many different columns (Not necessarily the primary key).
+	 * To select a TO by it's primary key, please use {@link AbstractDatabaseDAO#selectTO(TransferableObject)} instead.
+	 * If some fields in the TO are initialized, they will be used in the where clause with the {@link QueryMathOperatorStruct#eq} operator
+	 * @param <TO>	The geeric type of the selecting TO
+	 * @param <V>	The generic type of
+	 * @param to	A to with initialized members to be filtered by the query
+	 * @return The list of matching TOs
+	 * @throws SQLException
+	 */
+	public <TO extends TransferableObject> List<TO> selectTOList(TO to) throws SQLException {
+		return selectTOList(to, null) ;
+	}
+	
+	/**
+	 * Select a list of TOs filtering by many different columns (Not necessarily the primary key).
+	 * To select a TO by it's primary key, please use {@link AbstractDatabaseDAO#selectTO(TransferableObject)} instead.
+	 * If some fields in the TO are initialized, they will be used in the where clause with the {@link QueryMathOperatorStruct#eq} operator
+	 * Custom filters can be passed through the {@code filter} parameter
+	 * @param <TO>	The generic type of the selecting TO
+	 * @param to	A to with initialized members to be filtered by the query
+	 * @param filters	A list of filters that are not representable with the {@link QueryMathOperatorStruct#eq} operator
+	 * @return The list of matching TOs
+	 * @throws SQLException
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <TO extends TransferableObject> List<TO> selectTOList(TO to, List<TOColumnFilter<?> > filters) throws SQLException {
+		if (to == null)	{
+			return new ArrayList<TO>() ;
+		}
+		
+		List<TOColumnFilter<?> > workFilters = new ArrayList<TOColumnFilter<?> >() ;
+		
+		Object valueToFilter = null ;
+		
+		for (ColumnInfo<?> column : to.getTOStructure().getColumns())	{
+			valueToFilter = to.get(column) ;
+			
+			if (valueToFilter != null){
+				workFilters.add(new TOColumnFilter(column, QueryMathOperatorStruct.eq, valueToFilter)) ;
+			}
+		}
+		
+		if (filters != null){
+			workFilters.addAll(filters) ;
+		}
+		
+		return (List<TO>) selectTOList(to.getClass(), workFilters) ;
+	}
+	
+	
+	public <TO extends TransferableObject> List<TO> selectTOList(Class<TO> clazz) throws SQLException {
+		return selectTOList(clazz, null) ;
+	}
+	
+	
+	/**
+	 * Select a list of TOs filtering by many different columns (Not necessarily the primary key).
+	 * To select a TO by it's primary key, please use {@link AbstractDatabaseDAO#selectTO(TransferableObject)} instead.
+	 * If some fields in the TO are initialised, they will be used in the where clause with the {@link QueryMathOperatorStruct#eq} operator
+	 * Custom filters can be passed through the {@code filter} parameter
+	 * @param <TO>	The generic type of the selecting TO
+	 * @param clazz		The class of the TO type we look for
+	 * <p>If the filters need more parameters than the database accepts, the largest <i>in</i>
+	 * filter is split and one request is sent per part of its values (see
+	 * {@link #setInListExecutor(ExecutorService)}); the results are merged in order.</p>
+	 * <p>The lazy columns of the TOs are not read (see {@link LazyColumnLoader}), unless
+	 * {@link #selectTOList(Class, List, boolean)} is used.</p>
+	 * @param filters	A list of filters that are not representable with the {@link QueryMathOperatorStruct#eq} operator
+	 * @return The list of matching TOs
+	 * @throws SQLException
+	 */
+	public <TO extends TransferableObject> List<TO> selectTOList(Class<TO> clazz, List<TOColumnFilter<?> > filters) throws SQLException {
+		// As with the TO cache, a transaction must see its own writes
+		TOQueryCache.Key cacheKey = null;
+		long cacheGeneration = 0;
+		if (queryCache != null && !isInTransaction()) {
+			cacheKey = queryCache.getKey(clazz, filters);
+			if (cacheKey != null) {
+				List<TO> cached = queryCache.get(cacheKey);
+				if (cached != null) {
+					// The cached copies don't keep the loader of the list they were copied from
+					if (TOStructureRegistry.getEagerColumns(clazz) != null) {
+						attachLazyColumnLoader(clazz, cached);
+					}
+					return cached;
+				}
+				cacheGeneration = queryCache.getGeneration(cacheKey);
+			}
+		}
+		
+		List<TO> tos = selectTOListFromDatabase(clazz, filters);
+		if (cacheKey != null) {
+			queryCache.put(cacheKey, cacheGeneration, tos);
+		}
+		return tos;
+	}
+	
+	/**
+	 * Same as {@link #selectTOList(Class, List)}, but the lazy columns of the TOs are
+	 * read along with the other columns when eager is true, i.e. when the list is
+	 * exported. The query cache is not used then.
+	 * @param clazz		The class of the TO type we look for
+	 * @param filters	A list of filters, may be null
+	 * @param eager		true to read the lazy columns as well
+	 * @return The list of matching TOs
+	 * @throws SQLException
+	 */
+	public <TO extends TransferableObject> List<TO> selectTOList(Class<TO> clazz, List<TOColumnFilter<?> > filters, boolean eager) throws SQLException {
+		if (!eager || TOStructureRegistry.getEagerColumns(clazz) == null) {
+			return selectTOList(clazz, filters);
+		}
+		return selectTOListFromDatabase(clazz, filters, true);
+	}
+	
+	/*
+	 * selectTOList() without the query cache, i.e. for a ReferenceTable which knows the table changed.
+	 */
+	<TO extends TransferableObject> List<TO> selectTOListFromDatabase(Class<TO> clazz, List<TOColumnFilter<?> > filters) throws SQLException {
+		return selectTOListFromDatabase(clazz, filters, false);
+	}
+	
+	private <TO extends TransferableObject> List<TO> selectTOListFromDatabase(Class<TO> clazz, List<TOColumnFilter<?> > filters, boolean eager) throws SQLException {
+		ColumnInfo<?>[] eagerColumns = (eager ? null : TOStructureRegistry.getEagerColumns(clazz));
+		String selectList = (eagerColumns == null ? "*" : TOSQLTemplate.get(TOStructureRegistry.getStructure(clazz)).getSelectList(eagerColumns));
+		
+		DatabaseConnection conn = acquireConnection();
+		try {
+			SQLDialect dialect = conn.getSQLDialect();
+			List<List<TOColumnFilter<?> > > chunks = splitInListFilter(dialect, filters);
+			List<TO> tos;
+			if (chunks == null) {
+				tos = executeSelectTOList(conn, dialect, clazz, filters, selectList, null, 0, 0);
+				
+			} else if (inListExecutor != null && connectionPool != null && boundConnection.get() == null) {
+				// Every chunk borrows its own connection
+				releaseConnection(conn);
+				conn = null;
+				tos = executeSelectTOListInParallel(clazz, chunks, selectList);
+				
+			} else {
+				tos = new ArrayList<TO>();
+				for (List<TOColumnFilter<?> > chunk : chunks) {
+					tos.addAll(executeSelectTOList(conn, dialect, clazz, chunk, selectList, null, 0, 0));
+				}
+			}
+			
+			if (eagerColumns != null) {
+				attachLazyColumnLoader(clazz, tos);
+			}
+			return tos;
+			
+		} finally {
+			releaseConnection(conn);
+		}
+	}
+	
+	/*
+	 * Reads the lazy columns of the TOs of a list by batches, on the first get() of one of them.
+	 */
+	private void attachLazyColumnLoader(Class<? extends TransferableObject> clazz, List<? extends TransferableObject> tos) {
+		if (tos.isEmpty()) {
+			return;
+		}
+		
+		TOSQLTemplate template = TOSQLTemplate.get(TOStructureRegistry.getStructure(clazz));
+		new DAOLazyColumnLoader(clazz, template, lazyBatchSize).attach(tos);
+	}
+	
+	private final class DAOLazyColumnLoader extends LazyColumnLoader {
+		private final Class<? extends TransferableObject> clazz;
+		private final TOSQLTemplate template;
+		
+		private DAOLazyColumnLoader(Class<? extends TransferableObject> clazz, TOSQLTemplate template, int batchSize) {
+			super(clazz, batchSize);
+			this.clazz = clazz;
+			this.template = template;
+		}
+		
+		@Override
+		protected List<? extends TransferableObject> fetch(List<TransferableObject> tos, ColumnInfo<?>[] columns) throws SQLException {
+			DatabaseConnection conn = acquireConnection();
+			try {
+				// One request per part of the batch that fits in the parameters of the database
+				int maxBatchSize = Math.max(1, conn.getSQLDialect().getMaxParameters() / template.primaryKeySize);
+				List<TransferableObject> rows = new ArrayList<TransferableObject>(tos.size());
+				for (int start = 0; start < tos.size(); start += maxBatchSize) {
+					List<TransferableObject> part = tos.subList(start, Math.min(tos.size(), start + maxBatchSize));
+					String sql = template.getSelectByPrimaryKeysSQL(columns, part.size());
+					PreparedStatement ps = conn.prepareCachedStatement(sql);
+					try {
+						int parameterIndex = 1;
+						for (TransferableObject to : part) {
+							for (int i = 0; i < template.primaryKeySize; i++) {
+								template.metaData[i].bind(ps, parameterIndex++, to.get(template.columns[i]));
+							}
+						}
+						
+						ResultSet rs = ps.executeQuery();
+						try {
+							rows.addAll(ResultSetTranslator.getTOListFromRS(rs, clazz));
+						} finally {
+							closeResultSet(rs);
+						}
+					} catch (SQLException e) {
+						conn.evictCachedStatement(sql);
+						throw e;
+					} finally {
+						conn.releaseCachedStatement(ps);
+					}
+				}
+				return rows;
+			} finally {
+				releaseConnection(conn);
+			}
+		}
+	}
+	
+	/**
+	 * Same as {@link #selectTOList(Class, List)}, but only some columns are read along with
+	 * the primary key, i.e. for a list that only shows a name. The other columns are not
+	 * loaded (see {@link TransferableObject#isLoaded(ColumnInfo)}), and an update of the
+	 * TOs only writes the columns set afterwards. The caches are not used.
+	 * @param clazz		The class of the TO type we look for
+	 * @param filters	A list of filters, may be null
+	 * @param columns	The columns to read, all of them if none is given
+	 * @return The list of matching TOs
+	 * @throws SQLException
+	 */
+	public <TO extends TransferableObject> List<TO> selectTOList(Class<TO> clazz, List<TOColumnFilter<?> > filters, ColumnInfo<?>... columns) throws SQLException {
+		if (columns.length == 0) {
+			return selectTOList(clazz, filters);
+		}
+		return selectTOList(clazz, filters, null, 0, 0, columns);
+	}
+	
+	/**
+	 * Same as {@link #selectTOList(Class, List)}, but the rows are sorted and limited by the
+	 * database, so only the rows asked for are read (i.e. the 50 latest ones). The query
+	 * cache is not used.
+	 * <p>If the largest <i>in</i> filter has to be split, each part is sorted and limited
+	 * to offset + limit rows, and the parts are merged and limited in Java, where the
+	 * strings are compared with {@link String#compareTo(String)} rather than the collation
+	 * of the database.</p>
+	 * @param clazz		The class of the TO type we look for
+	 * @param filters	A list of filters, may be null
+	 * @param orderBy	The columns to sort by, may be null
+	 * @param limit		The maximum number of TOs, 0 for no limit
+	 * @param offset	The number of TOs to skip first
+	 * @param columns	The columns to read along with the primary key (see {@link #selectTOList(Class, List, ColumnInfo...)}),
+	 * all of them if none is given, except the lazy ones which are read on their first get()
+	 * @return The list of matching TOs
+	 * @throws SQLException
+	 */
+	public <TO extends TransferableObject> List<TO> selectTOList(Class<TO> clazz, List<TOColumnFilter<?> > filters,
+			List<TOColumnOrder<?> > orderBy, int limit, int offset, ColumnInfo<?>... columns) throws SQLException {
+		if (limit < 0 || offset < 0) {
+			throw new IllegalArgumentException("The limit and the offset can't be negative: " + limit + ", " + offset);
+		}
+		ColumnInfo<?>[] eagerColumns = (columns.length == 0 ? TOStructureRegistry.getEagerColumns(clazz) : columns);
+		String selectList = (eagerColumns == null ? "*" : TOSQLTemplate.get(TOStructureRegistry.getStructure(clazz)).getSelectList(eagerColumns));
+		boolean lazy = (columns.length == 0 && eagerColumns != null);
+		
+		DatabaseConnection conn = acquireConnection();
+		try {
+			SQLDialect dialect = conn.getSQLDialect();
+			List<List<TOColumnFilter<?> > > chunks = splitInListFilter(dialect, filters);
+			List<TO> tos;
+			if (chunks == null) {
+				tos = executeSelectTOList(conn, dialect, clazz, filters, selectList, orderBy, limit, offset);
+				
+			} else {
+				List<TO> merged = new ArrayList<TO>();
+				for (List<TOColumnFilter<?> > chunk : chunks) {
+					merged.addAll(executeSelectTOList(conn, dialect, clazz, chunk, selectList, orderBy, limit == 0 ? 0 : offset + limit, 0));
+				}
+				if (orderBy != null && !orderBy.isEmpty()) {
+					Collections.sort(merged, new TOColumnOrderComparator(orderBy));
+				}
+				
+				int from = Math.min(offset, merged.size());
+				int to = (limit == 0 ? merged.size() : Math.min(merged.size(), from + limit));
+				tos = new ArrayList<TO>(merged.subList(from, to));
+			}
+			
+			if (lazy) {
+				attachLazyColumnLoader(clazz, tos);
+			}
+			return tos;
+			
+		} finally {
+			releaseConnection(conn);
+		}
+	}
+	
+	/*
+	 * Sorts TOs as the database would, except for the collation of the strings.
+	 */
+	private static final class TOColumnOrderComparator implements Comparator<TransferableObject> {
+		private final List<TOColumnOrder<?> > orderBy;
+		
+		private TOColumnOrderComparator(List<TOColumnOrder<?> > orderBy) {
+			this.orderBy = orderBy;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public int compare(TransferableObject to1, TransferableObject to2) {
+			for (TOColumnOrder<?> order : orderBy) {
+				Object value1 = to1.get(order.getColumn());
+				Object value2 = to2.get(order.getColumn());
+				
+				int result;
+				if (value1 == null || value2 == null) {
+					result = (value1 == value2 ? 0 : (value1 == null) == order.isNullsFirst() ? -1 : 1);
+				} else {
+					result = ((Comparable<Object>) value1).compareTo(value2);
+					if (order.getDirection() == QueryOrderDirection.DESC) {
+						result = -result;
+					}
+				}
+				
+				if (result != 0) {
+					return result;
+				}
+			}
+			return 0;
+		}
+	}
+	
+	private <TO extends TransferableObject> List<TO> executeSelectTOList(DatabaseConnection conn, SQLDialect dialect, Class<TO> clazz, List<TOColumnFilter<?> > filters,
+			String selectList, List<TOColumnOrder<?> > orderBy, int limit, int offset) throws SQLException {
+		StringBuilder sb = new StringBuilder(buildSelectTOListQuery(dialect, clazz, filters, selectList)) ;
+		if (orderBy != null && !orderBy.isEmpty())	{
+			sb.append(" ORDER BY ") ;
+			for (int i = 0; i < orderBy.size(); i++)	{
+				if (i > 0){
+					sb.append(", ") ;
+				}
+				TOColumnOrder<?> order = orderBy.get(i) ;
+				dialect.appendOrderBy(sb, order.getColumn().toString(), order.getDirection() == QueryOrderDirection.DESC, order.isNullsFirst()) ;
+			}
+		}
+		
+		String query = limit(dialect, sb.toString(), limit, offset) ;
+		PreparedStatement ps = conn.prepareCachedStatement(query) ;
+		try {
+			setFilterValues(conn, dialect, ps, filters) ;
+			
+			ResultSet rs = ps.executeQuery() ;
+			try {
+				List<TO> tos = ResultSetTranslator.getTOListFromRS(rs, clazz) ;
+				cacheTOs(conn, tos) ;
+				return tos ;
+			} finally {
+				closeResultSet(rs) ;
+			}
+		} catch (SQLException e) {
+			conn.evictCachedStatement(query);
+			throw e;
+		} finally {
+			conn.releaseCachedStatement(ps);
+		}
+	}
+	
+	/*
+	 * The TOs read in a transaction might be rolled back, they are not cached.
+	 */
+	private void cacheTOs(DatabaseConnection conn, List<? extends TransferableObject> tos) throws SQLException {
+		if (toCache == null || tos.isEmpty() || !conn.dbConnection.getAutoCommit() || !tos.get(0).isFullyLoaded()) {
+			return;
+		}
+		
+		for (TransferableObject to : tos) {
+			toCache.put(to);
+		}
+	}
+	
+	private void invalidateCaches(TransferableObject to) throws SQLException {
+		if (toCache != null) {
+			toCache.invalidate(to);
+		}
+		if (queryCache != null) {
+			queryCache.invalidate(to.getTOStructure().getRepresentedTable());
+		}
+		
+		if ((toCache != null || queryCache != null) && isInTransaction()) {
+			DatabaseConnection conn = currentConnection();
+			List<TransferableObject> writes = transactionWrites.get(conn);
+			if (writes == null) {
+				writes = Collections.synchronizedList(new ArrayList<TransferableObject>());
+				List<TransferableObject> previous = transactionWrites.putIfAbsent(conn, writes);
+				if (previous != null) {
+					writes = previous;
+				}
+			}
+			writes.add(to);
+		}
+	}
+	
+	/*
+	 * Removes the TOs written by the transaction of the connection from the caches, once
+	 * it is committed or rolled back.
+	 */
+	private void invalidateTransactionWrites(DatabaseConnection conn) {
+		List<TransferableObject> writes = transactionWrites.remove(conn);
+		if (writes == null) {
+			return;
+		}
+		
+		Set<TableInfo> tables = new LinkedHashSet<TableInfo>();
+		synchronized (writes) {
+			for (TransferableObject to : writes) {
+				if (toCache != null) {
+					toCache.invalidate(to);
+				}
+				tables.add(to.getTOStructure().getRepresentedTable());
+			}
+		}
+		
+		if (queryCache != null) {
+			// Also moves the generation of the tables on, so a result read before the commit isn't cached
+			for (TableInfo table : tables) {
+				queryCache.invalidate(table);
+			}
+		}
+	}
+	
+	/*
+	 * Whether the current thread is in a transaction, whose reads must not go through the caches.
+	 */
+	private boolean isInTransaction() throws SQLException {
+		DatabaseConnection conn = currentConnection();
+		return conn != null && !conn.dbConnection.getAutoCommit();
+	}
+	
+	private <TO extends TransferableObject> List<TO> executeSelectTOListInParallel(final Class<TO> clazz, List<List<TOColumnFilter<?> > > chunks, final String selectList) throws SQLException {
+		List<Future<List<TO>>> futures = new ArrayList<Future<List<TO>>>(chunks.size());
+		try {
+			for (final List<TOColumnFilter<?> > chunk : chunks) {
+				futures.add(inListExecutor.submit(new Callable<List<TO>>() {
+					@Override
+					public List<TO> call() throws SQLException {
+						DatabaseConnection conn = acquireConnection();
+						try {
+							return executeSelectTOList(conn, conn.getSQLDialect(), clazz, chunk, selectList, null, 0, 0);
+						} finally {
+							releaseConnection(conn);
+						}
+					}
+				}));
+			}
+			
+			List<TO> tos = new ArrayList<TO>();
+			for (Future<List<TO>> future : futures) {
+				tos.addAll(future.get());
+			}
+			return tos;
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while selecting " + clazz.getSimpleName() + " by chunks.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException) e.getCause();
+			}
+			throw new SQLException("Failed to select " + clazz.getSimpleName() + " by chunks.", e.getCause());
+		} finally {
+			// Does nothing to the chunks already done
+			for (Future<List<TO>> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+	
+	/*
+	 * Returns null if the filters fit in a single request. Otherwise, splits the values
+	 * of the largest 'in' filter so that each copy of the filters fits, or throws if it can't.
+	 * The values are deduplicated first, so the requests never return the same row twice.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<List<TOColumnFilter<?> > > splitInListFilter(SQLDialect dialect, List<TOColumnFilter<?> > filters) throws SQLException {
+		if (filters == null) {
+			return null;
+		}
+		
+		int maxParameters = dialect.getMaxParameters();
+		int parameterCount = 0;
+		int largestIndex = -1;
+		int largestCount = 0;
+		for (int i = 0; i < filters.size(); i++) {
+			TOColumnFilter<?> filter = filters.get(i);
+			int count = getParameterCount(dialect, filter);
+			parameterCount += count;
+			
+			if (filter.getOperator() == QueryMathOperatorStruct.in && count > largestCount) {
+				largestIndex = i;
+				largestCount = count;
+			}
+		}
+		
+		if (parameterCount <= maxParameters) {
+			return null;
+		} else if (largestIndex < 0) {
+			throw new SQLException("Too many parameters: " + parameterCount + ", the database accepts " + maxParameters + ".");
+		}
+		
+		int available = maxParameters - (parameterCount - largestCount);
+		boolean padded = !isArrayParameter(dialect, filters.get(largestIndex)) && inListStrategy != InListStrategy.EXPANDED;
+		int chunkSize = available;
+		if (padded && available < InListStrategy.PADDING_BUCKETS[InListStrategy.PADDING_BUCKETS.length - 1]) {
+			// The largest bucket that fits, so that every chunk has the same shape
+			chunkSize = 0;
+			for (int bucket : InListStrategy.PADDING_BUCKETS) {
+				if (bucket <= available) {
+					chunkSize = bucket;
+				}
+			}
+		}
+		
+		if (chunkSize <= 0) {
+			throw new SQLException("Too many parameters: " + parameterCount + ", the database accepts " + maxParameters + ".");
+		}
+		
+		TOColumnFilter<?> largest = filters.get(largestIndex);
+		Object[] values = new LinkedHashSet<Object>(Arrays.asList((Object[]) largest.getValue())).toArray();
+		
+		List<List<TOColumnFilter<?> > > chunks = new ArrayList<List<TOColumnFilter<?> > >();
+		for (int start = 0; start < values.length; start += chunkSize) {
+			int end = Math.min(values.length, start + chunkSize);
+			
+			Object[] chunkValues;
+			if (padded && end - start < chunkSize) {
+				// The last chunk is padded as well
+				chunkValues = Arrays.copyOfRange(values, start, start + chunkSize);
+				Arrays.fill(chunkValues, end - start, chunkSize, values[end - 1]);
+			} else {
+				chunkValues = Arrays.copyOfRange(values, start, end);
+			}
+			
+			List<TOColumnFilter<?> > chunk = new ArrayList<TOColumnFilter<?> >(filters);
+			chunk.set(largestIndex, new TOColumnFilter((ColumnInfo) largest.getColumn(), QueryMathOperatorStruct.in, chunkValues));
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+	
+	/**
+	 * Selects a page of TOs using keyset pagination: instead of skipping the previous
+	 * rows, the request seeks the rows that come after the last key of the previous page,
+	 * so every page costs the same as the first one.
+	 * <p>The rows are sorted in ascending order by the ordering columns, followed by the
+	 * primary key columns that are not already part of them, so the order is unique.
+	 * The key of a page is made of the values of all those columns. The nulls of a column
+	 * that allows them come first.</p>
+	 * <p>As with {@link #selectTOList(Class, List)}, the lazy columns of the TOs are read
+	 * on their first get() (see {@link LazyColumnLoader}).</p>
+	 * @param clazz		The class of the TO type we look for
+	 * @param filters	A list of filters, may be null
+	 * @param orderByColumns	The columns to sort by, null to sort by primary key
+	 * @param afterKey	The {@link TOPage#getNextKey()} of the previous page, null for the first page
+	 * @param pageSize	The maximum number of TOs in the page
+	 * @return The page
+	 * @throws SQLException
+	 */
+	@SuppressWarnings("unchecked")
+	public <TO extends TransferableObject> TOPage<TO> selectTOPage(Class<TO> clazz, List<TOColumnFilter<?> > filters,
+			ColumnInfo<?>[] orderByColumns, Object[] afterKey, int pageSize) throws SQLException {
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("The page size must be positive: " + pageSize);
+		}
+		
+		// The ordering columns, completed by the primary key to make them unique
+		TransferableObjectStructureIF structure = TOStructureRegistry.getStructure(clazz);
+		List<ColumnInfo<?>> keyColumns = new ArrayList<ColumnInfo<?>>();
+		if (orderByColumns != null) {
+			keyColumns.addAll(Arrays.asList(orderByColumns));
+		}
+		for (int i = 0; i < structure.getPrimaryKeySize(); i++) {
+			if (!keyColumns.contains(structure.getColumns()[i])) {
+				keyColumns.add(structure.getColumns()[i]);
+			}
+		}
+		
+		if (afterKey != null && afterKey.length != keyColumns.size()) {
+			throw new IllegalArgumentException("The key should have " + keyColumns.size() + " values, not " + afterKey.length);
+		}
+		
+		String[] keyColumnNames = new String[keyColumns.size()];
+		boolean[] nullableKeyColumns = new boolean[keyColumns.size()];
+		boolean nullable = false;
+		List<ColumnInfo<?>> primaryKeyColumns = Arrays.asList(TOStructureRegistry.getPrimaryKeyColumns(clazz));
+		for (int i = 0; i < keyColumnNames.length; i++) {
+			keyColumnNames[i] = keyColumns.get(i).toString();
+			nullableKeyColumns[i] = (!primaryKeyColumns.contains(keyColumns.get(i))
+					&& !Boolean.FALSE.equals(keyColumns.get(i).getMetaData().isNullAllowed()));
+			nullable |= nullableKeyColumns[i];
+		}
+		
+		// The ordering columns are read along with the eager ones, for the key of the next page
+		ColumnInfo<?>[] eagerColumns = TOStructureRegistry.getEagerColumns(clazz);
+		String selectList = "*";
+		if (eagerColumns != null) {
+			Set<ColumnInfo<?>> selectedColumns = new LinkedHashSet<ColumnInfo<?>>(Arrays.asList(eagerColumns));
+			selectedColumns.addAll(keyColumns);
+			selectList = TOSQLTemplate.get(structure).getSelectList(selectedColumns.toArray(new ColumnInfo<?>[selectedColumns.size()]));
+		}
+		
+		DatabaseConnection conn = acquireConnection();
+		try {
+			SQLDialect dialect = conn.getSQLDialect();
 			
-			PreparedStatement ps = dbAccess.prepareStatement(sb.toString());
+			StringBuilder sb = new StringBuilder(buildSelectTOListQuery(dialect, clazz, filters, selectList));
+			int[] keyIndexes = null;
+			if (afterKey != null) {
+				sb.append(filters != null && filters.size() > 0 ? " AND " : " WHERE ");
+				if (nullable) {
+					boolean[] nullKeys = new boolean[afterKey.length];
+					for (int i = 0; i < nullKeys.length; i++) {
+						nullKeys[i] = (afterKey[i] == null);
+					}
+					keyIndexes = dialect.appendKeysetCondition(sb, keyColumnNames, nullKeys);
+				} else {
+					keyIndexes = dialect.appendKeysetCondition(sb, keyColumnNames);
+				}
+			}
 			
-			int counter = 1;
-			Iterator<V> iterator = ids.iterator();
-			while (iterator.hasNext()) {
-				ps.setObject(counter++, iterator.next());
+			sb.append(" ORDER BY ");
+			for (int i = 0; i < keyColumnNames.length; i++) {
+				if (i != 0) {
+					sb.append(",");
+				}
+				if (nullableKeyColumns[i]) {
+					dialect.appendOrderBy(sb, keyColumnNames[i], false, true);
+				} else {
+					sb.append(keyColumnNames[i]);
+				}
 			}
 			
-			return ResultSetTranslator.getTOListFromRS(ps.executeQuery(), (Class<TO>)table.getTransferableObjectClass());
+			// One more row tells whether there is a following page
+			String query = dialect.limit(sb.toString(), pageSize + 1, 0);
 			
-		} catch (SQLException e) {
-			e.printStackTrace();
-			return null;
+			PreparedStatement ps = conn.prepareCachedStatement(query);
+			List<TO> tos;
+			try {
+				int index = setFilterValues(conn, dialect, ps, filters);
+				if (keyIndexes != null) {
+					for (int keyIndex : keyIndexes) {
+						TOColumnMetaDataIF<Object> metaData = (TOColumnMetaDataIF<Object>) keyColumns.get(keyIndex).getMetaData();
+						metaData.bind(ps, index++, metaData.parse(afterKey[keyIndex]));
+					}
+				}
+				ResultSet rs = ps.executeQuery();
+				try {
+					tos = ResultSetTranslator.getTOListFromRS(rs, clazz);
+				} finally {
+					closeResultSet(rs);
+				}
+			} catch (SQLException e) {
+				conn.evictCachedStatement(query);
+				throw e;
+			} finally {
+				conn.releaseCachedStatement(ps);
+			}
+			
+			Object[] nextKey = null;
+			if (tos.size() > pageSize) {
+				tos = new ArrayList<TO>(tos.subList(0, pageSize));
+				
+				TO last = tos.get(pageSize - 1);
+				nextKey = new Object[keyColumns.size()];
+				for (int i = 0; i < nextKey.length; i++) {
+					nextKey[i] = last.get(keyColumns.get(i));
+				}
+			}
+			
+			if (eagerColumns != null) {
+				attachLazyColumnLoader(clazz, tos);
+			}
+			
+			return new TOPage<TO>(tos, nextKey);
+			
+		} finally {
+			releaseConnection(conn);
 		}
 	}
 	
-	
 	/**
-	 * Select a list of TOs filtering by many different columns (Not necessarily the primary key).
-	 * To select a TO by it's primary key, please use {@link AbstractDatabaseDAO#selectTO(TransferableObject)} instead.
-	 * If some fields in the TO are initialized, they will be used in the where clause with the {@link QueryMathOperatorStruct#eq} operator
-	 * @param <TO>	The geeric type of the selecting TO
-	 * @param <V>	The generic type of
-	 * @param to	A to with initialized members to be filtered by the query
-	 * @return The list of matching TOs
+	 * Same as {@link #selectTOList(Class, List)}, but the rows are read from the database
+	 * and turned into TOs one at a time while iterating, so the whole result is never
+	 * held in memory. The cursor keeps its connection until it is exhausted or closed:
+	 * <pre>
+	 * TOCursor&lt;MyTO&gt; cursor = dao.selectTOIterator(MyTO.class, filters);
+	 * try {
+	 *     for (MyTO to : cursor) { ... }
+	 * } finally {
+	 *     cursor.close();
+	 * }
+	 * </pre>
+	 * Depending on the database, no other request should be sent on the same connection
+	 * while iterating (MySQL refuses them). On the databases which only stream rows in a
+	 * transaction (PostgreSQL), a cursor opened outside of a transaction on the connection
+	 * of the DAO, or on the connection bound to the thread, reads on a connection of its
+	 * own, so the writes made meanwhile are not part of its transaction.
+	 * @param clazz		The class of the TO type we look for
+	 * @param filters	A list of filters, may be null
+	 * @return The cursor
 	 * @throws SQLException
 	 */
-	public <TO extends TransferableObject> List<TO> selectTOList(TO to) throws SQLException {
-		return selectTOList(to, null) ;
+	public <TO extends TransferableObject> TOCursor<TO> selectTOIterator(Class<TO> clazz, List<TOColumnFilter<?> > filters) throws SQLException {
+		return selectTOIterator(clazz, filters, DEFAULT_FETCH_SIZE);
 	}
 	
 	/**
-	 * Select a list of TOs filtering by many different columns (Not necessarily the primary key).
-	 * To select a TO by it's primary key, please use {@link AbstractDatabaseDAO#selectTO(TransferableObject)} instead.
-	 * If some fields in the TO are initialized, they will be used in the where clause with the {@link QueryMathOperatorStruct#eq} operator
-	 * Custom filters can be passed through the {@code filter} parameter
-	 * @param <TO>	The generic type of the selecting TO
-	 * @param to	A to with initialized members to be filtered by the query
-	 * @param filters	A list of filters that are not representable with the {@link QueryMathOperatorStruct#eq} operator
-	 * @return The list of matching TOs
-	 * @throws SQLException
+	 * @see #selectTOIterator(Class, List)
+	 * @param fetchSize The number of rows read from the database at once
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	public <TO extends TransferableObject> List<TO> selectTOList(TO to, List<TOColumnFilter<?> > filters) throws SQLException {
-		if (to == null)	{
-			return new ArrayList<TO>() ;
-		}
+	public <TO extends TransferableObject> TOCursor<TO> selectTOIterator(Class<TO> clazz, List<TOColumnFilter<?> > filters, int fetchSize) throws SQLException {
+		// The connection is kept by the cursor, which might be closed by another thread
+		DatabaseConnection acquired = acquireConnection();
+		SQLDialect dialect = acquired.getSQLDialect();
+		boolean shared = (connectionPool == null || acquired == boundConnection.get());
 		
-		List<TOColumnFilter<?> > workFilters = new ArrayList<TOColumnFilter<?> >() ;
+		final DatabaseConnection conn;
+		final boolean dedicated = (shared && dialect.isStreamingTransactionRequired() && acquired.dbConnection.getAutoCommit());
+		if (dedicated) {
+			// The transaction of the cursor must not hold the writes made through the DAO meanwhile
+			conn = openDedicatedConnection(acquired);
+		} else {
+			conn = acquired;
+		}
+		final boolean boundToThread = (conn == currentConnection());
 		
-		Object valueToFilter = null ;
+		String query = buildSelectTOListQuery(dialect, clazz, filters) ;
+		final boolean ownTransaction = dialect.isStreamingTransactionRequired() && conn.dbConnection.getAutoCommit();
 		
-		for (ColumnInfo<?> column : to.getTOStructure().getColumns())	{
-			valueToFilter = to.get(column) ;
+		PreparedStatement ps = null;
+		try {
+			if (ownTransaction) {
+				conn.setAutoCommit(false);
+			}
 			
-			if (valueToFilter != null){
-				workFilters.add(new TOColumnFilter(column, QueryMathOperatorStruct.eq, valueToFilter)) ;
+			ps = dialect.prepareStreamingStatement(conn.dbConnection, query, fetchSize);
+			setFilterValues(conn, dialect, ps, filters);
+			ResultSet rs = ps.executeQuery();
+			
+			return new TOCursor<TO>(rs, ps, clazz, new Runnable() {
+				@Override
+				public void run() {
+					releaseCursorConnection(conn, ownTransaction, boundToThread, dedicated);
+				}
+			});
+			
+		} catch (SQLException e) {
+			if (ps != null) {
+				try {
+					ps.close();
+				} catch (SQLException closeException) {
+					closeException.printStackTrace();
+				}
 			}
+			releaseCursorConnection(conn, ownTransaction, boundToThread, dedicated);
+			throw e;
 		}
-		
-		if (filters != null){
-			workFilters.addAll(filters) ;
+	}
+	
+	/*
+	 * A new connection to the same database as the given one, closed by its cursor.
+	 */
+	private DatabaseConnection openDedicatedConnection(DatabaseConnection model) throws SQLException {
+		DatabaseConnection conn = DatabaseConnectionFactory.buildConnection(model.dbConnector, model.userName, model.password);
+		if (conn == null) {
+			throw new SQLException("No DatabaseConnection available for " + model.dbConnector.getClass().getSimpleName());
+		} else if (!conn.openConnection()) {
+			throw new SQLException("Unable to open a connection to " + model.dbConnector.getConnectionString());
 		}
 		
-		return (List<TO>) selectTOList(to.getClass(), workFilters) ;
+		try {
+			applyConnectionMode(conn, connectionMode);
+		} catch (SQLException e) {
+			conn.closeConnection();
+			throw e;
+		}
+		return conn;
 	}
 	
+	/*
+	 * Ends the read-only transaction a cursor started, if any, and gives back its connection.
+	 * Only the transaction of the cursor is rolled back: it never holds the work of others,
+	 * as the cursor then has a connection of its own or a borrowed one.
+	 */
+	private void releaseCursorConnection(DatabaseConnection conn, boolean ownTransaction, boolean boundToThread, boolean dedicated) {
+		if (ownTransaction) {
+			try {
+				conn.dbConnection.rollback();
+				if (!dedicated) {
+					conn.setAutoCommit(true);
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		if (dedicated) {
+			conn.closeConnection();
+		} else if (!boundToThread) {
+			releaseConnection(conn);
+		}
+	}
 	
-	public <TO extends TransferableObject> List<TO> selectTOList(Class<TO> clazz) throws SQLException {
-		return selectTOList(clazz, null) ;
+	/*
+	 * The request as is without limit nor offset, otherwise limited by the dialect.
+	 */
+	private static String limit(SQLDialect dialect, String selectQuery, int limit, int offset) {
+		if (limit == 0 && offset == 0) {
+			return selectQuery;
+		}
+		return dialect.limit(selectQuery, limit == 0 ? Integer.MAX_VALUE : limit, offset);
 	}
 	
+	private String buildSelectTOListQuery(SQLDialect dialect, Class<? extends TransferableObject> clazz, List<TOColumnFilter<?> > filters) {
+		return buildSelectTOListQuery(dialect, clazz, filters, "*") ;
+	}
 	
-	/**
-	 * Select a list of TOs filtering by many different columns (Not necessarily the primary key).
-	 * To select a TO by it's primary key, please use {@link AbstractDatabaseDAO#selectTO(TransferableObject)} instead.
-	 * If some fields in the TO are initialised, they will be used in the where clause with the {@link QueryMathOperatorStruct#eq} operator
-	 * Custom filters can be passed through the {@code filter} parameter
-	 * @param <TO>	The generic type of the selecting TO
-	 * @param clazz		The class of the TO type we look for
-	 * @param filters	A list of filters that are not representable with the {@link QueryMathOperatorStruct#eq} operator
-	 * @return The list of matching TOs
-	 * @throws SQLException
+	/*
+	 * SELECT columns FROM table WHERE filter1 AND filter2...
 	 */
-	public <TO extends TransferableObject> List<TO> selectTOList(Class<TO> clazz, List<TOColumnFilter<?> > filters) throws SQLException {
+	private String buildSelectTOListQuery(SQLDialect dialect, Class<? extends TransferableObject> clazz, List<TOColumnFilter<?> > filters, String selectList) {
 		StringBuilder sb = new StringBuilder(500) ;
-		sb.append("SELECT * FROM ") ;
-		sb.append(TOUtil.getTOStructure(clazz).getRepresentedTable()) ;
+		sb.append("SELECT ").append(selectList).append(" FROM ") ;
+		sb.append(TOStructureRegistry.getStructure(clazz).getRepresentedTable()) ;
 		
 		if (filters != null && filters.size() > 0){
 			sb.append(" WHERE ");
@@ -659,21 +2017,22 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 					firstItem = false ;
 				}
 				
+				if (isArrayParameter(dialect, filter))	{
+					sb.append(dialect.anyCondition(filter.getColumn().toString(), filter.getOperator() == QueryMathOperatorStruct.nin)) ;
+					continue ;
+				}
+				
 				sb.append(filter.getColumn()) ;
 				sb.append(filter.getOperator().sql()) ;	// The operator contains spaces.  ie " = ", " <= "...
 				
 				/*
 				 * in and not in must be managed differently because they have many values
 				 */
-				if (filter.getOperator() == QueryMathOperatorStruct.in || filter.getOperator() == QueryMathOperatorStruct.nin)	{
+				if (isInList(filter))	{
 					sb.append('(') ;
 					
-					/*
-					 * The value of the TOColumnFilter is an array in those cases
-					 */
-					Object[] valueFilters = (Object[]) filter.getValue() ;
-	
-					for (int i = 0; i < valueFilters.length; i++)	{
+					int parameterCount = getParameterCount(dialect, filter) ;
+					for (int i = 0; i < parameterCount; i++)	{
 						if (i > 0){
 							sb.append(',') ;
 						}
@@ -687,34 +2046,231 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 				}
 			}
 		}
-
-		PreparedStatement ps = dbAccess.prepareStatement(sb.toString()) ;
 		
+		return sb.toString() ;
+	}
+	
+	/*
+	 * Binds the values of the filters, in the order of buildSelectTOListQuery(),
+	 * and returns the index of the next parameter.
+	 */
+	@SuppressWarnings("unchecked")
+	private int setFilterValues(DatabaseConnection conn, SQLDialect dialect, PreparedStatement ps, List<TOColumnFilter<?> > filters) throws SQLException {
+		int i = 1 ;	// PreparedStatement index begins at 1
 		if (filters != null){
-			int i = 1 ;	// PreparedStatement index begins at 1
 			for (TOColumnFilter<?> filter : filters)	{
-				if (filter.getOperator() == QueryMathOperatorStruct.in || filter.getOperator() == QueryMathOperatorStruct.nin)	{
+				if (isArrayParameter(dialect, filter))	{
+					// The elements are converted as bind() does, the driver can't encode i.e. a LocalDate
+					TOColumnMetaDataIF<Object> metaData = (TOColumnMetaDataIF<Object>) filter.getColumn().getMetaData() ;
+					String typeName = dialect.getArrayTypeName(metaData.getSQLDataType()) ;
+					Array array = conn.dbConnection.createArrayOf(typeName, BoundValues.get(metaData, (Object[]) filter.getValue())) ;
+					ps.setArray(i++, array) ;
+				}
+				else if (isInList(filter))	{
 					/*
 					 * The value of the TOColumnFilter is an array in those cases
 					 */
 					Object[] valueFilters = (Object[]) filter.getValue() ;
-					
+				
 					for (Object valueFilter : valueFilters)	{
-						ps.setObject(i++, valueFilter) ;
+						bindFilterValue(ps, i++, filter, valueFilter) ;
+					}
+					
+					// Padding, repeating the last value doesn't change the result
+					int parameterCount = getParameterCount(dialect, filter) ;
+					for (int padding = valueFilters.length; padding < parameterCount; padding++)	{
+						bindFilterValue(ps, i++, filter, valueFilters[valueFilters.length - 1]) ;
 					}
 				}
 				else	{
-					ps.setObject(i++, filter.getValue()) ;
+					bindFilterValue(ps, i++, filter, filter.getValue()) ;
 				}
 			}
 		}
+		return i ;
+	}
+	
+	/*
+	 * Binds a value of a filter with the meta data of its column, as the columns of a TO
+	 * are bound; the pattern of a like is a text whatever the type of the column.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void bindFilterValue(PreparedStatement ps, int index, TOColumnFilter<?> filter, Object value) throws SQLException {
+		TOColumnMetaDataIF<Object> metaData = (TOColumnMetaDataIF<Object>) filter.getColumn().getMetaData() ;
+		if (metaData == null || isPattern(filter)) {
+			ps.setObject(index, value) ;
+		} else {
+			metaData.bind(ps, index, metaData.parse(value)) ;
+		}
+	}
+	
+	private static boolean isPattern(TOColumnFilter<?> filter) {
+		return filter.getOperator() == QueryMathOperatorStruct.like || filter.getOperator() == QueryMathOperatorStruct.nlike
+				|| filter.getOperator() == QueryMathOperatorStruct.contains || filter.getOperator() == QueryMathOperatorStruct.ncontains;
+	}
+	
+	private static boolean isInList(TOColumnFilter<?> filter) {
+		return filter.getOperator() == QueryMathOperatorStruct.in || filter.getOperator() == QueryMathOperatorStruct.nin;
+	}
+	
+	/*
+	 * Whether the values of an 'in' or 'not in' filter are sent as a single array parameter.
+	 */
+	private boolean isArrayParameter(SQLDialect dialect, TOColumnFilter<?> filter) {
+		if (inListStrategy != InListStrategy.ARRAY || !isInList(filter) || filter.getColumn().getMetaData() == null) {
+			return false;
+		}
+		return dialect.getArrayTypeName(filter.getColumn().getMetaData().getSQLDataType()) != null;
+	}
+	
+	/*
+	 * The number of parameters used by a filter. It only depends on the strategy, the
+	 * dialect and the number of values, so a query and its binding always agree.
+	 */
+	private int getParameterCount(SQLDialect dialect, TOColumnFilter<?> filter) {
+		if (!isInList(filter) || isArrayParameter(dialect, filter)) {
+			return 1;
+		}
 		
-		return ResultSetTranslator.getTOListFromRS(ps.executeQuery(), clazz) ;
+		int size = ((Object[]) filter.getValue()).length;
+		if (inListStrategy != InListStrategy.EXPANDED && size > 0) {
+			// PADDED, or ARRAY when the column can't be sent as an array
+			for (int bucket : InListStrategy.PADDING_BUCKETS) {
+				if (size <= bucket) {
+					return bucket;
+				}
+			}
+		}
+		return size;
 	}
 	
 	
 	@Override
 	public void upsert(TransferableObject to) throws SQLException {
+		if (to == null){
+			throw new SQLException("upsert() should never be called with a null value!");
+		}
+		checkFullyLoaded(to);
+		
+		TOSQLTemplate template = TOSQLTemplate.get(to.getTOStructure());
+		Object[] columnValues = template.getValues(to);
+		
+		DatabaseConnection conn = acquireConnection();
+		try {
+			TOSQLTemplate.UpsertVariant variant = getUpsertVariant(conn, template, columnValues);
+			if (variant != null) {
+				PreparedStatement ps = conn.prepareCachedStatement(variant.sql);
+				try {
+					int[] boundColumns = variant.boundColumns;
+					for (int i = 0; i < boundColumns.length; i++) {
+						int index = boundColumns[i];
+						template.metaData[index].bind(ps, i + 1, columnValues[index]);
+					}
+					ps.executeUpdate();
+				} catch (SQLException e) {
+					conn.evictCachedStatement(variant.sql);
+					throw e;
+				} finally {
+					conn.releaseCachedStatement(ps);
+				}
+				to.markClean();
+				invalidateCaches(to);
+				return;
+			}
+		} catch (SQLException e) {
+			System.err.println("Failed to upsert the following TO: " + to);
+			throw e;
+		} finally {
+			releaseConnection(conn);
+		}
+		
+		// The database has no upsert request, or a primary key value is null
+		upsertBySelect(to);
+	}
+	
+	@Override
+	public int[] upsertAll(Collection<? extends TransferableObject> tos) throws SQLException {
+		List<TransferableObject> toList = new ArrayList<TransferableObject>(tos);
+		int[] counts = new int[toList.size()];
+		
+		boolean alreadyBound = (currentConnection() != null);
+		bindConnection();
+		try {
+			DatabaseConnection conn = acquireConnection();
+			try {
+				Map<String, BatchGroup> groups = new LinkedHashMap<String, BatchGroup>();
+				
+				for (int i = 0; i < toList.size(); i++) {
+					TransferableObject to = toList.get(i);
+					if (to == null) {
+						throw new SQLException("upsertAll() should never be called with a null value!");
+					}
+					checkFullyLoaded(to);
+					
+					TOSQLTemplate template = TOSQLTemplate.get(to.getTOStructure());
+					TOSQLTemplate.UpsertVariant variant = getUpsertVariant(conn, template, template.getValues(to));
+					
+					if (variant == null) {
+						// Written after the rows before it, so the order of the collection is kept
+						executeBatchGroups(conn, groups, toList, counts);
+						groups.clear();
+						upsertBySelect(to);
+						counts[i] = 1;
+						continue;
+					}
+					
+					BatchGroup group = groups.get(variant.sql);
+					if (group == null) {
+						group = new BatchGroup(variant.sql, template, variant.boundColumns);
+						groups.put(variant.sql, group);
+					}
+					group.positions.add(i);
+				}
+				
+				executeBatchGroups(conn, groups, toList, counts);
+			} finally {
+				releaseConnection(conn);
+			}
+		} finally {
+			if (!alreadyBound) {
+				unbindConnection();
+			}
+		}
+		
+		return counts;
+	}
+	
+	/*
+	 * Returns the native upsert request to use, null if the TO must go through upsertBySelect().
+	 */
+	private static TOSQLTemplate.UpsertVariant getUpsertVariant(DatabaseConnection conn, TOSQLTemplate template, Object[] columnValues) throws SQLException {
+		if (!conn.isUpsertSupported()) {
+			return null;
+		}
+		return template.getUpsertVariant(conn.getSQLDialect(), columnValues);
+	}
+	
+	/*
+	 * An upsert writes all the columns, it would set the ones that were not loaded to null.
+	 */
+	private static void checkFullyLoaded(TransferableObject to) throws SQLException {
+		// Reading a lazy column not loaded yet loads them
+		for (ColumnInfo<?> column : TOStructureRegistry.getLazyColumns(to.getClass())) {
+			if (to.isFullyLoaded()) {
+				break;
+			}
+			to.get(column);
+		}
+		if (!to.isFullyLoaded()) {
+			throw new SQLException("Can't upsert a TO read without all its columns, use update(): " + to);
+		}
+	}
+	
+	/*
+	 * The upsert for databases without a native request: a TO is selected, then
+	 * inserted or updated. This is not safe without locking the table.
+	 */
+	private void upsertBySelect(TransferableObject to) throws SQLException {
 		if (selectTO(to) == null) {
 			insert(to);
 		} else {
@@ -724,7 +2280,67 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 		}
 	}
 	
+	/**
+	 * The returned ResultSet holds its statement and, when the DAO uses a connection
+	 * pool, its connection until it is closed, so it should be closed in a finally block.
+	 * @return The rows, null if the query failed
+	 */
 	public ResultSet select( QueryBuilder qb ) {
+		final DatabaseConnection conn;
+		try {
+			conn = acquireConnection();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return null;
+		}
+		
+		CaseInsensitiveStrategy caseStrategy = (conn.isCaseSensitive() ? caseInsensitiveStrategy : null);
+		SQLDialect dialect = conn.getSQLDialect();
+		
+		try {
+			/*
+			 * The SQL only depends on the shape of the query, the values are bound
+			 * with the type of their column.
+			 */
+			List<Object> shape = qb.getSQLShape();
+			shape.add(caseStrategy);
+			shape.add(dialect);
+			String sql = selectSQLByShape.get(shape);
+			if (sql == null) {
+				sql = buildSelectSQL(qb, caseStrategy, dialect);
+				if (selectSQLByShape.size() >= MAX_SELECT_SHAPES) {
+					selectSQLByShape.clear();
+				}
+				selectSQLByShape.put(shape, sql);
+			}
+			
+			PreparedStatement ps = conn.prepareStatement(sql);
+			try {
+				qb.bindSQLValues(ps, 1, caseStrategy);
+				return ClosingResultSet.wrap(ps.executeQuery(), ps, new Runnable() {
+					@Override
+					public void run() {
+						releaseConnection(conn);
+					}
+				});
+			} catch (SQLException e) {
+				ps.close();
+				throw e;
+			}
+			
+		} catch( SQLException e ) {
+			/*
+			 * The query didn't complete properly, this will happen if a value
+			 * is not with the good type (i.e. secID = 'a'). We don't print
+			 * the exception since it might be generated often when the users
+			 * send invalid queries.
+			 */
+			releaseConnection(conn);
+			return null;
+		}
+	}
+	
+	private String buildSelectSQL( QueryBuilder qb, CaseInsensitiveStrategy caseStrategy, SQLDialect dialect ) {
 		StringBuilder sbSelect = new StringBuilder( 100 );
 		/*
 		 * Select
@@ -774,100 +2390,34 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 		/*
 		 * Where
 		 */
-		List<QueryConditionStruct> elements = qb.getDNFQueryElements();
-		Queue<String> valueQueue = new LinkedList<String>();
-		if (elements != null) {
+		if (qb.hasConditions()) {
 			sbSelect.append("WHERE ");
-			
-			for (int elementIndex = 0; elementIndex < elements.size(); elementIndex++) {
-				if (elementIndex != 0) {
-					sbSelect.append("\n\tOR ");
-				}
-				
-				QueryConditionStruct condition = elements.get(elementIndex);
-				for (int conditionIndex = 0; conditionIndex < condition.columns.size(); conditionIndex++) {
-					if (conditionIndex != 0) {
-						sbSelect.append(" AND ");
-					}
-					
-					TransferableObjectInfo<?> column = condition.columns.get(conditionIndex);
-					TOColumnMetaDataIF<?> metaData = column.getMetaData();
-					String value;
-					
-					if(dbAccess.isCaseSensitive() && metaData.isText()) {
-						sbSelect.append("LOWER(");
-						sbSelect.append(qb.neededTables.get(condition.tables.get(conditionIndex)).getTOStructure().getRepresentedTable());
-						sbSelect.append(".");
-						sbSelect.append(column.toString());
-						sbSelect.append(")");
-						value = condition.values.get(conditionIndex).toString().toLowerCase();
-					} else {
-						sbSelect.append(qb.neededTables.get(condition.tables.get(conditionIndex)).getTOStructure().getRepresentedTable());
-						sbSelect.append(".");
-						sbSelect.append(column.toString());
-						value = condition.values.get(conditionIndex).toString();
-					}
-					
-					QueryMathOperatorStructIF operator = condition.mathOperators.get(conditionIndex);
-					
-					sbSelect.append(operator.sql());
-					/*
-					 * To protect against SQL injection, we queue the values to
-					 * add and will be replacing the '?' via a PreparedStatement.
-					 * 
-					 * We need to treat "in" and "nin" differently because they
-					 * contain multiple values.
-					 */
-					if (operator == QueryMathOperatorStruct.in || operator == QueryMathOperatorStruct.nin) {
-						String[] values = value.split(",");
-						
-						sbSelect.append("(");
-						for (int i = 0; i < values.length; i++) {
-							if (i > 0) {
-								sbSelect.append(",");
-							}
-							sbSelect.append("?");
-							valueQueue.add(values[i].trim());
-						}
-						sbSelect.append(")");
-						
-					} else {
-						sbSelect.append("?");
-						valueQueue.add(value);
-					}
-					
-				}
-			}
+			qb.appendSQLCondition(sbSelect, caseStrategy);
 		}
 		
 		/*
 		 * Order By
 		 */
-		// OrderBy is still TODO
+		if (qb.hasOrderings()) {
+			sbSelect.append("\nORDER BY ");
+			qb.appendSQLOrderBy(sbSelect, dialect);
+		}
+		
+		return limit(dialect, sbSelect.toString(), qb.getLimit(), qb.getOffset());
+	}
+	
+	/*
+	 * The statements come from the connection's cache, so only their ResultSet is closed.
+	 */
+	private static void closeResultSet(ResultSet rs) {
+		if (rs == null) {
+			return;
+		}
 		
-//		System.out.println( "dbgPrint iuhguhgdhjkbdf 1:\n" + sbSelect.toString() );
 		try {
-			PreparedStatement ps = dbAccess.prepareStatement(sbSelect.toString());
-			
-			/*
-			 * We add the queued values to the prepared statement.
-			 */
-			int i = 1;
-			while (!valueQueue.isEmpty()) {
-//				System.out.println("dbgPrint rghnrgir 2: setString(" + i + ", " + valueQueue.peek() + ")");
-				ps.setString(i++, valueQueue.poll());
-			}
-			//System.out.println(ps);
-			return ps.executeQuery();
-			
-		} catch( SQLException e ) {
-			/*
-			 * The query didn't complete properly, this will happen if a value
-			 * is not with the good type (i.e. secID = 'a'). We don't print
-			 * the exception since it might be generated often when the users
-			 * send invalid queries.
-			 */
-			return null;
+			rs.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
 		}
 	}
 	
@@ -900,10 +2450,11 @@ public abstract class AbstractDatabaseDAO implements DatabaseAccessObjectIF{
 	
 	@Override
 	public void lockTable(TableInfo table) throws SQLException {
-		if (dbAccess.dbConnection.getAutoCommit()) {
+		DatabaseConnection conn = currentConnection();
+		if (conn == null || conn.dbConnection.getAutoCommit()) {
 			throw new SQLException("lockTable() can only be called in a transaction.");
 		} else {
-			dbAccess.executeUpdate("lock table " + table);
+			conn.executeUpdate("lock table " + table);
 		}
 	}
 }
@@ -0,0 +1,55 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF;
+
+/**
+ * <p> Title: {@link BoundValues} <p>
+ * <p> Description: Converts values to the objects their meta data gives to the driver
+ * (see {@link TOColumnMetaDataIF#bind(PreparedStatement, int, Object)}), i.e. a
+ * java.sql.Date for a LocalDate, by binding them to a PreparedStatement that only
+ * records them. An array parameter built with these objects holds the values a
+ * parameter per value would have.</p>
+ */
+class BoundValues implements InvocationHandler {
+
+	private Object value;
+
+	private BoundValues() {
+	}
+
+	/**
+	 * @param metaData The meta data of the values
+	 * @param values The values, as given to a filter
+	 * @return The objects bound by the meta data for each value, null for a null value
+	 * @throws SQLException
+	 */
+	static Object[] get(TOColumnMetaDataIF<Object> metaData, Object[] values) throws SQLException {
+		BoundValues recorder = new BoundValues();
+		PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, recorder);
+
+		Object[] bound = new Object[values.length];
+		for (int i = 0; i < values.length; i++) {
+			metaData.bind(ps, 1, metaData.parse(values[i]));
+			bound[i] = recorder.value;
+		}
+		return bound;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if (!name.startsWith("set") || args == null || args.length < 2) {
+			throw new UnsupportedOperationException(name);
+		}
+
+		value = ("setNull".equals(name) ? null : args[1]);
+		return null;
+	}
+}
@@ -0,0 +1,32 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import com.philippelangevin.sdk.database.connector.DatabaseConnectorIF;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder;
+
+/**
+ * <p> Title: {@link CaseInsensitiveStrategy} <p>
+ * <p> Description: How the conditions of a {@link QueryBuilder} on text columns ignore
+ * the case, on the databases whose comparisons are case sensitive (see
+ * {@link DatabaseConnectorIF#isCaseSensitive()}). Each strategy needs its own kind of
+ * index to avoid scanning the table.</p>
+ */
+public enum CaseInsensitiveStrategy {
+	/**
+	 * LOWER(column) is compared with the value in lower case. An ordinary index on the
+	 * column is not used: the column needs a functional index on LOWER(column).
+	 */
+	LOWER,
+
+	/**
+	 * The column is compared as is, with the value as given: the column (or the database)
+	 * is declared with a case insensitive collation, or a case insensitive type such as
+	 * citext on PostgreSQL, so the ordinary indexes are used.
+	 */
+	COLLATION,
+
+	/**
+	 * PostgreSQL: like and contains become ILIKE, which a trigram index can serve; the
+	 * other comparisons are made as with {@link #LOWER}.
+	 */
+	ILIKE
+}
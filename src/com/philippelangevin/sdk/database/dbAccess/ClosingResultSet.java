@@ -0,0 +1,75 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * <p> Title: {@link ClosingResultSet} <p>
+ * <p> Description: Wraps a ResultSet so that closing it also closes its statement and
+ * gives its connection back, as {@link TOCursor} does for TOs. The other methods are
+ * forwarded to the ResultSet.</p>
+ */
+class ClosingResultSet implements InvocationHandler {
+
+	private final ResultSet rs;
+	private final Statement statement;
+	private final Runnable onClose;
+	private boolean closed = false;
+
+	private ClosingResultSet(ResultSet rs, Statement statement, Runnable onClose) {
+		this.rs = rs;
+		this.statement = statement;
+		this.onClose = onClose;
+	}
+
+	/**
+	 * @param rs The ResultSet to read
+	 * @param statement The statement of the ResultSet, closed with it
+	 * @param onClose Called once the ResultSet and statement are closed, may be null.
+	 * @return The ResultSet to hand out
+	 */
+	static ResultSet wrap(ResultSet rs, Statement statement, Runnable onClose) {
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+				new Class<?>[] { ResultSet.class }, new ClosingResultSet(rs, statement, onClose));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if ("close".equals(method.getName()) && method.getParameterTypes().length == 0) {
+			close();
+			return null;
+		} else if ("isClosed".equals(method.getName()) && method.getParameterTypes().length == 0) {
+			return closed;
+		}
+
+		try {
+			return method.invoke(rs, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private synchronized void close() throws SQLException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			try {
+				rs.close();
+			} finally {
+				statement.close();
+			}
+		} finally {
+			if (onClose != null) {
+				onClose.run();
+			}
+		}
+	}
+}
@@ -1,22 +1,27 @@
 package com.philippelangevin.sdk.database.dbAccess;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
 import com.philippelangevin.sdk.dataStructure.ObjectUtil;
+import com.philippelangevin.sdk.database.connector.SQLDialect;
 import com.philippelangevin.sdk.database.exception.TONotFoundException;
 import com.philippelangevin.sdk.database.tables.TableInfo;
 import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.TOChangeSet;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfo;
+import com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF;
 
 /**
  * <p> Title: {@link DatabaseAccessObjectIF} <p>
@@ -80,6 +85,9 @@ public interface DatabaseAccessObjectIF {
 	 * @param 	TransferableObject
 	 * @return 	False s'il y a eu une erreur.
 	 *          True peu importe si le TO existe ou pas
+	 * Only the dirty columns of the TO are set (see {@link TransferableObject#isDirty(com.philippelangevin.sdk.database.transferableObject.ColumnInfo)}),
+	 * and nothing is sent to the database if none is dirty. The TO is clean afterwards.
+	 * A TO read from another database is written with {@link TransferableObject#markDirty()}.
 	 */
 	public boolean update (TransferableObject TO);
 	
@@ -92,6 +100,37 @@ public interface DatabaseAccessObjectIF {
 	@Deprecated
 	public boolean delete (TransferableObject TO);
 	
+	/**
+	 * Inserts many TOs using JDBC batches, grouped by TO class.
+	 * As with {@link #insert(TransferableObject)}, the null columns are left to
+	 * their default value and are read back into the TOs when the database allows it.
+	 * A TO whose default values are read with RETURNING is inserted alone, after the
+	 * batches of the TOs before it.
+	 * @param tos The TOs to insert
+	 * @return The update count of each TO, in the iteration order of the collection.
+	 * @throws SQLException Thrown if a batch fails (you should rollback!)
+	 */
+	public int[] insertAll(Collection<? extends TransferableObject> tos) throws SQLException;
+	
+	/**
+	 * Updates many TOs using JDBC batches, grouped by TO class and dirty columns.
+	 * As with {@link #update(TransferableObject)}, a TO without dirty column is skipped.
+	 * @param tos The TOs to update
+	 * @return The update count of each TO, in the iteration order of the collection,
+	 * {@link java.sql.Statement#SUCCESS_NO_INFO} for a skipped TO.
+	 * @throws SQLException Thrown if a batch fails (you should rollback!)
+	 */
+	public int[] updateAll(Collection<? extends TransferableObject> tos) throws SQLException;
+	
+	/**
+	 * Deletes many TOs by primary key using JDBC batches, grouped by TO class.
+	 * A TO that was not found has an update count of 0, no exception is thrown.
+	 * @param tos The TOs to delete
+	 * @return The update count of each TO, in the iteration order of the collection.
+	 * @throws SQLException Thrown if a batch fails (you should rollback!)
+	 */
+	public int[] deleteAll(Collection<? extends TransferableObject> tos) throws SQLException;
+	
 	/**
 	 * Deletes a TO, throws an exception if the TO was not found.
 	 * @param to The TransferableObject to delete
@@ -121,6 +160,18 @@ public interface DatabaseAccessObjectIF {
 	 * @throws SQLException Thrown if any of the delete/insert/update method fails (you should rollback!)
 	 */
 	public <T extends TransferableObject> void synchronizeTO(Collection<T> beforeTOList, Collection<T> afterTOList)  throws SQLException;
+	
+	/**
+	 * Same as {@link #synchronizeTO(Collection, Collection)}, but the TOs are matched by
+	 * primary key through a hash map and the changes are sent in JDBC batches. If no
+	 * transaction is in progress, the changes are applied in a single transaction.
+	 * @param beforeTOList The TOs as they are in the database
+	 * @param afterTOList The TOs as they should be
+	 * @param dryRun If true, nothing is sent to the database.
+	 * @return The changes that were (or would have been) applied.
+	 * @throws SQLException Thrown if any of the delete/insert/update fails
+	 */
+	public <T extends TransferableObject> TOChangeSet<T> synchronizeTO(Collection<T> beforeTOList, Collection<T> afterTOList, boolean dryRun) throws SQLException;
 
 	/**
 	 * Selects a TO based on the provided class and primary key values.
@@ -164,14 +215,30 @@ public interface DatabaseAccessObjectIF {
 	/**
 	 * Inserts a TO if it doesn't exist, otherwise the TO is updated.
 	 * 
-	 * Note that this method is not safe; a TO is selected from the DB, then an
-	 * insert or update is being executed. If you want to be 100% safe you need
-	 * to lock the DB table before calling this method, and unlock it afterwards.
+	 * When the database supports it, a single native request is used (i.e. INSERT ...
+	 * ON CONFLICT for PostgreSQL and SQLite 3.24, MERGE for SQL Server); see {@link SQLDialect}.
+	 * Null columns are left to their default value on insertion and set to NULL on update.
+	 * 
+	 * Otherwise, or if a primary key value is null, this method is not safe; a TO is
+	 * selected from the DB, then an insert or update is being executed. If you want to
+	 * be 100% safe you need to lock the DB table before calling this method, and unlock
+	 * it afterwards.
 	 * @param to The TO to insert or update
 	 * @throws SQLException
 	 */
 	public void upsert(TransferableObject to) throws SQLException;
 	
+	/**
+	 * Same as {@link #upsert(TransferableObject)} for many TOs; the native requests are
+	 * sent in JDBC batches. A TO upserted through a select is written alone, after the
+	 * batches of the TOs before it, so the rows are written in the order of the collection.
+	 * @param tos The TOs to insert or update
+	 * @return The update count of each TO, in the iteration order of the collection.
+	 *         Note that the count of an upserted row depends on the database.
+	 * @throws SQLException Thrown if a batch fails (you should rollback!)
+	 */
+	public int[] upsertAll(Collection<? extends TransferableObject> tos) throws SQLException;
+	
 	public void beginTransaction() throws SQLException;
 	
 	public boolean rollback();
@@ -240,6 +307,13 @@ public interface DatabaseAccessObjectIF {
 			AND, OR, NOT, PARENTHESIS_OPEN, PARENTHESIS_CLOSE;
 		}
 		
+		/**
+		 * This enum represents the directions of an ORDER BY.
+		 */
+		public enum QueryOrderDirection {
+			ASC, DESC;
+		}
+		
 		public interface QueryMathOperatorStructIF {
 			public String sql();
 			public String xml();
@@ -317,7 +391,7 @@ public interface DatabaseAccessObjectIF {
 		 * If value differs from this format, the query might not result any result.
 		 * Note that it isn't possible at this point to compare a time value.
 		 */
-		public static class QueryConditionStruct implements QueryElementStruct {
+		public static class QueryConditionStruct implements QueryElementStruct, QueryExpressionStruct {
 			/*
 			 * These lists stay synchronized at all times.
 			 */
@@ -394,17 +468,68 @@ public interface DatabaseAccessObjectIF {
 			}
 		}
 		
+		/**
+		 * This interface represents a node of the expression tree of a query (see
+		 * getQueryExpression()): a QueryConditionStruct or a QueryJunctionStruct.
+		 */
+		public interface QueryExpressionStruct {}
+		
+		/**
+		 * This class represents operands joined by the same operator, AND or OR.
+		 * The operands are conditions or other junctions, in the order of the query.
+		 */
+		public static final class QueryJunctionStruct implements QueryExpressionStruct {
+			private final QueryOperatorStruct operator;
+			private final List<QueryExpressionStruct> operands = new ArrayList<QueryExpressionStruct>();
+			
+			private QueryJunctionStruct(QueryOperatorStruct operator) {
+				this.operator = operator;
+			}
+			
+			/*
+			 * AND or OR.
+			 */
+			public QueryOperatorStruct getOperator() {
+				return operator;
+			}
+			
+			public List<QueryExpressionStruct> getOperands() {
+				return Collections.unmodifiableList(operands);
+			}
+		}
+		
 		/*
 		 * The selected tables and fields.
 		 */
 		/*protected*/public Map<Class<? extends TransferableObject>, TransferableObject> neededTables = new HashMap<Class<? extends TransferableObject>,TransferableObject>();
 		/*protected*/public List<TblColStruct> selectedFields = new ArrayList<TblColStruct>();
 		
+		/*
+		 * A column of the ORDER BY.
+		 */
+		private static final class QueryOrderStruct {
+			private final Class<? extends TransferableObject> table;
+			private final TransferableObjectInfo<?> column;
+			private final QueryOrderDirection direction;
+			private final boolean nullsFirst;
+			
+			private QueryOrderStruct(Class<? extends TransferableObject> table, TransferableObjectInfo<?> column, QueryOrderDirection direction, boolean nullsFirst) {
+				this.table = table;
+				this.column = column;
+				this.direction = direction;
+				this.nullsFirst = nullsFirst;
+			}
+		}
+		
+		private List<QueryOrderStruct> orderings = new ArrayList<QueryOrderStruct>();
+		private int limit = 0;
+		private int offset = 0;
+		
 		/*
 		 * The list of elements in our query, it is private since we should only
 		 * be able to access it via getDNFQueryElements().
 		 */
-		private List<QueryElementStruct> elements = new LinkedList<QueryElementStruct>();
+		private List<QueryElementStruct> elements = new ArrayList<QueryElementStruct>();
 		
 		/*
 		 * These variables are using during the construction of the query, to
@@ -426,6 +551,9 @@ public interface DatabaseAccessObjectIF {
 		public QueryBuilder(QueryBuilder builder) {
 			this.neededTables.putAll(builder.neededTables);
 			this.selectedFields.addAll(builder.selectedFields);
+			this.orderings.addAll(builder.orderings);
+			this.limit = builder.limit;
+			this.offset = builder.offset;
 			this.openParentheses = builder.openParentheses;
 			this.awaitingCondition = builder.awaitingCondition;
 			
@@ -514,6 +642,86 @@ public interface DatabaseAccessObjectIF {
 			}
 		}
 		
+		public void orderBy(TableInfo table, TransferableObjectInfo<?> column, QueryOrderDirection direction, boolean nullsFirst) {
+			orderBy(table.getTransferableObjectClass(), column, direction, nullsFirst);
+		}
+		
+		/**
+		 * Adds a column to the ORDER BY of the query, after the ones already added.
+		 * @param tableTOClass
+		 * @param column
+		 * @param direction
+		 * @param nullsFirst True to put the nulls before the other values
+		 */
+		public void orderBy(Class<? extends TransferableObject> tableTOClass, TransferableObjectInfo<?> column, QueryOrderDirection direction, boolean nullsFirst) {
+			if (direction == null) {
+				throw new NullPointerException();
+			}
+			
+			try {
+				manageNeededTables(tableTOClass);
+				orderings.add(new QueryOrderStruct(tableTOClass, column, direction, nullsFirst));
+			} catch( InstantiationException e ) {
+				e.printStackTrace();
+			} catch( IllegalAccessException e ) {
+				e.printStackTrace();
+			}
+		}
+		
+		/**
+		 * Limits the number of rows returned by the query. Without ORDER BY, which
+		 * rows are returned is up to the database.
+		 * @param limit The maximum number of rows, 0 for no limit
+		 */
+		public void limit(int limit) {
+			limit(limit, 0);
+		}
+		
+		/**
+		 * Limits the number of rows returned by the query, after skipping the first ones.
+		 * SQL Server needs an ORDER BY to skip rows.
+		 * @param limit The maximum number of rows, 0 for no limit
+		 * @param offset The number of rows to skip
+		 */
+		public void limit(int limit, int offset) {
+			if (limit < 0 || offset < 0) {
+				throw new IllegalArgumentException("The limit and the offset can't be negative: " + limit + ", " + offset);
+			}
+			this.limit = limit;
+			this.offset = offset;
+		}
+		
+		public int getLimit() {
+			return limit;
+		}
+		
+		public int getOffset() {
+			return offset;
+		}
+		
+		/**
+		 * Returns whether columns were added to the ORDER BY of the query.
+		 */
+		public boolean hasOrderings() {
+			return !orderings.isEmpty();
+		}
+		
+		/**
+		 * Appends the columns of the ORDER BY, without the ORDER BY keyword.
+		 * @param sb
+		 * @param dialect Tells how to put the nulls first or last
+		 */
+		public void appendSQLOrderBy(StringBuilder sb, SQLDialect dialect) {
+			for (int i = 0; i < orderings.size(); i++) {
+				QueryOrderStruct ordering = orderings.get(i);
+				if (i != 0) {
+					sb.append(", ");
+				}
+				String table = neededTables.get(ordering.table).getTOStructure().getRepresentedTable().toString();
+				dialect.appendOrderBy(sb, table + "." + ordering.column, ordering.direction == QueryOrderDirection.DESC, ordering.nullsFirst);
+			}
+		}
+		
 		/*
 		 * Sorts the tables by primary key size.
 		 */
@@ -644,367 +852,391 @@ public interface DatabaseAccessObjectIF {
 		}
 		
 		/**
-		 * Returns the elements in an equivalent Disjunctive Normal Form to
-		 * facilitate building the query. The list returned will contain only
-		 * QueryConditionStruct elements, which are logically disjoint.
-		 * 
-		 * WARNING! The list of elements is actually modified, so you might not
-		 * have the expected result if you call .equals() afterwards, so it is
-		 * recommended to use the copy constructor if you need to invoke equals().
+		 * Returns whether conditions were added to the query.
+		 */
+		public boolean hasConditions() {
+			return !elements.isEmpty();
+		}
+		
+		/**
+		 * Returns the elements as an expression tree, in linear time. The NOT
+		 * operators are pushed down to the conditions (De Morgan's laws: NOT (a AND b)
+		 * becomes NOT a OR NOT b), but the parentheses are kept, so the tree has as many
+		 * conditions as the query, unlike getDNFQueryElements(). AND has precedence
+		 * over OR, as in SQL.
 		 * 
-		 * The strategy used to get the DNF form is not the most efficient, but
-		 * it promises an accurate result in all cases. It consists of:
-		 *  - We get rid of all NOT operators by applying it to all elements
-		 *    (it carries on the parentheses)
-		 *  - While there are still parentheses, we handle the deepest level
-		 *    and then merge the elements together whenever possible until
-		 *    there are no more parentheses.
-		 *  - The final result will contain a list of conditions separated by
-		 *    OR operators... we simply build a list with the conditions.
+		 * The elements of the query are not modified; the negated conditions are copies.
 		 * 
 		 *  @return Will return null if there are no elements.
 		 *          Will throw an exception if the query is not in a valid state.
 		 */
-		public List<QueryConditionStruct> getDNFQueryElements() throws IllegalStateException {
+		public QueryExpressionStruct getQueryExpression() throws IllegalStateException {
 			if (elements.isEmpty()) {
 				return null;
 			} else if (awaitingCondition || openParentheses != 0) {
 				throw new IllegalStateException();
 			}
 			
-			removeNotOperators();
+			int[] position = {0};
+			QueryExpressionStruct expression = parseJunction(position, QueryOperatorStruct.OR, false);
+			assert position[0] == elements.size();
+			return expression;
+		}
+		
+		/*
+		 * Reads the operands joined by an operator from the position, up to a closing
+		 * parenthesis or the end of the query. The operands of OR are the ones of AND.
+		 * If negated, the operator becomes the other one and the NOT goes to the operands.
+		 */
+		private QueryExpressionStruct parseJunction(int[] position, QueryOperatorStruct operator, boolean negated) {
+			QueryExpressionStruct operand = (operator == QueryOperatorStruct.OR ?
+					parseJunction(position, QueryOperatorStruct.AND, negated) : parseOperand(position, negated));
+			if (position[0] == elements.size() || elements.get(position[0]) != operator) {
+				return operand;
+			}
+			
+			QueryJunctionStruct junction = new QueryJunctionStruct(operator == QueryOperatorStruct.AND ^ negated ?
+					QueryOperatorStruct.AND : QueryOperatorStruct.OR);
+			junction.operands.add(operand);
+			while (position[0] < elements.size() && elements.get(position[0]) == operator) {
+				position[0]++;
+				junction.operands.add(operator == QueryOperatorStruct.OR ?
+						parseJunction(position, QueryOperatorStruct.AND, negated) : parseOperand(position, negated));
+			}
+			return junction;
+		}
+		
+		/*
+		 * Reads a condition or a block of parentheses, each NOT in front of it
+		 * reversing whether it is negated.
+		 */
+		private QueryExpressionStruct parseOperand(int[] position, boolean negated) {
+			QueryElementStruct element = elements.get(position[0]++);
 			
-			int indexDeepest = getIndexDeepestParenthesisLevel();
-			while (indexDeepest != -1) {
-				mergeAndOperators();
+			if (element == QueryOperatorStruct.NOT) {
+				return parseOperand(position, !negated);
+				
+			} else if (element == QueryOperatorStruct.PARENTHESIS_OPEN) {
+				QueryExpressionStruct expression = parseJunction(position, QueryOperatorStruct.OR, negated);
+				position[0]++; // PARENTHESIS_CLOSE
+				return expression;
+				
+			} else if (element instanceof QueryConditionStruct) {
+				QueryConditionStruct condition = (QueryConditionStruct) element;
+				if (condition.columns.size() == 1) {
+					if (!negated) {
+						return condition;
+					}
+					QueryConditionStruct negatedCondition = new QueryConditionStruct(condition);
+					negatedCondition.applyNot();
+					return negatedCondition;
+				}
+				
 				/*
-				 * We need to recalculate the position of the deepest
-				 * parentheses at each step since the list will change.
+				 * A condition merged from many others is their AND, which becomes
+				 * an OR of their negations when negated.
 				 */
-				indexDeepest = getIndexDeepestParenthesisLevel();
-				mergeParenthesis(indexDeepest);
-				indexDeepest = getIndexDeepestParenthesisLevel();
+				QueryJunctionStruct junction = new QueryJunctionStruct(negated ? QueryOperatorStruct.OR : QueryOperatorStruct.AND);
+				for (int i = 0; i < condition.columns.size(); i++) {
+					QueryConditionStruct single = getSingleCondition(condition, i);
+					if (negated) {
+						single.applyNot();
+					}
+					junction.operands.add(single);
+				}
+				return junction;
+				
+			} else {
+				throw new UnsupportedOperationException();
 			}
-			
-			/*
-			 * We apply a final AND merge, and then afterwards we're certain
-			 * of only having conditions separated by ORs.
-			 */
-			mergeAndOperators();
-			
-			List<QueryConditionStruct> dnfElements = new LinkedList<QueryConditionStruct>();
-			for (int i = 0; i < elements.size(); i+=2) {
-				dnfElements.add((QueryConditionStruct) elements.get(i));
+		}
+		
+		@SuppressWarnings("unchecked")
+		private static QueryConditionStruct getSingleCondition(QueryConditionStruct condition, int index) {
+			return new QueryConditionStruct(condition.tables.get(index), (TransferableObjectInfo<Object>) condition.columns.get(index),
+					condition.mathOperators.get(index), condition.values.get(index));
+		}
+		
+		/**
+		 * Appends the conditions of the query to an SQL WHERE clause, as given by
+		 * getQueryExpression(): nested in parentheses rather than developed in
+		 * disjunctive normal form. Each value is a '?', bound by bindSQLValues().
+		 * @param sb
+		 * @param caseStrategy How the text columns are compared without case, null if
+		 * the database already compares them without case
+		 */
+		public void appendSQLCondition(StringBuilder sb, CaseInsensitiveStrategy caseStrategy) throws IllegalStateException {
+			QueryExpressionStruct expression = getQueryExpression();
+			if (expression != null) {
+				appendSQLExpression(sb, expression, null, caseStrategy);
 			}
-			
-			return dnfElements;
 		}
 		
 		/*
-		 * This removes all the NOT operators by applying it to the different
-		 * conditions and operators.
+		 * An operand of the other operator is put in parentheses; an operand of the same
+		 * operator (parentheses of the query that didn't change anything) is not.
 		 */
-		private void removeNotOperators() {
-			/*
-			 * index of the element we're visiting
-			 */
-			int index = 0;
+		private void appendSQLExpression(StringBuilder sb, QueryExpressionStruct expression, QueryOperatorStruct parentOperator, CaseInsensitiveStrategy caseStrategy) {
+			if (expression instanceof QueryConditionStruct) {
+				appendSQLCondition(sb, (QueryConditionStruct) expression, caseStrategy);
+				return;
+			}
 			
-			/*
-			 * Whether the NOT operator has been applied yet or not. This is
-			 * useful to ensure it carries on parentheses, but in front of
-			 * single condition elements it is a one-time use.
-			 */
-			boolean appliedNotOp = true;
+			QueryJunctionStruct junction = (QueryJunctionStruct) expression;
+			boolean parentheses = (parentOperator != null && parentOperator != junction.operator);
+			if (parentheses) {
+				sb.append("(");
+			}
+			for (int i = 0; i < junction.operands.size(); i++) {
+				if (i != 0) {
+					sb.append(junction.operator == QueryOperatorStruct.AND ? " AND " : " OR ");
+				}
+				appendSQLExpression(sb, junction.operands.get(i), junction.operator, caseStrategy);
+			}
+			if (parentheses) {
+				sb.append(")");
+			}
+		}
+		
+		private void appendSQLCondition(StringBuilder sb, QueryConditionStruct condition, CaseInsensitiveStrategy caseStrategy) {
+			TransferableObjectInfo<?> column = condition.columns.get(0);
+			QueryMathOperatorStructIF operator = condition.mathOperators.get(0);
+			String table = neededTables.get(condition.tables.get(0)).getTOStructure().getRepresentedTable().toString();
+			boolean ignoreCase = (column.getMetaData().isText() && caseStrategy != null && caseStrategy != CaseInsensitiveStrategy.COLLATION);
+			
+			if (ignoreCase && caseStrategy == CaseInsensitiveStrategy.ILIKE && isLikeOperator(operator)) {
+				sb.append(table).append(".").append(column.toString());
+				sb.append(operator == QueryMathOperatorStruct.ncontains || operator == QueryMathOperatorStruct.nlike ? " not ilike " : " ilike ");
+			} else if (ignoreCase) {
+				sb.append("LOWER(").append(table).append(".").append(column.toString()).append(")");
+				sb.append(operator.sql());
+			} else {
+				sb.append(table).append(".").append(column.toString());
+				sb.append(operator.sql());
+			}
 			
 			/*
-			 * Whether we apply the NOT operator or not at any given time.
+			 * To protect against SQL injection, the values are bound to the '?'
+			 * of a PreparedStatement.
+			 * 
+			 * We need to treat "in" and "nin" differently because they
+			 * contain multiple values.
 			 */
-			boolean notModifier = false;
-			
+			if (isInOperator(operator)) {
+				int count = getInValues(condition.values.get(0)).size();
+				sb.append("(");
+				for (int i = 0; i < count; i++) {
+					if (i > 0) {
+						sb.append(",");
+					}
+					sb.append("?");
+				}
+				sb.append(")");
+				
+			} else {
+				sb.append("?");
+			}
+		}
+		
+		/**
+		 * Binds the values of the conditions to the '?' appended by appendSQLCondition(),
+		 * each one with the type of its column (see TOColumnMetaDataIF.bind()): a value
+		 * given as a String for a column of another type is parsed first. The patterns of
+		 * like and contains are always bound as strings.
+		 * @param ps
+		 * @param parameterIndex The index of the first '?' of the conditions, 1-based
+		 * @param caseStrategy The one given to appendSQLCondition()
+		 * @return The index of the parameter following the conditions
+		 * @throws SQLException If a value can't be parsed with the type of its column
+		 */
+		public int bindSQLValues(PreparedStatement ps, int parameterIndex, CaseInsensitiveStrategy caseStrategy) throws SQLException {
 			/*
-			 * Stack of notModifier states to make sure the parentheses
-			 * are handled correctly (upon opening and closing a parenthesis,
-			 * we add and pop the notModifier state).
+			 * The tree keeps the conditions in the order of the elements,
+			 * so the values are bound without building it.
 			 */
-			Stack<Boolean> notModifierStack = new Stack<Boolean>();
-			
-			while (index < elements.size()) {
-				QueryElementStruct next = elements.get(index);
+			for (QueryElementStruct element : elements) {
+				if (!(element instanceof QueryConditionStruct)) {
+					continue;
+				}
 				
-				if (next == QueryOperatorStruct.NOT) {
-					/*
-					 * appliedNoOp is reversed to handle both cases;
-					 * whether it's a new NOT, and the case NOT NOT.
-					 */
-					elements.remove(index);
-					notModifier = !notModifier;
-					appliedNotOp = !appliedNotOp;
-					/*
-					 * We do not modify the index since we removed an element.
-					 */
+				QueryConditionStruct condition = (QueryConditionStruct) element;
+				for (int i = 0; i < condition.columns.size(); i++) {
+					TOColumnMetaDataIF<?> metaData = condition.columns.get(i).getMetaData();
+					QueryMathOperatorStructIF operator = condition.mathOperators.get(i);
+					boolean lowerCase = (metaData.isText() && caseStrategy != null && caseStrategy != CaseInsensitiveStrategy.COLLATION);
 					
-				} else if (next == QueryOperatorStruct.PARENTHESIS_OPEN) {
-					/*
-					 * We store the notModifier state upon entering a
-					 * parenthesis. If the NOT operator is new, we only apply
-					 * it on the elements contained in this specific block...
-					 * if it isn't new we have to keep applying it after on the
-					 * elements after the closing parenthesis.
-					 */
-					if (!appliedNotOp) {
-						notModifierStack.add(!notModifier); // !notModifier
-						appliedNotOp = true;
+					if (isInOperator(operator)) {
+						for (Object value : getInValues(condition.values.get(i))) {
+							bindSQLValue(ps, parameterIndex++, metaData, operator, value, lowerCase);
+						}
 					} else {
-						notModifierStack.add(notModifier);  // notModifier
+						bindSQLValue(ps, parameterIndex++, metaData, operator, condition.values.get(i), lowerCase);
 					}
-					index++;
-					
-				} else if (next == QueryOperatorStruct.PARENTHESIS_CLOSE) {
-					notModifier = notModifierStack.pop();
-					index++;
-					
-				} else if (next == QueryOperatorStruct.AND) {
-					if (notModifier) {
-						elements.set(index, QueryOperatorStruct.OR);
-					}
-					index++;
-					
-				} else if (next == QueryOperatorStruct.OR) {
-					if (notModifier) {
-						elements.set(index, QueryOperatorStruct.AND);
-					}
-					index++;
-					
-				} else if (next instanceof QueryConditionStruct) {
-					if (notModifier) {
-						((QueryConditionStruct)next).applyNot();
-					}
-					
-					if (!appliedNotOp) {
-						/*
-						 * The NOT operator is only applied on this condition.
-						 */
-						notModifier = !notModifier;
-						appliedNotOp = true;
-					}
-					index++;
-					
-				} else {
-					throw new UnsupportedOperationException();
 				}
 			}
+			return parameterIndex;
 		}
 		
-		/*
-		 * Returns the index of the (first) deepest opening parenthesis.
-		 * Returns -1 if there are no parentheses.
-		 */
-		private int getIndexDeepestParenthesisLevel() {
-			int currentParenthesis = 0;
-			int maxParenthesis = 0;
-			int indexMaxParenthesis = -1;
+		@SuppressWarnings("unchecked")
+		private static void bindSQLValue(PreparedStatement ps, int parameterIndex, TOColumnMetaDataIF<?> metaData,
+				QueryMathOperatorStructIF operator, Object value, boolean lowerCase) throws SQLException {
+			if (lowerCase && value instanceof String) {
+				value = ((String) value).toLowerCase();
+			}
 			
-			for (int i = 0; i < elements.size(); i++) {
-				QueryElementStruct element = elements.get(i);
-				
-				if (element == QueryOperatorStruct.PARENTHESIS_OPEN) {
-					currentParenthesis++;
-					if (currentParenthesis > maxParenthesis) {
-						maxParenthesis = currentParenthesis;
-						indexMaxParenthesis = i;
-					}
-				} else if (element == QueryOperatorStruct.PARENTHESIS_CLOSE) {
-					currentParenthesis--;
-				}
+			if (isLikeOperator(operator)) {
+				ps.setString(parameterIndex, value == null ? null : value.toString());
+				return;
 			}
 			
-			return indexMaxParenthesis;
+			Object typedValue = value;
+			if (value instanceof String && !metaData.isText()) {
+				typedValue = metaData.parse(value);
+				if (typedValue == null) {
+					throw new SQLException("Invalid value for " + metaData.getSQLDeclarationString() + ": " + value);
+				}
+			}
+			((TOColumnMetaDataIF<Object>) metaData).bind(ps, parameterIndex, typedValue);
 		}
 		
-		/*
-		 * Merges all conditions that are directly separated by an AND operator.
+		/**
+		 * Returns what the SQL of the query depends on, without its values: the selected
+		 * fields, the tables, the columns, operators and number of <i>in</i> values of
+		 * the conditions, with the operators between them, the ORDER BY and the limit. Two queries with the same
+		 * shape give the same SQL and differ only by the values bound, so the shape is
+		 * the key of the SQL cached by the DAO.
+		 * @return A new list, that can be extended with the other parameters of the SQL
 		 */
-		private void mergeAndOperators() {
-			int index = 0;
+		public List<Object> getSQLShape() {
+			List<Object> shape = new ArrayList<Object>(2 + 4 * elements.size());
 			
-			while (index < elements.size() - 2) {
-				QueryElementStruct condition1 = elements.get(index);
-				QueryElementStruct operator   = elements.get(index+1);
-				QueryElementStruct condition2 = elements.get(index+2);
+			List<Object> fields = new ArrayList<Object>(2 * selectedFields.size());
+			for (TblColStruct field : selectedFields) {
+				fields.add(field.table.getClass());
+				fields.add(field.col);
+			}
+			shape.add(fields);
+			shape.add(new HashSet<Class<? extends TransferableObject>>(neededTables.keySet()));
+			
+			List<Object> orderBy = new ArrayList<Object>(4 * orderings.size() + 2);
+			for (QueryOrderStruct ordering : orderings) {
+				orderBy.add(ordering.table);
+				orderBy.add(ordering.column);
+				orderBy.add(ordering.direction);
+				orderBy.add(ordering.nullsFirst);
+			}
+			orderBy.add(limit);
+			orderBy.add(offset);
+			shape.add(orderBy);
+			
+			for (QueryElementStruct element : elements) {
+				if (!(element instanceof QueryConditionStruct)) {
+					shape.add(element);
+					continue;
+				}
 				
-				if (condition1 instanceof QueryConditionStruct && operator == QueryOperatorStruct.AND && condition2 instanceof QueryConditionStruct) {
-					((QueryConditionStruct)condition1).merge((QueryConditionStruct)condition2);
-					elements.remove(index+1); // AND
-					elements.remove(index+1); // condition2
-					/*
-					 * We do not modify the index since the next one might be a merge again.
-					 */
-				} else {
-					index++;
+				QueryConditionStruct condition = (QueryConditionStruct) element;
+				for (int i = 0; i < condition.columns.size(); i++) {
+					shape.add(condition.tables.get(i));
+					shape.add(condition.columns.get(i));
+					shape.add(condition.mathOperators.get(i));
+					shape.add(isInOperator(condition.mathOperators.get(i)) ? getInValues(condition.values.get(i)).size() : -1);
 				}
 			}
+			return shape;
+		}
+		
+		private static boolean isLikeOperator(QueryMathOperatorStructIF operator) {
+			return operator == QueryMathOperatorStruct.like || operator == QueryMathOperatorStruct.nlike
+					|| operator == QueryMathOperatorStruct.contains || operator == QueryMathOperatorStruct.ncontains;
+		}
+		
+		private static boolean isInOperator(QueryMathOperatorStructIF operator) {
+			return operator == QueryMathOperatorStruct.in || operator == QueryMathOperatorStruct.nin;
 		}
 		
 		/*
-		 * This transforms the deepest level of parentheses towards a DNF-friendly form.
-		 * Within the parentheses there are conditions separated by ORs (no ANDs, no NOTs).
-		 * We deal with one single case at a time, so a more complicated case such as
-		 * (...) and (...) and (...) will require more than one method call.
+		 * The values of an in condition: a collection, an array, or a string of
+		 * values separated by commas.
+		 */
+		private static List<?> getInValues(Object value) {
+			if (value instanceof Collection<?>) {
+				return new ArrayList<Object>((Collection<?>) value);
+			} else if (value instanceof Object[]) {
+				return Arrays.asList((Object[]) value);
+			}
+			
+			String[] values = String.valueOf(value).split(",");
+			for (int i = 0; i < values.length; i++) {
+				values[i] = values[i].trim();
+			}
+			return Arrays.asList(values);
+		}
+		
+		/**
+		 * Returns the elements in an equivalent Disjunctive Normal Form to
+		 * facilitate building the query. The list returned will contain only
+		 * QueryConditionStruct elements, which are logically disjoint.
 		 * 
-		 * We can be into these cases:
-		 *  - AND in front of the parentheses: We merge this AND with each
-		 *    element of the parentheses, the element is always a simple condition.
-		 *  - AND after the parentheses: We either have a simple condition after,
-		 *    or we might have another opening parentheses... two separate cases.
-		 *  - Nothing or OR operators in front and behind the parentheses:
-		 *    we can simply remove these parentheses.
+		 * The DNF is computed from getQueryExpression(), so it has the same
+		 * precedence (AND over OR) as the SQL queries. The OR junctions are
+		 * flattened and the AND junctions are distributed over them, merging the
+		 * conditions of each conjunction. The elements of the query are not modified.
 		 * 
-		 * This method guarantees progress whenever it is called (and parentheses
-		 * are present), so several calls to this method will eventually remove
-		 * all parentheses from the expression.
+		 * The DNF can be exponentially larger than the query: (a OR b) AND (c OR d)
+		 * AND (e OR f) gives 8 conjunctions. The SQL queries use getQueryExpression(),
+		 * this form is kept for the XML queries, whose operators can't be nested.
+		 * 
+		 *  @return Will return null if there are no elements.
+		 *          Will throw an exception if the query is not in a valid state.
 		 */
-		private void mergeParenthesis(int indexDeepest) {
-			/*
-			 * We start by finding the closing parenthesis.
-			 */
-			int indexClosing = indexDeepest + 1;
-			while (elements.get(indexClosing) != QueryOperatorStruct.PARENTHESIS_CLOSE) {
-				indexClosing++;
+		public List<QueryConditionStruct> getDNFQueryElements() throws IllegalStateException {
+			QueryExpressionStruct expression = getQueryExpression();
+			if (expression == null) {
+				return null;
+			}
+			return toDNF(expression);
+		}
+		
+		/*
+		 * The conjunctions of an expression, each one a new QueryConditionStruct.
+		 */
+		private static List<QueryConditionStruct> toDNF(QueryExpressionStruct expression) {
+			if (expression instanceof QueryConditionStruct) {
+				List<QueryConditionStruct> dnf = new ArrayList<QueryConditionStruct>(1);
+				dnf.add(new QueryConditionStruct((QueryConditionStruct) expression));
+				return dnf;
 			}
 			
-			if (indexDeepest != 0 && elements.get(indexDeepest) == QueryOperatorStruct.AND) {
-				/*
-				 * We merge on the left side with a single condition.
-				 * Form: cond AND (...)
-				 */
-				
-				/*
-				 * We remove the element to merge from the list and re-adjust the indexes.
-				 */
-				QueryConditionStruct mergingElement = (QueryConditionStruct) elements.get(indexDeepest - 2);
-				elements.remove(indexDeepest-2);
-				elements.remove(indexDeepest-1);
-				indexClosing -= 2;
-				int indexElement = indexDeepest - 1;
-				
-				while (indexElement < indexClosing) {
-					QueryElementStruct element = elements.get(indexElement);
-					
-					if (element instanceof QueryConditionStruct) {
-						((QueryConditionStruct) element).merge(mergingElement);
-						indexElement += 2;
-					} else {
-						throw new AssertionError();
-					}
-				}
-				
-			} else if (indexClosing < elements.size() - 1 && elements.get(indexClosing+1) == QueryOperatorStruct.AND) {
-				/*
-				 * We merge on the right side with either a condition or parentheses.
-				 */
-				
-				if (elements.get(indexClosing + 2) instanceof QueryConditionStruct) {
-					/*
-					 * Form: (...) AND cond
-					 */
-					
-					/*
-					 * We remove the element to merge from the list.
-					 */
-					QueryConditionStruct mergingElement = (QueryConditionStruct) elements.get(indexClosing + 2);
-					elements.remove(indexClosing+1);
-					elements.remove(indexClosing+1);
-					int indexElement = indexDeepest + 1;
-					
-					while (indexElement < indexClosing) {
-						QueryElementStruct element = elements.get(indexElement);
-						
-						if (element instanceof QueryConditionStruct) {
-							((QueryConditionStruct) element).merge(mergingElement);
-							indexElement += 2; // We can step over the operators
-						} else {
-							throw new AssertionError();
-						}
-					}
-					
+			QueryJunctionStruct junction = (QueryJunctionStruct) expression;
+			List<QueryConditionStruct> dnf = null;
+			for (QueryExpressionStruct operand : junction.getOperands()) {
+				List<QueryConditionStruct> operandDNF = toDNF(operand);
+				if (dnf == null) {
+					dnf = operandDNF;
+				} else if (junction.getOperator() == QueryOperatorStruct.OR) {
+					dnf.addAll(operandDNF);
 				} else {
-					/*
-					 * Form: (...) AND (...)
-					 */
-					
-					/*
-					 * We get the list of elements requiring an update (first parenthesis).
-					 */
-					int indexElement = indexDeepest + 1;
-					QueryElementStruct element;
-					
-					List<QueryConditionStruct> updatingConditions = new LinkedList<QueryConditionStruct>();
-					element = elements.get(indexElement);
-					while (element != QueryOperatorStruct.PARENTHESIS_CLOSE) {
-						if (element instanceof QueryConditionStruct) {
-							updatingConditions.add((QueryConditionStruct) element);
+					// (a OR b) AND (c OR d) = (a AND c) OR (a AND d) OR (b AND c) OR (b AND d)
+					List<QueryConditionStruct> product = new ArrayList<QueryConditionStruct>(dnf.size() * operandDNF.size());
+					for (QueryConditionStruct left : dnf) {
+						for (QueryConditionStruct right : operandDNF) {
+							QueryConditionStruct conjunction = new QueryConditionStruct(left);
+							conjunction.merge(right);
+							product.add(conjunction);
 						}
-						elements.remove(indexElement);
-						element = elements.get(indexElement);
 					}
-					
-					elements.remove(indexElement); // closing parenthesis
-					elements.remove(indexElement); // AND operator
-					elements.remove(indexElement); // opening parenthesis
-					
-					/*
-					 * Now we get the list of elements in the second parentheses.
-					 */
-					List<QueryConditionStruct> mergingConditions = new LinkedList<QueryConditionStruct>();
-					element = elements.get(indexElement);
-					while (element != QueryOperatorStruct.PARENTHESIS_CLOSE) {
-						if (element instanceof QueryConditionStruct) {
-							mergingConditions.add((QueryConditionStruct)element);
-						}
-						elements.remove(indexElement);
-						element = elements.get(indexElement);
-					}
-					
-					/*
-					 * We merge the elements of both parentheses together.
-					 * The result will give (size1 * size2) merged elements.
-					 */
-					for (QueryConditionStruct updatingCondition: updatingConditions) {
-						for (QueryConditionStruct mergingCondition: mergingConditions) {
-							QueryConditionStruct newCondition = new QueryConditionStruct(updatingCondition);
-							newCondition.merge(mergingCondition);
-							
-							elements.add(indexElement++, newCondition);
-							elements.add(indexElement++, QueryOperatorStruct.OR);
-						}
-					}
-					
-					/*
-					 * An extra OR has been added at the end... we simply remove it.
-					 */
-					elements.remove(indexElement - 1);
-					
+					dnf = product;
 				}
-				
-			} else {
-				/*
-				 * In this case the parentheses aren't linked by an AND operator,
-				 * so we can simply remove the parentheses.
-				 */
-				
-				elements.remove(indexClosing);
-				elements.remove(indexDeepest);
 			}
+			return dnf;
 		}
 		
 		/**
 		 * We implement equals to indicate whether a query is identical to another.
 		 * 
-		 * WARNING! If getDNFQuery() has been called, the structure will have been
-		 * modified... so you will need to call getDNFQuery() on both instances to
-		 * ensure a valid result. This method will not call implicitly to avoid
-		 * getting an IllegalOperatorException thrown.
+		 * The elements are compared as they were added, so two queries built
+		 * differently are not equal even if they are logically equivalent.
 		 */
 		@Override
 		public boolean equals(Object o) {
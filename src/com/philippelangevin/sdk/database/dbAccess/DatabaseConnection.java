@@ -26,8 +26,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import com.philippelangevin.sdk.database.connector.DatabaseConnectorIF;
+import com.philippelangevin.sdk.database.connector.SQLDialect;
 
 public abstract class DatabaseConnection {
 	
@@ -38,6 +42,16 @@ public abstract class DatabaseConnection {
 	
 	protected DatabaseConnectorIF dbConnector = null;
 	
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+	private final PreparedStatementCache statementCache = new PreparedStatementCache(DEFAULT_STATEMENT_CACHE_SIZE);
+	
+	/*
+	 * The statements of prepareCachedStatement() that the cache didn't keep, closed by releaseCachedStatement()
+	 */
+	private final Set<PreparedStatement> uncachedStatements = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<PreparedStatement, Boolean>()));
+	
+	private Boolean upsertSupported = null;
+	
 	private byte[] m_saveAsFilebuf = null;
 	
 	public DatabaseConnection() {
@@ -281,6 +295,67 @@ public abstract class DatabaseConnection {
 	public PreparedStatement prepareStatement(StringBuilder sqlStatement) throws SQLException {
 		return prepareStatement(sqlStatement.toString());
 	}
+	
+	/**
+	 * Returns a prepared statement from this connection's statement cache, preparing
+	 * it only if this SQL string is not cached yet. The parameters of the returned
+	 * statement are cleared. The statement must not be closed, but given back with
+	 * {@link #releaseCachedStatement(PreparedStatement)} once its ResultSet is closed.
+	 * @param sqlStatement
+	 * @return The prepared statement
+	 * @throws SQLException
+	 */
+	public PreparedStatement prepareCachedStatement(String sqlStatement) throws SQLException {
+		PreparedStatement ps = statementCache.get(sqlStatement);
+		if (ps == null) {
+			ps = prepareStatement(sqlStatement);
+			if (!statementCache.put(sqlStatement, ps)) {
+				uncachedStatements.add(ps);
+			}
+		}
+		return ps;
+	}
+	
+	/**
+	 * Gives back a statement of {@link #prepareCachedStatement(String)}, which is closed
+	 * if the cache didn't keep it (i.e. the cache is disabled).
+	 * @param ps
+	 */
+	public void releaseCachedStatement(PreparedStatement ps) {
+		if (uncachedStatements.remove(ps)) {
+			try {
+				ps.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Removes a statement from the cache, i.e. after its execution failed, so the next
+	 * call of {@link #prepareCachedStatement(String)} prepares it again.
+	 */
+	public void evictCachedStatement(String sqlStatement) {
+		statementCache.remove(sqlStatement);
+	}
+	
+	/**
+	 * Sets the number of prepared statements kept open by this connection, 0 to disable the cache.
+	 */
+	public void setStatementCacheSize(int size) {
+		statementCache.setCapacity(size);
+	}
+	
+	public PreparedStatementCache getStatementCache() {
+		return statementCache;
+	}
+	
+	/**
+	 * Closes the cached statements; must be called before closing the connection.
+	 */
+	protected void closeStatementCache() {
+		statementCache.clear();
+	}
 
 	/**
 	 * Permet de uploader un fichier binaire dans un champ de la base de données.
@@ -330,4 +405,23 @@ public abstract class DatabaseConnection {
 		return dbConnector.isReturningSupported();
 	}
 	
+	/**
+	 * Will throw NullPointerException if the connector is not set.
+	 */
+	public SQLDialect getSQLDialect() {
+		return dbConnector.getSQLDialect();
+	}
+	
+	/**
+	 * Returns whether the database server supports the upsert request of its dialect.
+	 * The server version is only checked once.
+	 * @throws SQLException
+	 */
+	public boolean isUpsertSupported() throws SQLException {
+		if (upsertSupported == null) {
+			upsertSupported = getSQLDialect().isUpsertSupported(dbConnection.getMetaData());
+		}
+		return upsertSupported;
+	}
+	
 }
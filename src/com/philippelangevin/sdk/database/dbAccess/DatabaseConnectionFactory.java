@@ -66,4 +66,38 @@ public class DatabaseConnectionFactory {
 		
 		return null ;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Builds a pool of connections that can be shared by several threads.
+	 * @see DatabaseConnectionPool
+	 */
+	public static DatabaseConnectionPool buildConnectionPool(
+			DatabaseDefinitionIF databaseDefinition,
+			String user,
+			String password,
+			ConnectionModeEnum connectionMode) {
+		DatabaseConnectorIF dbConnector = DatabaseConnectorFactory.buildDBConnector( databaseDefinition );
+		return new DatabaseConnectionPool( dbConnector, user, password, connectionMode );
+	}
+	
+	public static DatabaseConnectionPool buildConnectionPool(
+			DatabaseDefinitionIF databaseDefinition,
+			String user,
+			String password,
+			ConnectionModeEnum connectionMode,
+			int minSize,
+			int maxSize) {
+		DatabaseConnectorIF dbConnector = DatabaseConnectorFactory.buildDBConnector( databaseDefinition );
+		return new DatabaseConnectionPool( dbConnector, user, password, connectionMode, minSize, maxSize );
+	}
+	
+	public static DatabaseConnectionPool buildConnectionPool(
+			DatabaseConnectorIF dbConnector,
+			String user,
+			String password,
+			ConnectionModeEnum connectionMode,
+			int minSize,
+			int maxSize) {
+		return new DatabaseConnectionPool( dbConnector, user, password, connectionMode, minSize, maxSize );
+	}
+}
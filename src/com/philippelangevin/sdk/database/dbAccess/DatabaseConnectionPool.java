@@ -0,0 +1,468 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.philippelangevin.sdk.database.connector.DatabaseConnectorIF;
+
+/**
+ * <p> Title: {@link DatabaseConnectionPool} <p>
+ * <p> Description: A bounded, thread-safe pool of {@link DatabaseConnection}.
+ * Connections are opened through {@link DatabaseConnectionFactory} and are kept
+ * in the {@link ConnectionModeEnum} of the pool. A borrowed connection must always
+ * be given back with {@link #releaseConnection(DatabaseConnection)}, usually in a
+ * finally block.</p>
+ * <p> The pool supports a minimum and a maximum size, the eviction of connections
+ * that have been idle for too long, validation upon borrowing, a borrowing timeout
+ * and the detection of connections that are kept borrowed for too long (leaks).</p>
+ */
+public class DatabaseConnectionPool {
+
+	public static final int DEFAULT_MIN_SIZE = 1;
+	public static final int DEFAULT_MAX_SIZE = 8;
+	public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 30 * 1000;
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+	public static final long DEFAULT_MAINTENANCE_INTERVAL_MILLIS = 30 * 1000;
+
+	/*
+	 * Keeps track of a physical connection and of its usage.
+	 */
+	private static class PooledConnection {
+		private final DatabaseConnection connection;
+		private final int generation;
+		private long lastUsedTime = System.currentTimeMillis();
+		private long borrowTime = 0;
+		private Throwable borrowStackTrace = null;
+		private boolean leakReported = false;
+
+		public PooledConnection(DatabaseConnection connection, int generation) {
+			this.connection = connection;
+			this.generation = generation;
+		}
+	}
+
+	private final DatabaseConnectorIF dbConnector;
+	private final String userName;
+	private final String password;
+	private final ConnectionModeEnum connectionMode;
+
+	private final int minSize;
+	private final int maxSize;
+	private long borrowTimeoutMillis = DEFAULT_BORROW_TIMEOUT_MILLIS;
+	private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	private long leakDetectionThresholdMillis = 0;
+	private boolean validateOnBorrow = true;
+
+	/*
+	 * The semaphore bounds the number of borrowed connections, the idle and borrowed
+	 * connections are protected by the pool's monitor.
+	 */
+	private final Semaphore permits;
+	private final Deque<PooledConnection> idleConnections = new ArrayDeque<PooledConnection>();
+	private final Map<DatabaseConnection, PooledConnection> borrowedConnections = new IdentityHashMap<DatabaseConnection, PooledConnection>();
+	private int generation = 0;
+	private boolean closed = false;
+	private Timer maintenanceTimer = null;
+
+	/**
+	 * Creates a pool with the default minimum and maximum sizes.
+	 * @param dbConnector The connector used to open the physical connections.
+	 * @param userName
+	 * @param password
+	 * @param connectionMode The mode in which every connection of the pool is kept.
+	 */
+	public DatabaseConnectionPool(DatabaseConnectorIF dbConnector, String userName, String password, ConnectionModeEnum connectionMode) {
+		this(dbConnector, userName, password, connectionMode, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Creates a pool; connections are opened on demand.
+	 * @param dbConnector The connector used to open the physical connections.
+	 * @param userName
+	 * @param password
+	 * @param connectionMode The mode in which every connection of the pool is kept.
+	 * @param minSize Number of opened connections that are never evicted for being idle.
+	 * @param maxSize Maximum number of connections borrowed at the same time.
+	 */
+	public DatabaseConnectionPool(DatabaseConnectorIF dbConnector, String userName, String password, ConnectionModeEnum connectionMode,
+			int minSize, int maxSize) {
+		if (dbConnector == null || connectionMode == null) {
+			throw new NullPointerException();
+		} else if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		}
+
+		this.dbConnector = dbConnector;
+		this.userName = userName;
+		this.password = password;
+		this.connectionMode = connectionMode;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.permits = new Semaphore(maxSize, true);
+
+		setMaintenanceInterval(DEFAULT_MAINTENANCE_INTERVAL_MILLIS);
+	}
+
+	public ConnectionModeEnum getConnectionMode() {
+		return connectionMode;
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets how long borrowConnection() waits for a connection when all of them are in use.
+	 * @param borrowTimeoutMillis
+	 */
+	public void setBorrowTimeout(long borrowTimeoutMillis) {
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+	}
+
+	/**
+	 * Sets how long a connection can stay idle before being closed (the pool never
+	 * goes under its minimum size). Use 0 to never evict idle connections.
+	 * @param idleTimeoutMillis
+	 */
+	public void setIdleTimeout(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	/**
+	 * Sets after how long a borrowed connection is reported as a possible leak, along with
+	 * the stack trace of the code that borrowed it. Use 0 to disable the leak detection.
+	 * @param leakDetectionThresholdMillis
+	 */
+	public void setLeakDetectionThreshold(long leakDetectionThresholdMillis) {
+		this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+	}
+
+	/**
+	 * Sets whether an idle connection is tested before being handed out.
+	 * @param validateOnBorrow
+	 */
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	/**
+	 * Sets the interval at which idle connections are evicted and leaks are detected.
+	 * Use 0 to stop the maintenance.
+	 * @param intervalMillis
+	 */
+	public synchronized void setMaintenanceInterval(long intervalMillis) {
+		if (maintenanceTimer != null) {
+			maintenanceTimer.cancel();
+			maintenanceTimer = null;
+		}
+
+		if (intervalMillis > 0 && !closed) {
+			maintenanceTimer = new Timer(getClass().getSimpleName() + "-maintenance", true);
+			maintenanceTimer.schedule(new TimerTask() {
+				@Override
+				public void run() {
+					evictIdleConnections();
+					detectLeaks();
+				}
+			}, intervalMillis, intervalMillis);
+		}
+	}
+
+	/**
+	 * Borrows a connection from the pool, opening a new one if none is idle.
+	 * The connection must be given back with {@link #releaseConnection(DatabaseConnection)}.
+	 * @return An open connection in the pool's connection mode.
+	 * @throws SQLException Thrown if the pool is closed, if no connection could be obtained
+	 *                      within the borrowing timeout or if a connection cannot be opened.
+	 */
+	public DatabaseConnection borrowConnection() throws SQLException {
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out after " + borrowTimeoutMillis + "ms while waiting for a connection (max=" + maxSize + ").");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection.");
+		}
+
+		try {
+			PooledConnection pooled = pollValidIdleConnection();
+			if (pooled == null) {
+				pooled = openPooledConnection();
+			}
+
+			synchronized (this) {
+				if (closed) {
+					closeQuietly(pooled.connection);
+					throw new SQLException("The connection pool is closed.");
+				}
+
+				pooled.borrowTime = System.currentTimeMillis();
+				pooled.leakReported = false;
+				if (leakDetectionThresholdMillis > 0) {
+					pooled.borrowStackTrace = new Throwable("Connection borrowed by " + Thread.currentThread().getName());
+				}
+				borrowedConnections.put(pooled.connection, pooled);
+			}
+			return pooled.connection;
+
+		} catch (SQLException e) {
+			permits.release();
+			throw e;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives back a connection obtained with {@link #borrowConnection()}. A connection
+	 * left in a transaction is rolled back, a connection that cannot be restored in the
+	 * pool's connection mode is closed.
+	 * @param connection
+	 */
+	public void releaseConnection(DatabaseConnection connection) {
+		if (connection == null) {
+			return;
+		}
+
+		PooledConnection pooled;
+		boolean keep;
+		synchronized (this) {
+			pooled = borrowedConnections.remove(connection);
+			if (pooled == null) {
+				System.err.println("DatabaseConnectionPool.releaseConnection() - This connection does not belong to the pool or was already released.");
+				Thread.dumpStack();
+				return;
+			}
+			keep = !closed && pooled.generation == generation;
+		}
+
+		try {
+			if (keep) {
+				keep = restoreConnection(connection);
+			}
+
+			if (keep) {
+				synchronized (this) {
+					pooled.lastUsedTime = System.currentTimeMillis();
+					pooled.borrowStackTrace = null;
+					idleConnections.addFirst(pooled);
+				}
+			} else {
+				closeQuietly(connection);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Gives back a connection that should not be reused (i.e. after a connection failure).
+	 * The connection is closed and a new one will be opened on demand.
+	 * @param connection
+	 */
+	public void invalidateConnection(DatabaseConnection connection) {
+		if (connection == null) {
+			return;
+		}
+
+		PooledConnection pooled;
+		synchronized (this) {
+			pooled = borrowedConnections.remove(connection);
+		}
+
+		closeQuietly(connection);
+		if (pooled != null) {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Closes all idle connections; the borrowed connections will be closed upon being released.
+	 * The next borrowed connections will be newly opened ones.
+	 */
+	public void reset() {
+		Deque<PooledConnection> toClose;
+		synchronized (this) {
+			generation++;
+			toClose = new ArrayDeque<PooledConnection>(idleConnections);
+			idleConnections.clear();
+		}
+
+		for (PooledConnection pooled: toClose) {
+			closeQuietly(pooled.connection);
+		}
+	}
+
+	/**
+	 * Closes the pool and all its idle connections. Borrowed connections are closed
+	 * upon being released and no other connection can be borrowed afterwards.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			if (maintenanceTimer != null) {
+				maintenanceTimer.cancel();
+				maintenanceTimer = null;
+			}
+		}
+		reset();
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return The number of connections currently borrowed.
+	 */
+	public synchronized int getActiveCount() {
+		return borrowedConnections.size();
+	}
+
+	/**
+	 * @return The number of opened connections waiting to be borrowed.
+	 */
+	public synchronized int getIdleCount() {
+		return idleConnections.size();
+	}
+
+	/*
+	 * Returns the most recently used idle connection that is still valid, closing the invalid ones.
+	 */
+	private PooledConnection pollValidIdleConnection() {
+		while (true) {
+			PooledConnection pooled;
+			synchronized (this) {
+				pooled = idleConnections.pollFirst();
+			}
+
+			if (pooled == null) {
+				return null;
+			} else if (!validateOnBorrow || pooled.connection.isConnectionAlive(true)) {
+				return pooled;
+			} else {
+				closeQuietly(pooled.connection);
+			}
+		}
+	}
+
+	private PooledConnection openPooledConnection() throws SQLException {
+		int currentGeneration;
+		synchronized (this) {
+			currentGeneration = generation;
+		}
+
+		DatabaseConnection connection = DatabaseConnectionFactory.buildConnection(dbConnector, userName, password);
+		if (connection == null) {
+			throw new SQLException("No DatabaseConnection available for " + dbConnector.getClass().getSimpleName());
+		} else if (!connection.openConnection()) {
+			throw new SQLException("Unable to open a connection to " + dbConnector.getConnectionString());
+		}
+
+		try {
+			AbstractDatabaseDAO.applyConnectionMode(connection, connectionMode);
+		} catch (SQLException e) {
+			closeQuietly(connection);
+			throw e;
+		}
+
+		return new PooledConnection(connection, currentGeneration);
+	}
+
+	/*
+	 * Brings back a released connection in the pool's connection mode.
+	 * Returns false if the connection should be closed instead.
+	 */
+	private boolean restoreConnection(DatabaseConnection connection) {
+		try {
+			if (connection.isClosed()) {
+				return false;
+			}
+
+			if (!connection.dbConnection.getAutoCommit()) {
+				connection.dbConnection.rollback();
+				AbstractDatabaseDAO.applyConnectionMode(connection, connectionMode);
+			}
+			return true;
+
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/*
+	 * Closes the connections idle for too long, without going under the minimum size.
+	 */
+	private void evictIdleConnections() {
+		if (idleTimeoutMillis <= 0) {
+			return;
+		}
+
+		Deque<PooledConnection> toClose = new ArrayDeque<PooledConnection>();
+		long now = System.currentTimeMillis();
+
+		synchronized (this) {
+			int openedConnections = idleConnections.size() + borrowedConnections.size();
+
+			// The least recently used connections are at the end of the deque
+			Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+			while (iterator.hasNext() && openedConnections > minSize) {
+				PooledConnection pooled = iterator.next();
+				if (now - pooled.lastUsedTime >= idleTimeoutMillis) {
+					iterator.remove();
+					toClose.add(pooled);
+					openedConnections--;
+				}
+			}
+		}
+
+		for (PooledConnection pooled: toClose) {
+			closeQuietly(pooled.connection);
+		}
+	}
+
+	/*
+	 * Reports (once) the connections borrowed for longer than the leak detection threshold.
+	 */
+	private void detectLeaks() {
+		if (leakDetectionThresholdMillis <= 0) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			for (PooledConnection pooled: borrowedConnections.values()) {
+				if (!pooled.leakReported && now - pooled.borrowTime >= leakDetectionThresholdMillis) {
+					pooled.leakReported = true;
+					System.err.println("DatabaseConnectionPool - Possible connection leak, connection borrowed for " + (now - pooled.borrowTime) + "ms:");
+					if (pooled.borrowStackTrace != null) {
+						pooled.borrowStackTrace.printStackTrace();
+					}
+				}
+			}
+		}
+	}
+
+	private static void closeQuietly(DatabaseConnection connection) {
+		try {
+			connection.closeConnection();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+}
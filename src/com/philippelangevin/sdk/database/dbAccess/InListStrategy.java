@@ -0,0 +1,31 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import com.philippelangevin.sdk.database.connector.SQLDialect;
+
+/**
+ * <p> Title: {@link InListStrategy} <p>
+ * <p> Description: How the values of an <i>in</i> or <i>not in</i> filter are sent to
+ * the database. Whatever the strategy, a list with more values than the database accepts
+ * parameters (see {@link SQLDialect#getMaxParameters()}) is split in several requests
+ * whose results are merged.</p>
+ */
+public enum InListStrategy {
+	/**
+	 * One parameter per value: each list size gives a different request.
+	 */
+	EXPANDED,
+
+	/**
+	 * The number of parameters is rounded up to a bucket size ({@link #PADDING_BUCKETS}),
+	 * repeating the last value, so only a few different requests are ever prepared.
+	 */
+	PADDED,
+
+	/**
+	 * A single array parameter (i.e. column = ANY(?) on PostgreSQL), when the database and
+	 * the column type allow it; otherwise {@link #PADDED} is used.
+	 */
+	ARRAY;
+
+	static final int[] PADDING_BUCKETS = {16, 64, 256, 1024};
+}
@@ -77,6 +77,7 @@ public class MySQLDatabaseConnection extends DatabaseConnection {
 	public void closeConnection() {
 		try {
 			if( dbConnection != null ) {
+				closeStatementCache();
 				dbConnection.close();
 				dbConnection = null;
 			}
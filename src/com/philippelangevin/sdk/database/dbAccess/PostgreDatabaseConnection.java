@@ -76,6 +76,7 @@ public class PostgreDatabaseConnection extends DatabaseConnection {
 	public void closeConnection() {
 		try {
 			if( dbConnection != null ) {
+				closeStatementCache();
 				dbConnection.close();
 				dbConnection = null;
 			}
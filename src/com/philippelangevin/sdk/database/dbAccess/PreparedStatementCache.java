@@ -0,0 +1,165 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p> Title: {@link PreparedStatementCache} <p>
+ * <p> Description: A least recently used cache of {@link PreparedStatement} keyed by
+ * their SQL string. Each {@link DatabaseConnection} owns its cache; the statements it
+ * contains are closed when they are evicted or when the connection is closed.</p>
+ * <p> The statements returned by the cache must not be closed by the caller.</p>
+ */
+public class PreparedStatementCache {
+
+	private int capacity;
+
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	/*
+	 * Access ordered, so the first entry is always the least recently used one.
+	 */
+	private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+			if (size() > capacity) {
+				evictionCount++;
+				closeQuietly(eldest.getValue());
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * @param capacity The maximum number of statements kept open, 0 to disable the cache.
+	 */
+	public PreparedStatementCache(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns the cached statement for this SQL string with its parameters cleared.
+	 * @return The cached statement, or null if it is not in the cache.
+	 */
+	public synchronized PreparedStatement get(String sql) throws SQLException {
+		PreparedStatement ps = statements.get(sql);
+		if (ps == null) {
+			missCount++;
+			return null;
+		}
+
+		hitCount++;
+		ps.clearParameters();
+		return ps;
+	}
+
+	/**
+	 * Adds a statement to the cache, possibly evicting the least recently used one.
+	 * @return False if the cache is disabled; the statement then belongs to the caller.
+	 */
+	public synchronized boolean put(String sql, PreparedStatement ps) {
+		if (capacity == 0) {
+			return false;
+		}
+
+		PreparedStatement previous = statements.put(sql, ps);
+		if (previous != null && previous != ps) {
+			closeQuietly(previous);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes and closes the statement of this SQL string, i.e. after it failed.
+	 */
+	public synchronized void remove(String sql) {
+		closeQuietly(statements.remove(sql));
+	}
+
+	/**
+	 * Closes and removes all the cached statements. The counters are kept.
+	 */
+	public void clear() {
+		List<PreparedStatement> toClose;
+		synchronized (this) {
+			toClose = new ArrayList<PreparedStatement>(statements.values());
+			statements.clear();
+		}
+
+		for (PreparedStatement ps : toClose) {
+			closeQuietly(ps);
+		}
+	}
+
+	/**
+	 * Changes the capacity; the least recently used statements are evicted if needed.
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+		}
+		this.capacity = capacity;
+
+		while (statements.size() > capacity) {
+			Map.Entry<String, PreparedStatement> eldest = statements.entrySet().iterator().next();
+			statements.remove(eldest.getKey());
+			evictionCount++;
+			closeQuietly(eldest.getValue());
+		}
+	}
+
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized int size() {
+		return statements.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public synchronized void resetCounters() {
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "PreparedStatementCache[size=" + statements.size() + "/" + capacity + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+	}
+
+	private static void closeQuietly(PreparedStatement ps) {
+		if (ps == null) {
+			return;
+		}
+
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+}
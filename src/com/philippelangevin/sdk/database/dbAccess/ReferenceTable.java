@@ -0,0 +1,222 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.TOStructureRegistry;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+
+/**
+ * <p> Title: {@link ReferenceTable} <p>
+ * <p> Description: A small table loaded entirely in memory, such as a table of types or
+ * categories, indexed by primary key and by the unique columns given to the constructor.</p>
+ * <p> The rows are held in an immutable snapshot which is replaced as a whole when the
+ * table is reloaded, so the readers never wait for a reload nor see half of one.
+ * A reload is done by {@link #refresh()}, or by {@link #refreshIfChanged()} which first
+ * compares the number of rows and the greatest value of the version column (if any) with
+ * the ones of the snapshot. Without version column, an update that keeps the number of
+ * rows is only seen by refresh().</p>
+ * <p> The TOs returned are shared by all the readers and must not be modified.</p>
+ */
+public class ReferenceTable<T extends TransferableObject> {
+
+	/*
+	 * The rows of the table at one point in time, never modified once built.
+	 */
+	private static final class Snapshot<T> {
+		private final List<T> rows;
+		private final Map<Object, T> rowsByPrimaryKey;
+		private final Map<ColumnInfo<?>, Map<Object, T>> rowsByUniqueColumn;
+		private final List<Object> version;
+
+		private Snapshot(List<T> rows, Map<Object, T> rowsByPrimaryKey, Map<ColumnInfo<?>, Map<Object, T>> rowsByUniqueColumn, List<Object> version) {
+			this.rows = rows;
+			this.rowsByPrimaryKey = rowsByPrimaryKey;
+			this.rowsByUniqueColumn = rowsByUniqueColumn;
+			this.version = version;
+		}
+	}
+
+	private final AbstractDatabaseDAO dao;
+	private final Class<T> clazz;
+	private final ColumnInfo<?>[] primaryKeyColumns;
+	private final ColumnInfo<?>[] uniqueColumns;
+	private final ColumnInfo<?> versionColumn;
+	private final String versionQuery;
+
+	private volatile Snapshot<T> snapshot;
+
+	/**
+	 * Loads the table.
+	 * @param dao
+	 * @param clazz The class of the TOs of the table
+	 * @param uniqueColumns The columns whose values are unique, to look for a TO by their value
+	 * @throws SQLException
+	 */
+	public ReferenceTable(AbstractDatabaseDAO dao, Class<T> clazz, ColumnInfo<?>... uniqueColumns) throws SQLException {
+		this(dao, clazz, null, uniqueColumns);
+	}
+
+	/**
+	 * Loads the table.
+	 * @param dao
+	 * @param clazz The class of the TOs of the table
+	 * @param versionColumn A column whose greatest value changes with each write (a timestamp
+	 * or a version number), or null to only compare the number of rows in {@link #refreshIfChanged()}
+	 * @param uniqueColumns The columns whose values are unique, to look for a TO by their value
+	 * @throws SQLException
+	 */
+	public ReferenceTable(AbstractDatabaseDAO dao, Class<T> clazz, ColumnInfo<?> versionColumn, ColumnInfo<?>[] uniqueColumns) throws SQLException {
+		this.dao = dao;
+		this.clazz = clazz;
+		this.primaryKeyColumns = TOStructureRegistry.getPrimaryKeyColumns(clazz);
+		this.uniqueColumns = uniqueColumns.clone();
+		this.versionColumn = versionColumn;
+
+		String table = TOStructureRegistry.getStructure(clazz).getRepresentedTable().toString();
+		versionQuery = "SELECT COUNT(*)" + (versionColumn == null ? "" : ", MAX(" + versionColumn + ")") + " FROM " + table;
+
+		refresh();
+	}
+
+	public AbstractDatabaseDAO getDAO() {
+		return dao;
+	}
+
+	public Class<T> getTOClass() {
+		return clazz;
+	}
+
+	/**
+	 * @return All the TOs of the table, in an unmodifiable list
+	 */
+	public List<T> getAll() {
+		return snapshot.rows;
+	}
+
+	/**
+	 * @param primaryKey The values of the primary key, of the types of its columns
+	 * @return The TO with this primary key, null if there is none
+	 */
+	public T get(Object... primaryKey) {
+		return snapshot.rowsByPrimaryKey.get(primaryKey.length == 1 ? primaryKey[0] : Arrays.asList(primaryKey));
+	}
+
+	/**
+	 * @param column One of the unique columns given to the constructor
+	 * @param value
+	 * @return The TO with this value, null if there is none
+	 */
+	public <V> T getByUniqueColumn(ColumnInfo<V> column, V value) {
+		Map<Object, T> rows = snapshot.rowsByUniqueColumn.get(column);
+		if (rows == null) {
+			throw new IllegalArgumentException(column + " is not a unique column of " + clazz.getSimpleName());
+		}
+		return rows.get(value);
+	}
+
+	/**
+	 * Reloads the table and replaces the snapshot.
+	 * @throws SQLException
+	 */
+	public synchronized void refresh() throws SQLException {
+		// Read first, so a write made during the load is seen by the next check
+		List<Object> version = readVersion();
+		List<T> rows = dao.selectTOListFromDatabase(clazz, null);
+
+		Map<Object, T> rowsByPrimaryKey = new HashMap<Object, T>(rows.size() * 2);
+		Map<ColumnInfo<?>, Map<Object, T>> rowsByUniqueColumn = new HashMap<ColumnInfo<?>, Map<Object, T>>();
+		for (ColumnInfo<?> column : uniqueColumns) {
+			rowsByUniqueColumn.put(column, new HashMap<Object, T>(rows.size() * 2));
+		}
+
+		for (T row : rows) {
+			rowsByPrimaryKey.put(getPrimaryKey(row), row);
+			for (ColumnInfo<?> column : uniqueColumns) {
+				rowsByUniqueColumn.get(column).put(row.get(column), row);
+			}
+		}
+
+		snapshot = new Snapshot<T>(Collections.unmodifiableList(rows), rowsByPrimaryKey, rowsByUniqueColumn, version);
+	}
+
+	/**
+	 * Reloads the table if its number of rows or the greatest value of its version
+	 * column changed since the last load.
+	 * @return true if the table was reloaded
+	 * @throws SQLException
+	 */
+	public synchronized boolean refreshIfChanged() throws SQLException {
+		if (readVersion().equals(snapshot.version)) {
+			return false;
+		}
+		refresh();
+		return true;
+	}
+
+	/**
+	 * Calls {@link #refreshIfChanged()} periodically with the executor. A failed check is
+	 * printed and the current snapshot is kept.
+	 * @return The task, to cancel it
+	 */
+	public ScheduledFuture<?> scheduleRefresh(ScheduledExecutorService executor, long period, TimeUnit unit) {
+		return executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					refreshIfChanged();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+		}, period, period, unit);
+	}
+
+	private Object getPrimaryKey(T row) {
+		if (primaryKeyColumns.length == 1) {
+			return row.get(primaryKeyColumns[0]);
+		}
+
+		Object[] values = new Object[primaryKeyColumns.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = row.get(primaryKeyColumns[i]);
+		}
+		return Arrays.asList(values);
+	}
+
+	/*
+	 * The number of rows and the greatest version.
+	 */
+	private List<Object> readVersion() throws SQLException {
+		DatabaseConnection conn = dao.acquireConnection();
+		try {
+			PreparedStatement ps = conn.prepareCachedStatement(versionQuery);
+			try {
+				ResultSet rs = ps.executeQuery();
+				try {
+					rs.next();
+					return Arrays.asList(rs.getObject(1), versionColumn == null ? null : rs.getObject(2));
+				} finally {
+					rs.close();
+				}
+			} catch (SQLException e) {
+				conn.evictCachedStatement(versionQuery);
+				throw e;
+			} finally {
+				conn.releaseCachedStatement(ps);
+			}
+		} finally {
+			dao.releaseConnection(conn);
+		}
+	}
+}
@@ -75,6 +75,7 @@ public class SQLServerDatabaseConnection extends DatabaseConnection {
 	public void closeConnection() {
 		try {
 			if( dbConnection != null ) {
+				closeStatementCache();
 				dbConnection.close();
 				dbConnection = null;
 			}
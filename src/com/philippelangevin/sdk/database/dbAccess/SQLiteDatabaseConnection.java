@@ -30,6 +30,7 @@ public class SQLiteDatabaseConnection extends DatabaseConnection {
 	public void closeConnection() {
 		try {
 			if( dbConnection != null ) {
+				closeStatementCache();
 				dbConnection.close();
 				dbConnection = null;
 			}
@@ -0,0 +1,378 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.TOStructureRegistry;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+
+/**
+ * <p> Title: {@link TOCache} <p>
+ * <p> Description: A second level cache of TOs keyed by their class and primary key,
+ * used by {@link AbstractDatabaseDAO} once given with {@link AbstractDatabaseDAO#setTOCache(TOCache)}.
+ * The DAO fills it with the TOs it selects and removes the TOs it writes.</p>
+ * <p> Each TO class has its own region, bounded in size, with its eviction policy and
+ * the time a TO stays valid. The regions use the defaults of the cache unless
+ * {@link #configure(Class, int, EvictionPolicy, long)} was called for the class.</p>
+ * <p> The cache holds copies: the TOs given to it and the TOs it returns are never the
+ * ones it keeps. The writes made without the DAO (another application, raw SQL) are
+ * only seen once the TOs expire.</p>
+ */
+public class TOCache {
+
+	public enum EvictionPolicy {
+		/** Evicts the least recently used TO */
+		LRU,
+		/** Evicts the least frequently used TO, the least recently used one among equals */
+		LFU
+	}
+
+	/**
+	 * The counters of a region, or of the whole cache.
+	 */
+	public static final class Statistics {
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final long expirationCount;
+		private final int size;
+
+		private Statistics(long hitCount, long missCount, long evictionCount, long expirationCount, int size) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.expirationCount = expirationCount;
+			this.size = size;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		public long getExpirationCount() {
+			return expirationCount;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * @return The ratio of the lookups that found a TO, 0 if there was no lookup.
+		 */
+		public double getHitRate() {
+			long lookups = hitCount + missCount;
+			return lookups == 0 ? 0 : (double) hitCount / lookups;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("size=%d, hits=%d, misses=%d, hitRate=%.3f, evictions=%d, expirations=%d",
+					size, hitCount, missCount, getHitRate(), evictionCount, expirationCount);
+		}
+	}
+
+	/*
+	 * The values of a primary key.
+	 */
+	private static final class Key {
+		private final Object[] values;
+		private final int hashCode;
+
+		private Key(Object[] values) {
+			this.values = values;
+			this.hashCode = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(values, ((Key) o).values);
+		}
+	}
+
+	private static final class Entry {
+		private final TransferableObject to;
+		private final long expiration;
+		private long useCount = 0;
+
+		private Entry(TransferableObject to, long expiration) {
+			this.to = to;
+			this.expiration = expiration;
+		}
+	}
+
+	/*
+	 * The TOs of one class. Access ordered, so the first entry is always the least recently used one.
+	 */
+	private static final class Region {
+		private final int capacity;
+		private final EvictionPolicy policy;
+		private final long timeToLive;
+		private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+		private long hitCount = 0;
+		private long missCount = 0;
+		private long evictionCount = 0;
+		private long expirationCount = 0;
+
+		private Region(int capacity, EvictionPolicy policy, long timeToLive) {
+			this.capacity = capacity;
+			this.policy = policy;
+			this.timeToLive = timeToLive;
+		}
+
+		private synchronized TransferableObject get(Key key) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				missCount++;
+				return null;
+			} else if (entry.expiration - System.nanoTime() < 0) {
+				entries.remove(key);
+				expirationCount++;
+				missCount++;
+				return null;
+			}
+
+			hitCount++;
+			entry.useCount++;
+			return entry.to;
+		}
+
+		private synchronized void put(Key key, TransferableObject to) {
+			if (capacity == 0) {
+				return;
+			}
+
+			Entry entry = new Entry(to, System.nanoTime() + timeToLive);
+			Entry previous = entries.put(key, entry);
+			if (previous != null) {
+				// Reading a TO again doesn't make it less used
+				entry.useCount = previous.useCount;
+			}
+			while (entries.size() > capacity) {
+				entries.remove(findEvicted(key));
+				evictionCount++;
+			}
+		}
+
+		/*
+		 * The TO just added is never evicted, otherwise a new TO could never replace
+		 * the ones already used with LFU.
+		 */
+		private Key findEvicted(Key added) {
+			Key evicted = null;
+			long evictedUseCount = Long.MAX_VALUE;
+			// Linear with LFU, but only done once the region is full
+			for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+				if (entry.getKey().equals(added)) {
+					continue;
+				} else if (policy == EvictionPolicy.LRU) {
+					return entry.getKey();
+				} else if (entry.getValue().useCount < evictedUseCount) {
+					evicted = entry.getKey();
+					evictedUseCount = entry.getValue().useCount;
+					if (evictedUseCount == 0) {
+						break;
+					}
+				}
+			}
+			return evicted;
+		}
+
+		private synchronized void remove(Key key) {
+			entries.remove(key);
+		}
+
+		private synchronized void clear() {
+			entries.clear();
+		}
+
+		private synchronized Statistics getStatistics() {
+			return new Statistics(hitCount, missCount, evictionCount, expirationCount, entries.size());
+		}
+	}
+
+	private final int defaultCapacity;
+	private final EvictionPolicy defaultPolicy;
+	private final long defaultTimeToLive;
+	private final ConcurrentMap<Class<?>, Region> regions = new ConcurrentHashMap<Class<?>, Region>();
+
+	/**
+	 * @param defaultCapacity The maximum number of TOs of each class, 0 to only cache the configured classes
+	 * @param defaultPolicy
+	 * @param defaultTimeToLive The time a TO stays valid, in milliseconds
+	 */
+	public TOCache(int defaultCapacity, EvictionPolicy defaultPolicy, long defaultTimeToLive) {
+		checkArguments(defaultCapacity, defaultPolicy, defaultTimeToLive);
+		this.defaultCapacity = defaultCapacity;
+		this.defaultPolicy = defaultPolicy;
+		this.defaultTimeToLive = TimeUnit.MILLISECONDS.toNanos(defaultTimeToLive);
+	}
+
+	/**
+	 * Sets the size, eviction policy and time to live of the TOs of a class.
+	 * The TOs of the class already in the cache are removed.
+	 * @param clazz
+	 * @param capacity The maximum number of TOs of the class, 0 to never cache them
+	 * @param policy
+	 * @param timeToLive The time a TO stays valid, in milliseconds
+	 */
+	public void configure(Class<? extends TransferableObject> clazz, int capacity, EvictionPolicy policy, long timeToLive) {
+		checkArguments(capacity, policy, timeToLive);
+		regions.put(clazz, new Region(capacity, policy, TimeUnit.MILLISECONDS.toNanos(timeToLive)));
+	}
+
+	private static void checkArguments(int capacity, EvictionPolicy policy, long timeToLive) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+		} else if (policy == null) {
+			throw new IllegalArgumentException("The eviction policy can't be null");
+		} else if (timeToLive <= 0) {
+			throw new IllegalArgumentException("The time to live must be positive: " + timeToLive);
+		}
+	}
+
+	private Region getRegion(Class<?> clazz) {
+		Region region = regions.get(clazz);
+		if (region == null) {
+			region = new Region(defaultCapacity, defaultPolicy, defaultTimeToLive);
+			Region previous = regions.putIfAbsent(clazz, region);
+			if (previous != null) {
+				region = previous;
+			}
+		}
+		return region;
+	}
+
+	/*
+	 * Null if a value of the key is missing.
+	 */
+	private static Key getKey(TransferableObject to) {
+		ColumnInfo<?>[] primaryKeyColumns = TOStructureRegistry.getPrimaryKeyColumns(to.getClass());
+		Object[] values = new Object[primaryKeyColumns.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = to.get(primaryKeyColumns[i]);
+			if (values[i] == null) {
+				return null;
+			}
+		}
+		return new Key(values);
+	}
+
+	/**
+	 * @param to A TO holding the primary key to look for
+	 * @return A copy of the cached TO with the same class and primary key, null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends TransferableObject> T get(T to) {
+		Region region = getRegion(to.getClass());
+		Key key = (region.capacity == 0 ? null : getKey(to));
+		if (key == null) {
+			return null;
+		}
+
+		TransferableObject cached = region.get(key);
+		return cached == null ? null : (T) TransferableObject.copy(cached);
+	}
+
+	/**
+	 * Caches a copy of a TO holding all its columns, as read from the database.
+	 * A TO read with only some of its columns is ignored.
+	 */
+	public void put(TransferableObject to) {
+		Region region = getRegion(to.getClass());
+		if (region.capacity == 0 || !to.isFullyLoaded()) {
+			return;
+		}
+
+		Key key = getKey(to);
+		if (key != null) {
+			region.put(key, TransferableObject.copy(to));
+		}
+	}
+
+	/**
+	 * Removes the TO with the same class and primary key, if it is cached.
+	 */
+	public void invalidate(TransferableObject to) {
+		Region region = regions.get(to.getClass());
+		if (region == null) {
+			return;
+		}
+
+		Key key = getKey(to);
+		if (key != null) {
+			region.remove(key);
+		}
+	}
+
+	/**
+	 * Removes all the TOs of a class.
+	 */
+	public void invalidateAll(Class<? extends TransferableObject> clazz) {
+		Region region = regions.get(clazz);
+		if (region != null) {
+			region.clear();
+		}
+	}
+
+	/**
+	 * Removes all the TOs. The counters are kept.
+	 */
+	public void clear() {
+		for (Region region : regions.values()) {
+			region.clear();
+		}
+	}
+
+	/**
+	 * @param clazz
+	 * @return The counters of the TOs of a class.
+	 */
+	public Statistics getStatistics(Class<? extends TransferableObject> clazz) {
+		return getRegion(clazz).getStatistics();
+	}
+
+	/**
+	 * @return The counters of all the classes.
+	 */
+	public Statistics getStatistics() {
+		long hitCount = 0;
+		long missCount = 0;
+		long evictionCount = 0;
+		long expirationCount = 0;
+		int size = 0;
+		for (Region region : regions.values()) {
+			Statistics statistics = region.getStatistics();
+			hitCount += statistics.hitCount;
+			missCount += statistics.missCount;
+			evictionCount += statistics.evictionCount;
+			expirationCount += statistics.expirationCount;
+			size += statistics.size;
+		}
+		return new Statistics(hitCount, missCount, evictionCount, expirationCount, size);
+	}
+
+	@Override
+	public String toString() {
+		return "TOCache[" + getStatistics() + "]";
+	}
+}
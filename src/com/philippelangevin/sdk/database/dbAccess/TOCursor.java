@@ -0,0 +1,130 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.io.Closeable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+import com.philippelangevin.sdk.database.util.ResultSetTranslator;
+
+/**
+ * <p> Title: {@link TOCursor} <p>
+ * <p> Description: Iterates over the rows of a query, creating one TO per row as the
+ * rows are read from the database. The cursor can only be iterated once.</p>
+ * <p> The cursor holds a database connection until it is exhausted or closed, so it
+ * should be closed in a finally block if it might not be read until the end.</p>
+ */
+public class TOCursor<T extends TransferableObject> implements Iterator<T>, Iterable<T>, Closeable {
+
+	private final ResultSet rs;
+	private final Statement statement;
+	private final Class<T> clazz;
+	private final Runnable onClose;
+	private ResultSetTranslator.ColumnMapping<T> mapping = null;
+
+	private T next = null;
+	private boolean nextFetched = false;
+	private boolean closed = false;
+
+	/**
+	 * @param rs The ResultSet to read
+	 * @param statement The statement of the ResultSet, closed with the cursor
+	 * @param clazz The class of the TOs
+	 * @param onClose Called once the ResultSet and statement are closed, may be null.
+	 */
+	TOCursor(ResultSet rs, Statement statement, Class<T> clazz, Runnable onClose) {
+		this.rs = rs;
+		this.statement = statement;
+		this.clazz = clazz;
+		this.onClose = onClose;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return this;
+	}
+
+	/**
+	 * @throws IllegalStateException Thrown if the next row can't be read; the cursor is then closed.
+	 */
+	@Override
+	public boolean hasNext() {
+		if (nextFetched) {
+			return true;
+		} else if (closed) {
+			return false;
+		}
+
+		try {
+			if (rs.next()) {
+				if (mapping == null) {
+					mapping = ResultSetTranslator.getColumnMapping(rs, clazz);
+				}
+				next = ResultSetTranslator.getDistinctTOFromResultSetFromCurrentRow(rs, mapping);
+				nextFetched = true;
+				return true;
+			}
+		} catch (SQLException e) {
+			close();
+			throw new IllegalStateException("Failed to read the next " + clazz.getSimpleName(), e);
+		}
+
+		// Exhausted
+		close();
+		return false;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		T to = next;
+		next = null;
+		nextFetched = false;
+		return to;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Closes the ResultSet and its statement and gives back the connection.
+	 * Can be called more than once.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		next = null;
+		nextFetched = false;
+
+		try {
+			rs.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+
+		if (onClose != null) {
+			onClose.run();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+
+/**
+ * <p> Title: {@link TOPage} <p>
+ * <p> Description: A page of TOs returned by
+ * {@link AbstractDatabaseDAO#selectTOPage(Class, List, com.philippelangevin.sdk.database.transferableObject.ColumnInfo[], Object[], int)},
+ * along with the key to give back to obtain the following page.</p>
+ */
+public class TOPage<T extends TransferableObject> {
+
+	private final List<T> tos;
+	private final Object[] nextKey;
+
+	TOPage(List<T> tos, Object[] nextKey) {
+		this.tos = Collections.unmodifiableList(tos);
+		this.nextKey = nextKey;
+	}
+
+	public List<T> getTOs() {
+		return tos;
+	}
+
+	/**
+	 * @return The values of the ordering columns of the last TO of this page, to
+	 *         select the following page; null if this is the last page.
+	 */
+	public Object[] getNextKey() {
+		return nextKey == null ? null : nextKey.clone();
+	}
+
+	public boolean hasNextPage() {
+		return nextKey != null;
+	}
+
+	@Override
+	public String toString() {
+		return "TOPage[size=" + tos.size() + ", hasNextPage=" + hasNextPage() + "]";
+	}
+}
@@ -0,0 +1,320 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryMathOperatorStruct;
+import com.philippelangevin.sdk.database.tables.TableInfo;
+import com.philippelangevin.sdk.database.transferableObject.LazyColumnLoader;
+import com.philippelangevin.sdk.database.transferableObject.TOColumnFilter;
+import com.philippelangevin.sdk.database.transferableObject.TOStructureRegistry;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+
+/**
+ * <p> Title: {@link TOQueryCache} <p>
+ * <p> Description: A cache of the results of {@link AbstractDatabaseDAO#selectTOList(Class, List)},
+ * used by the DAO once given with {@link AbstractDatabaseDAO#setQueryCache(TOQueryCache)}.
+ * A result is keyed by its TO class and its filters, regardless of their order and of
+ * the order or repetition of the values of an <i>in</i> filter.</p>
+ * <p> Only the tables enabled with {@link #enable(TableInfo)} are cached. Every write made
+ * by the DAO on a table removes all the results of this table, and a write made in a
+ * transaction removes them again when the transaction ends.</p>
+ * <p> The size of the cache is counted in TOs: the least recently used results are
+ * evicted once the results hold more TOs than the capacity. As with {@link TOCache},
+ * the cache holds copies of the TOs and the writes made without the DAO are not seen.</p>
+ */
+public class TOQueryCache {
+
+	/*
+	 * A TO class and its filters.
+	 */
+	static final class Key {
+		private final TableInfo table;
+		private final Class<?> clazz;
+		private final Set<List<Object>> filters;
+
+		private Key(TableInfo table, Class<?> clazz, Set<List<Object>> filters) {
+			this.table = table;
+			this.clazz = clazz;
+			this.filters = filters;
+		}
+
+		@Override
+		public int hashCode() {
+			return clazz.hashCode() * 31 + filters.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return clazz == key.clazz && filters.equals(key.filters);
+		}
+	}
+
+	private int capacity;
+	private int weight = 0;
+
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	private long invalidationCount = 0;
+
+	/*
+	 * Access ordered, so the first entry is always the least recently used one.
+	 */
+	private final LinkedHashMap<Key, List<TransferableObject>> results = new LinkedHashMap<Key, List<TransferableObject>>(16, 0.75f, true);
+	private final Map<TableInfo, Set<Key>> keysByTable = new HashMap<TableInfo, Set<Key>>();
+
+	/*
+	 * Incremented by each write on a table, so a result read before a write is not cached after it.
+	 */
+	private final Map<TableInfo, Long> generations = new HashMap<TableInfo, Long>();
+
+	/**
+	 * @param capacity The maximum number of TOs held by all the results
+	 */
+	public TOQueryCache(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Caches the results of the TOs of this table.
+	 */
+	public synchronized void enable(TableInfo table) {
+		if (!generations.containsKey(table)) {
+			generations.put(table, 0L);
+		}
+	}
+
+	/**
+	 * Stops caching the results of the TOs of this table, and removes its cached results.
+	 */
+	public synchronized void disable(TableInfo table) {
+		invalidate(table);
+		generations.remove(table);
+	}
+
+	public synchronized boolean isEnabled(TableInfo table) {
+		return generations.containsKey(table);
+	}
+
+	/**
+	 * Returns the key of a request, null if its table is not cached or if a filter
+	 * value can't be compared (a primitive array).
+	 */
+	Key getKey(Class<? extends TransferableObject> clazz, List<TOColumnFilter<?> > filters) {
+		TableInfo table = TOStructureRegistry.getStructure(clazz).getRepresentedTable();
+		if (!isEnabled(table)) {
+			return null;
+		}
+
+		if (filters == null || filters.isEmpty()) {
+			return new Key(table, clazz, Collections.<List<Object>>emptySet());
+		}
+
+		// The filters are joined with AND, their order doesn't matter
+		Set<List<Object>> normalizedFilters = new HashSet<List<Object>>();
+		for (TOColumnFilter<?> filter : filters) {
+			Object value = filter.getValue();
+			if (value instanceof Object[]) {
+				Object[] values = (Object[]) value;
+				value = (isInList(filter) ? new HashSet<Object>(Arrays.asList(values)) : Arrays.asList(values));
+			} else if (value != null && value.getClass().isArray()) {
+				return null;
+			}
+			normalizedFilters.add(Arrays.asList(filter.getColumn(), filter.getOperator(), value));
+		}
+		return new Key(table, clazz, normalizedFilters);
+	}
+
+	private static boolean isInList(TOColumnFilter<?> filter) {
+		return filter.getOperator() == QueryMathOperatorStruct.in || filter.getOperator() == QueryMathOperatorStruct.nin;
+	}
+
+	/**
+	 * The generation of the table of a key, to give to {@link #put(Key, long, List)}.
+	 */
+	synchronized long getGeneration(Key key) {
+		Long generation = generations.get(key.table);
+		return generation == null ? -1 : generation;
+	}
+
+	/**
+	 * @return Copies of the cached TOs, null if the result is not cached
+	 */
+	@SuppressWarnings("unchecked")
+	<TO extends TransferableObject> List<TO> get(Key key) {
+		List<TransferableObject> cached;
+		synchronized (this) {
+			cached = results.get(key);
+			if (cached == null) {
+				missCount++;
+				return null;
+			}
+			hitCount++;
+		}
+
+		List<TO> tos = new ArrayList<TO>(cached.size());
+		for (TransferableObject to : cached) {
+			tos.add((TO) TransferableObject.copy(to));
+		}
+		return tos;
+	}
+
+	/**
+	 * Caches copies of a result, unless the table was written since the given generation.
+	 */
+	void put(Key key, long generation, List<? extends TransferableObject> tos) {
+		int resultWeight = Math.max(1, tos.size());
+		if (resultWeight > capacity) {
+			return;
+		}
+
+		List<TransferableObject> copies = new ArrayList<TransferableObject>(tos.size());
+		for (TransferableObject to : tos) {
+			copies.add(TransferableObject.copy(to));
+		}
+		// The loader of the lazy columns would keep the whole result alive
+		LazyColumnLoader.detach(copies);
+
+		synchronized (this) {
+			if (generation != getGeneration(key)) {
+				return;
+			}
+
+			List<TransferableObject> previous = results.put(key, copies);
+			if (previous != null) {
+				weight -= Math.max(1, previous.size());
+			}
+			weight += resultWeight;
+
+			Set<Key> keys = keysByTable.get(key.table);
+			if (keys == null) {
+				keys = new HashSet<Key>();
+				keysByTable.put(key.table, keys);
+			}
+			keys.add(key);
+
+			evict();
+		}
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<Key, List<TransferableObject>>> iterator = results.entrySet().iterator();
+		while (weight > capacity && iterator.hasNext()) {
+			Map.Entry<Key, List<TransferableObject>> eldest = iterator.next();
+			iterator.remove();
+			weight -= Math.max(1, eldest.getValue().size());
+			keysByTable.get(eldest.getKey().table).remove(eldest.getKey());
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Removes the results of a table, i.e. after it was written.
+	 */
+	public synchronized void invalidate(TableInfo table) {
+		Long generation = generations.get(table);
+		if (generation == null) {
+			return;
+		}
+		generations.put(table, generation + 1);
+
+		Set<Key> keys = keysByTable.remove(table);
+		if (keys != null && !keys.isEmpty()) {
+			for (Key key : keys) {
+				weight -= Math.max(1, results.remove(key).size());
+			}
+			invalidationCount++;
+		}
+	}
+
+	/**
+	 * Removes all the results. The counters are kept.
+	 */
+	public synchronized void clear() {
+		for (TableInfo table : new ArrayList<TableInfo>(keysByTable.keySet())) {
+			invalidate(table);
+		}
+	}
+
+	/**
+	 * Changes the capacity; the least recently used results are evicted if needed.
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		evict();
+	}
+
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return The number of TOs held by the cached results
+	 */
+	public synchronized int getWeight() {
+		return weight;
+	}
+
+	public synchronized int size() {
+		return results.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return The ratio of the lookups that found a result, 0 if there was no lookup.
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hitCount + missCount;
+		return lookups == 0 ? 0 : (double) hitCount / lookups;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return The number of writes that removed at least one result
+	 */
+	public synchronized long getInvalidationCount() {
+		return invalidationCount;
+	}
+
+	public synchronized void resetCounters() {
+		hitCount = 0;
+		missCount = 0;
+		evictionCount = 0;
+		invalidationCount = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "TOQueryCache[size=" + results.size() + ", weight=" + weight + "/" + capacity + ", hits=" + hitCount + ", misses=" + missCount
+				+ ", evictions=" + evictionCount + ", invalidations=" + invalidationCount + "]";
+	}
+}
@@ -0,0 +1,494 @@
+package com.philippelangevin.sdk.database.dbAccess;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.philippelangevin.sdk.database.connector.SQLDialect;
+import com.philippelangevin.sdk.database.transferableObject.ColumnInfo;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObjectStructureIF;
+import com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF;
+
+/**
+ * <p> Title: {@link TOSQLTemplate} <p>
+ * <p> Description: The CRUD requests of a {@link TransferableObjectStructureIF}, built once
+ * per structure class along with the order in which the columns must be bound.</p>
+ * <p> An insert uses DEFAULT for its null columns, so its SQL depends on which columns are
+ * null. Each combination is built once and then reused, which keeps the number of distinct
+ * SQL strings (and of cached statements) bounded by the combinations actually used.</p>
+ * <p> Likewise, an update only sets the dirty columns of a TO and each combination of dirty
+ * columns has its own request, and so does each combination of columns selected by a projection.</p>
+ */
+final class TOSQLTemplate {
+
+	private static final ConcurrentMap<Class<?>, TOSQLTemplate> TEMPLATES = new ConcurrentHashMap<Class<?>, TOSQLTemplate>();
+
+	/*
+	 * The maximum number of requests kept per kind of variant. A wide table could have
+	 * up to 2^n combinations of null or dirty columns; the maps are emptied once full,
+	 * the combinations an application uses being usually few.
+	 */
+	private static final int MAX_VARIANTS = 256;
+
+	/**
+	 * The INSERT request for one combination of null columns.
+	 */
+	static final class InsertVariant {
+		/** The request without any RETURNING clause */
+		final String sql;
+		/** The request returning the columns left to DEFAULT, null if there are none */
+		final String returningSQL;
+		/** The indexes of the columns to bind, in parameter order */
+		final int[] boundColumns;
+		/** The indexes of the columns left to DEFAULT, in RETURNING order */
+		final int[] defaultColumns;
+
+		private InsertVariant(String sql, String returningSQL, int[] boundColumns, int[] defaultColumns) {
+			this.sql = sql;
+			this.returningSQL = returningSQL;
+			this.boundColumns = boundColumns;
+			this.defaultColumns = defaultColumns;
+		}
+	}
+
+	/**
+	 * The upsert request for one dialect and one combination of null columns.
+	 */
+	static final class UpsertVariant {
+		final String sql;
+		/** The indexes of the columns to bind, in parameter order */
+		final int[] boundColumns;
+
+		private UpsertVariant(String sql, int[] boundColumns) {
+			this.sql = sql;
+			this.boundColumns = boundColumns;
+		}
+	}
+
+	/**
+	 * The UPDATE request for one combination of dirty columns.
+	 */
+	static final class UpdateVariant {
+		final String sql;
+		/** The indexes of the columns to bind, in parameter order: the dirty columns, then the key */
+		final int[] boundColumns;
+
+		private UpdateVariant(String sql, int[] boundColumns) {
+			this.sql = sql;
+			this.boundColumns = boundColumns;
+		}
+	}
+
+	final ColumnInfo<Object>[] columns;
+	final int primaryKeySize;
+	/** The metaData of the columns, which bind their values */
+	final TOColumnMetaDataIF<Object>[] metaData;
+
+	/** UPDATE of all the non key columns, null if the table only has key columns */
+	final UpdateVariant fullUpdate;
+
+	final String deleteSQL;
+	final String selectByPrimaryKeySQL;
+	/** The indexes of the key columns, to bind in deleteSQL and selectByPrimaryKeySQL */
+	final int[] primaryKeyColumns;
+
+	private final String table;
+	private final String[] columnNames;
+	private final String primaryKeyCondition;
+	private final ConcurrentMap<Long, UpdateVariant> updateVariants = new ConcurrentHashMap<Long, UpdateVariant>();
+	private final ConcurrentMap<Long, InsertVariant> insertVariants = new ConcurrentHashMap<Long, InsertVariant>();
+	private final ConcurrentMap<Long, String> selectLists = new ConcurrentHashMap<Long, String>();
+	private final Map<SQLDialect, ConcurrentMap<Long, UpsertVariant>> upsertVariants = new EnumMap<SQLDialect, ConcurrentMap<Long, UpsertVariant>>(SQLDialect.class);
+
+	@SuppressWarnings("unchecked")
+	private TOSQLTemplate(TransferableObjectStructureIF structure) {
+		this.columns = (ColumnInfo<Object>[]) structure.getColumns();
+		this.primaryKeySize = structure.getPrimaryKeySize();
+		this.table = structure.getRepresentedTable().toString();
+
+		metaData = (TOColumnMetaDataIF<Object>[]) new TOColumnMetaDataIF<?>[columns.length];
+		columnNames = new String[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			metaData[i] = columns[i].getMetaData();
+			columnNames[i] = columns[i].toString();
+		}
+		
+		// Filled now so the map itself is never modified afterwards
+		for (SQLDialect dialect : SQLDialect.values()) {
+			upsertVariants.put(dialect, new ConcurrentHashMap<Long, UpsertVariant>());
+		}
+
+		primaryKeyColumns = new int[primaryKeySize];
+		for (int i = 0; i < primaryKeySize; i++) {
+			primaryKeyColumns[i] = i;
+		}
+		
+		primaryKeyCondition = buildPrimaryKeyCondition();
+
+		if (columns.length > primaryKeySize) {
+			boolean[] allColumns = new boolean[columns.length];
+			Arrays.fill(allColumns, primaryKeySize, columns.length, true);
+			fullUpdate = buildUpdateVariant(allColumns);
+		} else {
+			fullUpdate = null;
+		}
+
+		deleteSQL = "DELETE FROM " + table + " WHERE " + primaryKeyCondition;
+		selectByPrimaryKeySQL = "SELECT * FROM " + table + " WHERE " + primaryKeyCondition;
+	}
+
+	/**
+	 * Returns the template of a structure, building it on the first call.
+	 */
+	static TOSQLTemplate get(TransferableObjectStructureIF structure) {
+		TOSQLTemplate template = TEMPLATES.get(structure.getClass());
+		if (template == null) {
+			template = new TOSQLTemplate(structure);
+			TOSQLTemplate previous = TEMPLATES.putIfAbsent(structure.getClass(), template);
+			if (previous != null) {
+				template = previous;
+			}
+		}
+		return template;
+	}
+
+	/**
+	 * Reads the column values of a TO, in column order.
+	 */
+	Object[] getValues(TransferableObject to) {
+		Object[] values = new Object[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			values[i] = to.get(columns[i]);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the UPDATE request setting the dirty columns of a TO.
+	 * @return The request, or null if no column of the TO is dirty (or if it only has key columns).
+	 */
+	UpdateVariant getUpdateVariant(TransferableObject to) {
+		return getUpdateVariant(to, null);
+	}
+
+	/**
+	 * Returns the UPDATE request setting the columns of a TO that are dirty or that differ
+	 * from the ones of the original TO, i.e. the TO as it is in the database.
+	 * @param original null to only set the dirty columns
+	 * @return The request, or null if no column changed (or if the TO only has key columns).
+	 */
+	UpdateVariant getUpdateVariant(TransferableObject to, TransferableObject original) {
+		if (fullUpdate == null) {
+			return null;
+		}
+
+		boolean[] dirtyColumns = new boolean[columns.length];
+		int dirtyCount = 0;
+		long dirtyMask = 0;
+		for (int i = primaryKeySize; i < columns.length; i++) {
+			if (to.isDirty(columns[i]) || (original != null && to.isLoaded(columns[i]) && !to.deepEquals(original, columns[i]))) {
+				dirtyColumns[i] = true;
+				dirtyCount++;
+				if (i < Long.SIZE) {
+					dirtyMask |= (1L << i);
+				}
+			}
+		}
+
+		if (dirtyCount == 0) {
+			return null;
+		} else if (dirtyCount == columns.length - primaryKeySize) {
+			return fullUpdate;
+		} else if (columns.length > Long.SIZE) {
+			// Too many columns to describe them with a mask, should be quite rare
+			return buildUpdateVariant(dirtyColumns);
+		}
+
+		UpdateVariant variant = updateVariants.get(dirtyMask);
+		if (variant == null) {
+			variant = putVariant(updateVariants, dirtyMask, buildUpdateVariant(dirtyColumns));
+		}
+		return variant;
+	}
+
+	/**
+	 * Returns the columns of a SELECT reading some columns of the TO along with its
+	 * primary key, in column order: "key, column, ...".
+	 * @param selectedColumns
+	 * @throws IllegalArgumentException If a column is not one of the TO
+	 */
+	String getSelectList(ColumnInfo<?>[] selectedColumns) {
+		boolean[] selected = new boolean[columns.length];
+		Arrays.fill(selected, 0, primaryKeySize, true);
+		long selectedMask = 0;
+		for (ColumnInfo<?> column : selectedColumns) {
+			int index = indexOf(column);
+			selected[index] = true;
+			if (index < Long.SIZE) {
+				selectedMask |= (1L << index);
+			}
+		}
+
+		if (columns.length > Long.SIZE) {
+			// Too many columns to describe them with a mask, should be quite rare
+			return buildSelectList(selected);
+		}
+
+		String selectList = selectLists.get(selectedMask);
+		if (selectList == null) {
+			selectList = putVariant(selectLists, selectedMask, buildSelectList(selected));
+		}
+		return selectList;
+	}
+
+	/**
+	 * Returns the request selecting some columns of a TO by primary key.
+	 * @see #getSelectList(ColumnInfo[])
+	 */
+	String getSelectByPrimaryKeySQL(ColumnInfo<?>[] selectedColumns) {
+		return "SELECT " + getSelectList(selectedColumns) + " FROM " + table + " WHERE " + primaryKeyCondition;
+	}
+
+	/**
+	 * Returns the request selecting some columns of several TOs by primary key: an IN list
+	 * for a single key column, conditions joined by OR otherwise. The keys are bound one
+	 * TO after the other.
+	 * @param selectedColumns
+	 * @param count The number of TOs
+	 * @see #getSelectList(ColumnInfo[])
+	 */
+	String getSelectByPrimaryKeysSQL(ColumnInfo<?>[] selectedColumns, int count) {
+		StringBuilder sb = new StringBuilder("SELECT ").append(getSelectList(selectedColumns)).append(" FROM ").append(table).append(" WHERE ");
+		if (primaryKeySize == 1) {
+			sb.append(columnNames[0]).append(" IN (");
+			for (int i = 0; i < count; i++) {
+				sb.append(i == 0 ? "?" : ", ?");
+			}
+			return sb.append(')').toString();
+		}
+
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(" OR ");
+			}
+			sb.append('(').append(primaryKeyCondition).append(')');
+		}
+		return sb.toString();
+	}
+
+	private int indexOf(ColumnInfo<?> column) {
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i] == column) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException(column + " is not a column of " + table);
+	}
+
+	private String buildSelectList(boolean[] selected) {
+		StringBuilder sb = new StringBuilder(100);
+		for (int i = 0; i < columns.length; i++) {
+			if (selected[i]) {
+				if (sb.length() != 0) {
+					sb.append(", ");
+				}
+				sb.append(columnNames[i]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the INSERT request matching the null columns of these values.
+	 */
+	InsertVariant getInsertVariant(Object[] values) {
+		if (columns.length > Long.SIZE) {
+			// Too many columns to describe them with a mask, should be quite rare
+			return buildInsertVariant(values);
+		}
+
+		long nullMask = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				nullMask |= (1L << i);
+			}
+		}
+
+		InsertVariant variant = insertVariants.get(nullMask);
+		if (variant == null) {
+			variant = putVariant(insertVariants, nullMask, buildInsertVariant(values));
+		}
+		return variant;
+	}
+
+	/**
+	 * Returns the native upsert request matching the null columns of these values.
+	 * @return The request, or null if the dialect has none or if a primary key value is null.
+	 */
+	UpsertVariant getUpsertVariant(SQLDialect dialect, Object[] values) {
+		for (int i = 0; i < primaryKeySize; i++) {
+			if (values[i] == null) {
+				return null;
+			}
+		}
+
+		if (columns.length > Long.SIZE) {
+			return buildUpsertVariant(dialect, values);
+		}
+
+		long nullMask = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				nullMask |= (1L << i);
+			}
+		}
+
+		ConcurrentMap<Long, UpsertVariant> variants = upsertVariants.get(dialect);
+		UpsertVariant variant = variants.get(nullMask);
+		if (variant == null) {
+			variant = buildUpsertVariant(dialect, values);
+			if (variant == null) {
+				return null;
+			}
+
+			variant = putVariant(variants, nullMask, variant);
+		}
+		return variant;
+	}
+
+	/*
+	 * Keeps a variant unless an other thread built it meanwhile, emptying the map once full.
+	 * @return The variant kept
+	 */
+	private static <V> V putVariant(ConcurrentMap<Long, V> variants, long mask, V variant) {
+		if (variants.size() >= MAX_VARIANTS) {
+			variants.clear();
+		}
+		V previous = variants.putIfAbsent(mask, variant);
+		return (previous == null ? variant : previous);
+	}
+
+	private UpsertVariant buildUpsertVariant(SQLDialect dialect, Object[] values) {
+		boolean[] nullColumns = new boolean[values.length];
+		int nullCount = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				nullColumns[i] = true;
+				nullCount++;
+			}
+		}
+
+		String sql = dialect.buildUpsert(table, columnNames, primaryKeySize, nullColumns);
+		if (sql == null) {
+			return null;
+		}
+
+		int[] boundColumns = new int[values.length - nullCount];
+		int bound = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (!nullColumns[i]) {
+				boundColumns[bound++] = i;
+			}
+		}
+		return new UpsertVariant(sql, boundColumns);
+	}
+
+	/*
+	 * UPDATE table SET c = ?, ... WHERE key = ? AND ...
+	 */
+	private UpdateVariant buildUpdateVariant(boolean[] setColumns) {
+		int setCount = 0;
+		for (boolean set : setColumns) {
+			if (set) {
+				setCount++;
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(100);
+		sb.append("UPDATE ").append(table).append(" SET ");
+		int[] boundColumns = new int[setCount + primaryKeySize];
+		int param = 0;
+		for (int i = 0; i < columns.length; i++) {
+			if (setColumns[i]) {
+				if (param != 0) {
+					sb.append(", ");
+				}
+				sb.append(columns[i]).append(" = ?");
+				boundColumns[param++] = i;
+			}
+		}
+		for (int i = 0; i < primaryKeySize; i++) {
+			boundColumns[param++] = i;
+		}
+		sb.append(" WHERE ").append(primaryKeyCondition);
+		return new UpdateVariant(sb.toString(), boundColumns);
+	}
+
+	private InsertVariant buildInsertVariant(Object[] values) {
+		int nullCount = 0;
+		for (Object value : values) {
+			if (value == null) {
+				nullCount++;
+			}
+		}
+
+		int[] boundColumns = new int[values.length - nullCount];
+		int[] defaultColumns = new int[nullCount];
+
+		StringBuilder sb = new StringBuilder(100);
+		sb.append("INSERT INTO ").append(table).append("(");
+		for (int i = 0; i < columns.length; i++) {
+			if (i != 0) {
+				sb.append(",");
+			}
+			sb.append(columns[i]);
+		}
+
+		sb.append(") VALUES (");
+		int bound = 0;
+		int defaulted = 0;
+		for (int i = 0; i < columns.length; i++) {
+			if (i != 0) {
+				sb.append(",");
+			}
+
+			if (values[i] == null) {
+				defaultColumns[defaulted++] = i;
+				sb.append("DEFAULT");
+			} else {
+				boundColumns[bound++] = i;
+				sb.append("?");
+			}
+		}
+		sb.append(")");
+
+		String sql = sb.toString();
+		String returningSQL = null;
+		if (nullCount != 0) {
+			sb.append(" RETURNING ");
+			for (int i = 0; i < defaultColumns.length; i++) {
+				if (i != 0) {
+					sb.append(",");
+				}
+				sb.append(columns[defaultColumns[i]]);
+			}
+			returningSQL = sb.toString();
+		}
+
+		return new InsertVariant(sql, returningSQL, boundColumns, defaultColumns);
+	}
+
+	private String buildPrimaryKeyCondition() {
+		StringBuilder sb = new StringBuilder(50);
+		for (int i = 0; i < primaryKeySize; i++) {
+			if (i != 0) {
+				sb.append(" AND ");
+			}
+			sb.append(columns[i]).append(" = ?");
+		}
+		return sb.toString();
+	}
+}
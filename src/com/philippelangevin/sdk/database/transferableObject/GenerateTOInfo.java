@@ -0,0 +1,35 @@
+package com.philippelangevin.sdk.database.transferableObject;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p> Title: {@link GenerateTOInfo} <p>
+ * <p> Description: Marks a {@link TransferableObjectInfoContainer} whose layout is generated
+ * at compile time by {@link com.philippelangevin.sdk.database.transferableObject.processor.TOInfoProcessor},
+ * so the container is built without reflecting over its fields.</p>
+ * <p> For a container <code>PhoneTOStructure.ColumnNames</code>, the processor generates the
+ * class <code>PhoneTOStructure_ColumnNamesInfo</code> in the same package, with the layout of the
+ * container, the ordinal of each field and typed accessors. The container gives the layout to
+ * its superclass:</p>
+ * <pre>
+ * &#64;GenerateTOInfo
+ * public static final class ColumnNames extends TransferableObjectInfoContainer {
+ *     public static final ColumnInfo&lt;Integer&gt; id = createColumn(new IntegerMetaData(false, false));
+ *     ...
+ *     private static final ColumnNames INSTANCE = new ColumnNames();
+ *
+ *     private ColumnNames() {
+ *         super(PhoneTOStructure_ColumnNamesInfo.layout());
+ *     }
+ * }
+ * </pre>
+ * <p> The processor is found by javac through META-INF/services when the SDK jar is on the
+ * processor path (or the class path) of the project declaring the TOs.</p>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateTOInfo {
+}
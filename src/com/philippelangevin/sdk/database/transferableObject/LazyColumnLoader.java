@@ -0,0 +1,146 @@
+package com.philippelangevin.sdk.database.transferableObject;
+
+import java.lang.ref.WeakReference;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p> Title: {@link LazyColumnLoader} <p>
+ * <p> Description: Loads the lazy columns (see {@link TransferableObjectInfoContainer#createLazyColumn(com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF)})
+ * of the TOs read by the same request. The first get() of a lazy column of one of
+ * these TOs reads the lazy columns of this TO and of the next ones of the list not
+ * loaded yet, up to the size of a batch, with a single request by primary key: iterating
+ * over the list reads one batch every [batch size] TOs.</p>
+ * <p> The values read are neither dirty nor notified to the listeners of the TOs. A TO
+ * whose row was deleted since gets null values.</p>
+ * <p> The loader only holds weak references to the TOs, so a TO of the list can be
+ * collected as soon as the application drops it, and it forgets the list once the batch
+ * of the last TO is loaded: a TO before it that is still not loaded is loaded alone.</p>
+ */
+public abstract class LazyColumnLoader {
+
+	private final ColumnInfo<?>[] primaryKeyColumns;
+	private final ColumnInfo<?>[] lazyColumns;
+	private final int batchSize;
+
+	private List<WeakReference<TransferableObject>> tos;
+
+	/**
+	 * @param clazz The class of the TOs
+	 * @param batchSize The maximum number of TOs loaded by a request
+	 */
+	protected LazyColumnLoader(Class<? extends TransferableObject> clazz, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+		}
+		this.primaryKeyColumns = TOStructureRegistry.getPrimaryKeyColumns(clazz);
+		this.lazyColumns = TOStructureRegistry.getLazyColumns(clazz);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Makes the TOs load their lazy columns through this loader.
+	 * @param tos The TOs read by the request, in order; read without their lazy columns
+	 */
+	public synchronized void attach(List<? extends TransferableObject> tos) {
+		this.tos = new ArrayList<WeakReference<TransferableObject>>(tos.size());
+		for (TransferableObject to : tos) {
+			if (!to.isFullyLoaded()) {
+				to.setLazyLoader(this, this.tos.size());
+				this.tos.add(new WeakReference<TransferableObject>(to));
+			}
+		}
+	}
+	
+	/**
+	 * Makes TOs stop loading their lazy columns through their loader, i.e. the copies
+	 * kept by a cache, which must not keep the loader alive; a new loader can be attached
+	 * to them later.
+	 * @param tos
+	 */
+	public static void detach(Collection<? extends TransferableObject> tos) {
+		for (TransferableObject to : tos) {
+			to.setLazyLoader(null, -1);
+		}
+	}
+
+	/**
+	 * Reads some columns of TOs by primary key.
+	 * @param tos The TOs to read
+	 * @param columns The columns to read along with the primary key
+	 * @return The TOs read, in any order, only holding the primary key and the columns
+	 * @throws SQLException
+	 */
+	protected abstract List<? extends TransferableObject> fetch(List<TransferableObject> tos, ColumnInfo<?>[] columns) throws SQLException;
+
+	/**
+	 * Loads the lazy columns of a TO and of the next ones of the batch, done by
+	 * {@link TransferableObject#get(TransferableObjectInfo)}.
+	 * @param to
+	 * @throws IllegalStateException If the columns can't be read
+	 */
+	synchronized void load(TransferableObject to) {
+		if (to.getLazyLoader() != this) {
+			// Loaded by an other thread meanwhile
+			return;
+		}
+
+		List<TransferableObject> batch = getBatch(to);
+		List<? extends TransferableObject> rows;
+		try {
+			rows = fetch(batch, lazyColumns);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Can't load the lazy columns of " + to.getClass().getSimpleName(), e);
+		}
+
+		Map<Object, TransferableObject> rowsByPrimaryKey = new HashMap<Object, TransferableObject>(rows.size() * 2);
+		for (TransferableObject row : rows) {
+			rowsByPrimaryKey.put(getPrimaryKey(row), row);
+		}
+		for (TransferableObject loaded : batch) {
+			loaded.loadLazyColumns(rowsByPrimaryKey.get(getPrimaryKey(loaded)), lazyColumns);
+		}
+	}
+
+	/*
+	 * The TO and the next ones of the list still to load. A copy of a TO of the list
+	 * is loaded alone.
+	 */
+	private List<TransferableObject> getBatch(TransferableObject to) {
+		List<TransferableObject> batch = new ArrayList<TransferableObject>(batchSize);
+		batch.add(to);
+
+		int position = to.getLazyPosition();
+		if (tos != null && position >= 0 && position < tos.size() && tos.get(position).get() == to) {
+			int i = position + 1;
+			for (; i < tos.size() && batch.size() < batchSize; i++) {
+				TransferableObject next = tos.get(i).get();
+				if (next != null && next.getLazyLoader() == this) {
+					batch.add(next);
+				}
+			}
+			if (i == tos.size()) {
+				// The batch of the last TO
+				tos = null;
+			}
+		}
+		return batch;
+	}
+
+	private Object getPrimaryKey(TransferableObject to) {
+		if (primaryKeyColumns.length == 1) {
+			return to.get(primaryKeyColumns[0]);
+		}
+
+		Object[] values = new Object[primaryKeyColumns.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = to.get(primaryKeyColumns[i]);
+		}
+		return Arrays.asList(values);
+	}
+}
@@ -0,0 +1,173 @@
+package com.philippelangevin.sdk.database.transferableObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p> Title: {@link TOChangeSet} <p>
+ * <p> Description: The differences between two collections of TOs, as found by
+ * their primary keys: the TOs to insert, to delete, to update and those left unchanged.</p>
+ * <p> Both collections are indexed by primary key in a hash map, so computing a change
+ * set is linear in the size of the collections. As with
+ * {@link TransferableObject#shallowEquals(Object)}, a TO with a null primary key value
+ * never matches another TO.</p>
+ */
+public class TOChangeSet<T extends TransferableObject> {
+
+	private final List<T> toInsert;
+	private final List<T> toDelete;
+	private final List<T> toUpdate;
+	private final List<T> originalsToUpdate;
+	private final List<T> unchanged;
+
+	/*
+	 * The primary key values of a TO, along with its class.
+	 */
+	private static final class PrimaryKey {
+		private final Class<?> clazz;
+		private final Object[] values;
+		private final int hash;
+
+		private PrimaryKey(Class<?> clazz, Object[] values) {
+			this.clazz = clazz;
+			this.values = values;
+			this.hash = 31 * clazz.hashCode() + Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			} else if (!(o instanceof PrimaryKey)) {
+				return false;
+			}
+
+			PrimaryKey other = (PrimaryKey) o;
+			return hash == other.hash && clazz.equals(other.clazz) && Arrays.equals(values, other.values);
+		}
+	}
+
+	private TOChangeSet(List<T> toInsert, List<T> toDelete, List<T> toUpdate, List<T> originalsToUpdate, List<T> unchanged) {
+		this.toInsert = Collections.unmodifiableList(toInsert);
+		this.toDelete = Collections.unmodifiableList(toDelete);
+		this.toUpdate = Collections.unmodifiableList(toUpdate);
+		this.originalsToUpdate = Collections.unmodifiableList(originalsToUpdate);
+		this.unchanged = Collections.unmodifiableList(unchanged);
+	}
+
+	/**
+	 * Computes the changes required to go from the TOs in beforeTOList to the ones in afterTOList.
+	 * The TOs to update and the unchanged TOs are the instances of afterTOList.
+	 * @param beforeTOList The TOs as they are in the database, null is an empty collection.
+	 * @param afterTOList The TOs as they should be, null is an empty collection.
+	 * @return The change set
+	 */
+	public static <T extends TransferableObject> TOChangeSet<T> compute(Collection<T> beforeTOList, Collection<T> afterTOList) {
+		int beforeSize = (beforeTOList == null ? 0 : beforeTOList.size());
+		int afterSize = (afterTOList == null ? 0 : afterTOList.size());
+
+		// We index the 'before' TOs by primary key
+		Map<PrimaryKey, T> beforeByKey = new HashMap<PrimaryKey, T>(Math.max(16, beforeSize * 4 / 3 + 1));
+		List<T> toDelete = new ArrayList<T>();
+		if (beforeTOList != null) {
+			for (T to : beforeTOList) {
+				PrimaryKey key = getPrimaryKey(to);
+				if (key == null) {
+					toDelete.add(to);
+				} else {
+					T previous = beforeByKey.put(key, to);
+					if (previous != null) {
+						// Duplicated key, the first instance can only be deleted
+						toDelete.add(previous);
+					}
+				}
+			}
+		}
+
+		List<T> toInsert = new ArrayList<T>();
+		List<T> toUpdate = new ArrayList<T>();
+		List<T> originalsToUpdate = new ArrayList<T>();
+		List<T> unchanged = new ArrayList<T>(Math.min(beforeSize, afterSize));
+		if (afterTOList != null) {
+			for (T to : afterTOList) {
+				PrimaryKey key = getPrimaryKey(to);
+				T before = (key == null ? null : beforeByKey.remove(key));
+
+				if (before == null) {
+					toInsert.add(to);
+				} else if (to.deepEquals(before)) {
+					unchanged.add(to);
+				} else {
+					toUpdate.add(to);
+					originalsToUpdate.add(before);
+				}
+			}
+		}
+
+		// What is left was not found in the 'after' TOs
+		toDelete.addAll(beforeByKey.values());
+
+		return new TOChangeSet<T>(toInsert, toDelete, toUpdate, originalsToUpdate, unchanged);
+	}
+
+	private static PrimaryKey getPrimaryKey(TransferableObject to) {
+		TransferableObjectStructureIF structure = to.getTOStructure();
+		ColumnInfo<?>[] columns = structure.getColumns();
+		int primaryKeySize = structure.getPrimaryKeySize();
+
+		Object[] values = new Object[primaryKeySize];
+		for (int i = 0; i < primaryKeySize; i++) {
+			values[i] = to.get(columns[i]);
+			if (values[i] == null) {
+				return null;
+			}
+		}
+		return new PrimaryKey(to.getClass(), values);
+	}
+
+	public List<T> getTOsToInsert() {
+		return toInsert;
+	}
+
+	public List<T> getTOsToDelete() {
+		return toDelete;
+	}
+
+	public List<T> getTOsToUpdate() {
+		return toUpdate;
+	}
+
+	/**
+	 * @return The 'before' TOs matching the TOs to update, in the same order, to know
+	 * which columns changed
+	 */
+	public List<T> getOriginalTOsToUpdate() {
+		return originalsToUpdate;
+	}
+	
+	public List<T> getUnchangedTOs() {
+		return unchanged;
+	}
+
+	/**
+	 * @return True if there is nothing to insert, delete or update.
+	 */
+	public boolean isEmpty() {
+		return toInsert.isEmpty() && toDelete.isEmpty() && toUpdate.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "TOChangeSet[insert=" + toInsert.size() + ", delete=" + toDelete.size() + ", update=" + toUpdate.size() + ", unchanged=" + unchanged.size() + "]";
+	}
+}
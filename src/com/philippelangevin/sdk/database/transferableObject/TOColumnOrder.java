@@ -0,0 +1,29 @@
+package com.philippelangevin.sdk.database.transferableObject;
+
+import com.philippelangevin.sdk.dataStructure.Tuple.Triple;
+import com.philippelangevin.sdk.database.dbAccess.AbstractDatabaseDAO;
+import com.philippelangevin.sdk.database.dbAccess.DatabaseAccessObjectIF.QueryBuilder.QueryOrderDirection;
+
+
+/**
+ * <p> Title: {@link TOColumnOrder} </p>
+ * <p> Description: Represents a TO column to sort by, with its direction and whether its
+ * nulls come first, as given to {@link AbstractDatabaseDAO#selectTOList(Class, java.util.List, java.util.List, int, int, ColumnInfo...)}. </p>
+ */
+public class TOColumnOrder<T> extends Triple<TransferableObjectInfo<T>, QueryOrderDirection, Boolean> {
+	public TOColumnOrder(ColumnInfo<T> column, QueryOrderDirection direction, boolean nullsFirst) {
+		super(column, direction, nullsFirst);
+	}
+
+	public TransferableObjectInfo<T> getColumn() {
+		return super.getFirst();
+	}
+
+	public QueryOrderDirection getDirection() {
+		return super.getSecond();
+	}
+
+	public boolean isNullsFirst() {
+		return super.getThird();
+	}
+}
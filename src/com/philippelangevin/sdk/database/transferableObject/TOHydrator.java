@@ -0,0 +1,86 @@
+package com.philippelangevin.sdk.database.transferableObject;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * <p> Title: {@link TOHydrator} <p>
+ * <p> Description: Creates TOs from the rows of a ResultSet, knowing in advance at which
+ * index each field is. The values are read with the getters of their meta data and stored
+ * directly in the TOs, without going through {@link TransferableObject#set(TransferableObjectInfo, Object)}.</p>
+ */
+public final class TOHydrator<T extends TransferableObject> {
+	
+	private final Class<T> TOClass;
+	private final TransferableObjectInfo<?>[] fields;
+	private final int[] columnIndexes;
+	
+	/*
+	 * A bit per column read, null if all the columns are read.
+	 */
+	private final long[] loadedColumns;
+	
+	/**
+	 * @param TOClass The class of the TOs to create
+	 * @param fields The fields to read, columns or additional fields of TOClass
+	 * @param columnIndexes The index of each field in the ResultSet, 1-based
+	 */
+	public TOHydrator(Class<T> TOClass, TransferableObjectInfo<?>[] fields, int[] columnIndexes) {
+		if (fields.length != columnIndexes.length) {
+			throw new IllegalArgumentException("There should be one index per field");
+		}
+		this.TOClass = TOClass;
+		this.fields = fields.clone();
+		this.columnIndexes = columnIndexes.clone();
+		
+		int columnCount = TOStructureRegistry.getStructure(TOClass).getColumns().length;
+		long[] loaded = new long[(columnCount + 63) >>> 6];
+		int loadedCount = 0;
+		for (TransferableObjectInfo<?> field : fields) {
+			int ordinal = TransferableObjectInfoContainer.getOrdinal(field);
+			if (field instanceof ColumnInfo<?> && ordinal >= 0 && ordinal < columnCount && (loaded[ordinal >>> 6] & (1L << ordinal)) == 0) {
+				loaded[ordinal >>> 6] |= 1L << ordinal;
+				loadedCount++;
+			}
+		}
+		this.loadedColumns = (loadedCount == columnCount ? null : loaded);
+	}
+	
+	public Class<T> getTOClass() {
+		return TOClass;
+	}
+	
+	/**
+	 * @return The number of fields read from each row.
+	 */
+	public int size() {
+		return fields.length;
+	}
+	
+	/**
+	 * Creates a TO from the current row of the ResultSet. A field whose value
+	 * can't be read is left unset. The TO starts with no dirty column, and the
+	 * columns that are not in the ResultSet are not loaded (see
+	 * {@link TransferableObject#isLoaded(ColumnInfo)}).
+	 * @param rs
+	 * @return The TO
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 */
+	public T read(ResultSet rs) throws InstantiationException, IllegalAccessException {
+		T TO = TOClass.newInstance();
+		for (int i = 0; i < fields.length; i++) {
+			try {
+				TO.hydrate(fields[i], fields[i].getMetaData().read(rs, columnIndexes[i]));
+			} catch (SQLException e) {
+				// The column is there, but its value couldn't be read
+				e.printStackTrace();
+			}
+		}
+		TO.markClean();
+		if (loadedColumns != null) {
+			TO.setLoadedColumns(loadedColumns);
+		}
+		return TO;
+	}
+}
@@ -0,0 +1,135 @@
+package com.philippelangevin.sdk.database.transferableObject;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p> Title: {@link TOStructureRegistry} <p>
+ * <p> Description: The structure of each TO class, resolved once: from a static field of
+ * the class holding a {@link TransferableObjectStructureIF} if there is one, otherwise by
+ * creating a single instance of the TO. The primary key columns and the other columns
+ * are split once as well, and so are the lazy columns from the others.</p>
+ * <p> The arrays returned are shared and must not be modified.</p>
+ */
+public final class TOStructureRegistry {
+
+	private static final class Entry {
+		private final TransferableObjectStructureIF structure;
+		private final ColumnInfo<?>[] primaryKeyColumns;
+		private final ColumnInfo<?>[] nonPrimaryKeyColumns;
+		private final ColumnInfo<?>[] lazyColumns;
+		private final ColumnInfo<?>[] eagerColumns;
+
+		private Entry(TransferableObjectStructureIF structure) {
+			ColumnInfo<?>[] columns = structure.getColumns();
+			int primaryKeySize = structure.getPrimaryKeySize();
+
+			this.structure = structure;
+			this.primaryKeyColumns = new ColumnInfo<?>[primaryKeySize];
+			this.nonPrimaryKeyColumns = new ColumnInfo<?>[columns.length - primaryKeySize];
+			System.arraycopy(columns, 0, primaryKeyColumns, 0, primaryKeySize);
+			System.arraycopy(columns, primaryKeySize, nonPrimaryKeyColumns, 0, nonPrimaryKeyColumns.length);
+
+			List<ColumnInfo<?>> lazy = new ArrayList<ColumnInfo<?>>();
+			List<ColumnInfo<?>> eager = new ArrayList<ColumnInfo<?>>();
+			for (ColumnInfo<?> column : nonPrimaryKeyColumns) {
+				if (TransferableObjectInfoContainer.isLazy(column)) {
+					lazy.add(column);
+				} else {
+					eager.add(column);
+				}
+			}
+			this.lazyColumns = lazy.toArray(new ColumnInfo<?>[lazy.size()]);
+			this.eagerColumns = (lazy.isEmpty() ? null : eager.toArray(new ColumnInfo<?>[eager.size()]));
+		}
+	}
+
+	private static final ConcurrentMap<Class<?>, Entry> ENTRIES = new ConcurrentHashMap<Class<?>, Entry>();
+
+	private TOStructureRegistry() {
+	}
+
+	private static Entry getEntry(Class<? extends TransferableObject> clazz) {
+		Entry entry = ENTRIES.get(clazz);
+		if (entry == null) {
+			// Two threads might resolve the same class, both get the same structure
+			entry = new Entry(resolveStructure(clazz));
+			Entry previous = ENTRIES.putIfAbsent(clazz, entry);
+			if (previous != null) {
+				entry = previous;
+			}
+		}
+		return entry;
+	}
+
+	private static TransferableObjectStructureIF resolveStructure(Class<? extends TransferableObject> clazz) {
+		for (Class<?> c = clazz; c != TransferableObject.class && c != null; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) && TransferableObjectStructureIF.class.isAssignableFrom(field.getType())) {
+					try {
+						field.setAccessible(true);
+						TransferableObjectStructureIF structure = (TransferableObjectStructureIF) field.get(null);
+						if (structure != null) {
+							return structure;
+						}
+					} catch (Exception e) {
+						// We'll fall back on an instance
+					}
+				}
+			}
+		}
+
+		// Most TOs keep their structure in an instance field
+		try {
+			return clazz.newInstance().getTOStructure();
+		} catch (Exception e) {
+			throw new IllegalStateException("Can't get the structure of " + clazz.getName(), e);
+		}
+	}
+
+	/**
+	 * @param clazz
+	 * @return The structure of the TO class
+	 */
+	public static TransferableObjectStructureIF getStructure(Class<? extends TransferableObject> clazz) {
+		return getEntry(clazz).structure;
+	}
+
+	/**
+	 * @param clazz
+	 * @return The columns of the primary key, in order
+	 */
+	public static ColumnInfo<?>[] getPrimaryKeyColumns(Class<? extends TransferableObject> clazz) {
+		return getEntry(clazz).primaryKeyColumns;
+	}
+
+	/**
+	 * @param clazz
+	 * @return The columns that are not part of the primary key, in order
+	 */
+	public static ColumnInfo<?>[] getNonPrimaryKeyColumns(Class<? extends TransferableObject> clazz) {
+		return getEntry(clazz).nonPrimaryKeyColumns;
+	}
+
+	/**
+	 * @param clazz
+	 * @return The columns created by {@link TransferableObjectInfoContainer#createLazyColumn(com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF)},
+	 * out of the primary key, in order; none for most TOs
+	 */
+	public static ColumnInfo<?>[] getLazyColumns(Class<? extends TransferableObject> clazz) {
+		return getEntry(clazz).lazyColumns;
+	}
+
+	/**
+	 * @param clazz
+	 * @return The columns out of the primary key that are not lazy, in order; null if
+	 * no column is lazy
+	 */
+	public static ColumnInfo<?>[] getEagerColumns(Class<? extends TransferableObject> clazz) {
+		return getEntry(clazz).eagerColumns;
+	}
+}
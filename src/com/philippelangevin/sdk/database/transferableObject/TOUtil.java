@@ -508,36 +508,12 @@ public class TOUtil {
 	
 	/**
 	 * Returns the TO structure base on a TO class.
+	 * The structure is only resolved once per class, see {@link TOStructureRegistry}.
 	 * @param clazz
 	 * @return
 	 */
 	public static TransferableObjectStructureIF getTOStructure(Class<? extends TransferableObject> clazz) {
-		// Method 1: Using reflection, access the private static field of the TO structure.
-		// Problem: With the old TOs it will not work since the structure is not in a static field.
-		//          It might also not be the most efficient way to do this.
-//		Exception lastException = null;
-//		for (Field field: clazz.getDeclaredFields()) {
-//			if (Modifier.isStatic(field.getModifiers())) {
-//				try {
-//					field.setAccessible(true);
-//					Object o = field.get(null);
-//					if (o instanceof TransferableObjectStructureIF) {
-//						return (TransferableObjectStructureIF) o;
-//					}
-//				} catch (Exception e) {
-//					lastException = e;
-//				}
-//			}
-//		}
-//		throw new IllegalStateException(lastException);
-		
-		// Method 2: Create a new TO instance and return the structure.
-		// Problem: We assume there is an empty constructor (this assumption is often made for TOs anyway).
-		try {
-			return clazz.newInstance().getTOStructure();
-		} catch (Exception e) {
-			throw new IllegalStateException(e);
-		}
+		return TOStructureRegistry.getStructure(clazz);
 	}
 	
 	/**
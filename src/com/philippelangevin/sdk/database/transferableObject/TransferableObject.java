@@ -7,9 +7,6 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.philippelangevin.sdk.dataStructure.HashCodeUtil;
@@ -47,16 +44,47 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 	 */
 	private static AtomicInteger uidCounter = new AtomicInteger();
 	private Integer uid = uidCounter.incrementAndGet();
-	private PropertyChangeSupport propertyChangeSupport;
-	protected Map<ColumnInfo<?>,Object> columnsDataMap;
-	protected Map<AdditionalFieldInfo<?>,Object> additionnalFieldsDataMap;
-	private Map<TransferableObjectInfo<?>, String> dbFieldToProperty;
+	private static final Object[] NO_VALUES = {};
+	
+	/*
+	 * The listener support is only created with the first listener.
+	 */
+	private PropertyChangeSupport propertyChangeSupport = null;
+	
+	/*
+	 * The values are indexed by the ordinal of their field in its TransferableObjectInfoContainer,
+	 * which is also its index in getTOStructure().getColumns() or getAdditionalFields().
+	 * A bit per field (the columns, then the additional fields) tells whether it has a value,
+	 * since a field set to null is different from a field never set.
+	 * The arrays are allocated on the first write, as the structure of a TO is often an instance
+	 * field of the subclass which isn't initialized yet in this constructor.
+	 */
+	private Object[] columnValues = null;
+	private Object[] additionalFieldValues = null;
+	private long[] presentValues = null;
+	
+	/*
+	 * A bit per column modified since the TO was read from the database or last saved.
+	 * It is null as long as the TO was neither read nor saved: its columns are then all
+	 * considered modified, as nothing tells what the database holds.
+	 */
+	private long[] dirtyColumns = null;
+	
+	/*
+	 * A bit per column read from the database, when only some columns were selected.
+	 * It is null when all the columns are loaded, which is the case of any TO not read
+	 * with a projection. Setting a column marks it loaded.
+	 */
+	private long[] loadedColumns = null;
+	
+	/*
+	 * Loads the lazy columns of the TO on their first get(), null once they are loaded
+	 * or if the TO was read with all its columns.
+	 */
+	private transient volatile LazyColumnLoader lazyLoader = null;
+	private transient int lazyPosition = -1;
 	
 	protected TransferableObject() {
-		columnsDataMap = new TreeMap<ColumnInfo<? extends Object>, Object>();
-		additionnalFieldsDataMap = new TreeMap<AdditionalFieldInfo<? extends Object>, Object>();
-		dbFieldToProperty = new HashMap<TransferableObjectInfo<?>, String>();
-		propertyChangeSupport = new PropertyChangeSupport(this);
 	}
 	
 	protected TransferableObject(TransferableObject to) {
@@ -64,6 +92,83 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 		synch(to);
 	}
 	
+	private void allocateValues(int columnCount, int additionalFieldCount) {
+		columnValues = (columnCount == 0 ? NO_VALUES : new Object[columnCount]);
+		additionalFieldValues = (additionalFieldCount == 0 ? NO_VALUES : new Object[additionalFieldCount]);
+		presentValues = new long[(columnCount + additionalFieldCount + 63) >>> 6];
+	}
+	
+	private void ensureValuesAllocated() {
+		if (columnValues == null) {
+			TransferableObjectStructureIF structure = getTOStructure();
+			allocateValues(structure.getColumns().length, structure.getAdditionalFields().length);
+		}
+	}
+	
+	/*
+	 * Returns the slot of a field: its ordinal for a column, the number of columns plus its
+	 * ordinal for an additional field. Returns -1 if the values aren't allocated yet or if
+	 * the field is not part of this TO: the ordinal of a field of an other container may
+	 * be in range, so the field found at this ordinal in the structure must be this one.
+	 */
+	private int getSlot(TransferableObjectInfo<?> toInfo) {
+		int ordinal = TransferableObjectInfoContainer.getOrdinal(toInfo);
+		if (toInfo instanceof ColumnInfo<?>) {
+			if (columnValues == null || ordinal < 0 || ordinal >= columnValues.length
+					|| getTOStructure().getColumns()[ordinal] != toInfo) {
+				return -1;
+			}
+			return ordinal;
+		} else if (toInfo instanceof AdditionalFieldInfo<?>) {
+			if (additionalFieldValues == null || ordinal < 0 || ordinal >= additionalFieldValues.length
+					|| getTOStructure().getAdditionalFields()[ordinal] != toInfo) {
+				return -1;
+			}
+			return columnValues.length + ordinal;
+		} else {
+			throw new IllegalArgumentException();
+		}
+	}
+	
+	private Object getSlotValue(int slot) {
+		if (slot < columnValues.length) {
+			return columnValues[slot];
+		}
+		return additionalFieldValues[slot - columnValues.length];
+	}
+	
+	private void setSlotValue(int slot, Object value) {
+		if (slot < columnValues.length) {
+			columnValues[slot] = value;
+		} else {
+			additionalFieldValues[slot - columnValues.length] = value;
+		}
+		presentValues[slot >>> 6] |= 1L << slot;
+		markSlotDirty(slot);
+		if (loadedColumns != null && slot < columnValues.length) {
+			loadedColumns[slot >>> 6] |= 1L << slot;
+		}
+	}
+	
+	private void markSlotDirty(int slot) {
+		if (dirtyColumns != null && slot < columnValues.length) {
+			dirtyColumns[slot >>> 6] |= 1L << slot;
+		}
+	}
+	
+	/*
+	 * Whether a slot holds the value of the database, i.e. an additional field or a
+	 * loaded column. Also true for -1: the values aren't allocated yet.
+	 */
+	private boolean isSlotLoaded(int slot) {
+		return loadedColumns == null || slot < 0 || slot >= columnValues.length
+				|| (loadedColumns[slot >>> 6] & (1L << slot)) != 0;
+	}
+	
+	private boolean isSlotPresent(int slot) {
+		return (presentValues[slot >>> 6] & (1L << slot)) != 0;
+	}
+	
 	/**
 	 * Copies the data of the provided TO in this instance.
 	 * Both TOs must be of the same class.
@@ -72,37 +177,75 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 	public void synch(TransferableObject to){
 		if (this.getClass() != to.getClass()){
 			throw new ClassCastException("Mismatch between " + this.getClass().toString() + " and " + to.getClass().toString() + "!");
+		} else if (to.columnValues == null) {
+			return;
+		}
+		
+		// This TO might still be in its constructor, so its own structure isn't used
+		if (columnValues == null) {
+			allocateValues(to.columnValues.length, to.additionalFieldValues.length);
+			loadedColumns = (to.loadedColumns == null ? null : to.loadedColumns.clone());
+			lazyLoader = to.lazyLoader;
+		} else if (loadedColumns != null) {
+			if (to.loadedColumns == null) {
+				loadedColumns = null;
+				lazyLoader = null;
+			} else {
+				if (lazyLoader == null) {
+					lazyLoader = to.lazyLoader;
+				}
+				for (int i = 0; i < loadedColumns.length; i++) {
+					loadedColumns[i] |= to.loadedColumns[i];
+				}
+			}
 		}
 		
 		//Copy everything
-		for(ColumnInfo<?> ci : to.columnsDataMap.keySet()){
-			Object oldValue = columnsDataMap.get(ci);
-			Object newValue = ci.getMetaData().copy(to.columnsDataMap.get(ci));
-			columnsDataMap.put(ci, newValue);
-			firePropertyChange(ci, oldValue, newValue);
+		TransferableObjectStructureIF structure = to.getTOStructure();
+		copyValues(to, this, structure.getColumns(), true);
+		copyValues(to, this, structure.getAdditionalFields(), true);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static void copyValues(TransferableObject from, TransferableObject to, TransferableObjectInfo<?>[] fields, boolean fireEvents) {
+		for (TransferableObjectInfo<?> field : fields) {
+			int slot = from.getSlot(field);
+			if (slot >= 0 && from.isSlotPresent(slot)) {
+				Object oldValue = to.getSlotValue(slot);
+				Object newValue = ((TransferableObjectInfo<Object>) field).getMetaData().copy(from.getSlotValue(slot));
+				to.setSlotValue(slot, newValue);
+				if (fireEvents) {
+					to.firePropertyChange(field, oldValue, newValue);
+				}
+			}
 		}
-		for(AdditionalFieldInfo<?> afi : to.additionnalFieldsDataMap.keySet()){
-			Object oldValue = additionnalFieldsDataMap.get(afi);
-			Object newValue = afi.getMetaData().copy(to.additionnalFieldsDataMap.get(afi));
-			additionnalFieldsDataMap.put(afi, newValue);
-			firePropertyChange(afi, oldValue, newValue);
+	}
+	
+	private PropertyChangeSupport getPropertyChangeSupport() {
+		if (propertyChangeSupport == null) {
+			propertyChangeSupport = new PropertyChangeSupport(this);
 		}
+		return propertyChangeSupport;
 	}
 	
 	public void addPropertyChangeListener(PropertyChangeListener listener) {
-		propertyChangeSupport.addPropertyChangeListener(listener);
+		getPropertyChangeSupport().addPropertyChangeListener(listener);
 	}
 
 	public void removePropertyChangeListener(PropertyChangeListener listener) {
-		propertyChangeSupport.removePropertyChangeListener(listener);
+		if (propertyChangeSupport != null) {
+			propertyChangeSupport.removePropertyChangeListener(listener);
+		}
 	}
 
 	public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
-		propertyChangeSupport.addPropertyChangeListener(propertyName, listener);
+		getPropertyChangeSupport().addPropertyChangeListener(propertyName, listener);
 	}
 
 	public void removePropertyChangeListener(String propertyName, PropertyChangeListener listener) {
-		propertyChangeSupport.removePropertyChangeListener(propertyName, listener);
+		if (propertyChangeSupport != null) {
+			propertyChangeSupport.removePropertyChangeListener(propertyName, listener);
+		}
 	}
 
 	public void addPropertyChangeListener(TransferableObjectInfo<?> column, PropertyChangeListener listener) {
@@ -114,7 +257,9 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 	}
 
 	protected void firePropertyChange(TransferableObjectInfo<?> column, Object oldValue, Object newValue) {
-		propertyChangeSupport.firePropertyChange(getPropertyName(column), oldValue, newValue);
+		if (propertyChangeSupport != null) {
+			propertyChangeSupport.firePropertyChange(getPropertyName(column), oldValue, newValue);
+		}
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -131,31 +276,35 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 		}
 		
 		//Copy everything
-		for(ColumnInfo<? extends Object> ci : orig.columnsDataMap.keySet()){
-			copy.columnsDataMap.put(ci, ci.getMetaData().copy(orig.columnsDataMap.get(ci)));
-		}
-		for(AdditionalFieldInfo<? extends Object> afi : orig.additionnalFieldsDataMap.keySet()){
-			copy.additionnalFieldsDataMap.put(afi, afi.getMetaData().copy(orig.additionnalFieldsDataMap.get(afi)));
+		TransferableObject source = orig;
+		if (source.columnValues != null) {
+			copy.allocateValues(source.columnValues.length, source.additionalFieldValues.length);
+			TransferableObjectStructureIF structure = source.getTOStructure();
+			copyValues(source, copy, structure.getColumns(), false);
+			copyValues(source, copy, structure.getAdditionalFields(), false);
+			copy.dirtyColumns = (source.dirtyColumns == null ? null : source.dirtyColumns.clone());
+			copy.loadedColumns = (source.loadedColumns == null ? null : source.loadedColumns.clone());
+			copy.lazyLoader = source.lazyLoader;
 		}
 		return (T)copy;
 	}
 	
 	public String getPropertyName(TransferableObjectInfo<?> column) {
-		if (!dbFieldToProperty.containsKey(column)) {
-			dbFieldToProperty.put(column, TOUtil.getPropertyName(column));
-		}
-		return dbFieldToProperty.get(column);
+		return TransferableObjectInfoContainer.getPropertyName(column);
 	}
 	
 	@SuppressWarnings("unchecked")
 	public <T> T get(TransferableObjectInfo<T> toInfo) {
-		if (toInfo instanceof ColumnInfo) {
-			return (T) columnsDataMap.get(toInfo);
-		} else if (toInfo instanceof AdditionalFieldInfo) {
-			return (T) additionnalFieldsDataMap.get(toInfo);
-		} else {
-			throw new IllegalArgumentException();
+		int slot = getSlot(toInfo);
+		if (slot < 0) {
+			return null;
+		}
+		
+		LazyColumnLoader loader = lazyLoader;
+		if (loader != null && !isSlotLoaded(slot)) {
+			loader.load(this);
 		}
+		return (T) getSlotValue(slot);
 	}
 	
 	/**
@@ -163,19 +312,23 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 	 * @param <T> Type associated with the field that's being edited
 	 * @param toInfo Identifier for the field to edit
 	 * @param value Value to put in the field
+	 * A column that is not loaded (see {@link #isLoaded(ColumnInfo)}) is always changed,
+	 * its value in the database being unknown; a lazy column is not read to be compared.
 	 * @return true if the value was actually changed; false if the old and new value were equal.
 	 */
 	public <T> boolean set(TransferableObjectInfo<T> toInfo, T value) {
-		T old = get(toInfo);
-		if (!ObjectUtil.equals(value, old)) {
+		boolean loaded = isSlotLoaded(getSlot(toInfo));
+		T old = (loaded ? get(toInfo) : null);
+		if (!loaded || !ObjectUtil.equals(value, old)) {
 			value = toInfo.getMetaData().parse(value);
-			if (toInfo instanceof ColumnInfo<?>) {
-				columnsDataMap.put((ColumnInfo<T>) toInfo, value);
-			} else if (toInfo instanceof AdditionalFieldInfo<?>) {
-				additionnalFieldsDataMap.put((AdditionalFieldInfo<T>) toInfo, value);
-			} else {
-				throw new IllegalArgumentException();
+			
+			ensureValuesAllocated();
+			int slot = getSlot(toInfo);
+			if (slot < 0) {
+				throw new IllegalArgumentException(toInfo + " is not a field of " + getClass().getSimpleName());
 			}
+			setSlotValue(slot, value);
+			
 			firePropertyChange(toInfo, old, value);
 			return true;
 		} else {
@@ -183,6 +336,27 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 		}
 	}
 	
+	/**
+	 * Stores a value read from the database in a TO that was just created, without the
+	 * work of {@link #set(TransferableObjectInfo, Object)}: the value is already decoded,
+	 * can't be equal to a previous one and nobody listens to a new TO.
+	 * As with set() on a new TO, a null value is not stored.
+	 * @param toInfo
+	 * @param value The value, as returned by the meta data of the field
+	 */
+	void hydrate(TransferableObjectInfo<?> toInfo, Object value) {
+		if (value == null) {
+			return;
+		}
+		
+		ensureValuesAllocated();
+		int slot = getSlot(toInfo);
+		if (slot < 0) {
+			throw new IllegalArgumentException(toInfo + " is not a field of " + getClass().getSimpleName());
+		}
+		setSlotValue(slot, value);
+	}
+	
 	/**
 	 * This method is useful to know if a field has been set... there is a difference
 	 * between a value that has never been set, and a value that has been set to null.
@@ -190,13 +364,8 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 	 * @return
 	 */
 	public boolean containsValue(TransferableObjectInfo<?> toInfo) {
-		if (toInfo instanceof ColumnInfo<?>) {
-			return columnsDataMap.containsKey(toInfo);
-		} else if (toInfo instanceof AdditionalFieldInfo<?>) {
-			return additionnalFieldsDataMap.containsKey(toInfo);
-		} else {
-			throw new IllegalArgumentException();
-		}
+		int slot = getSlot(toInfo);
+		return slot >= 0 && isSlotPresent(slot);
 	}
 	
 	/**
@@ -204,17 +373,171 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 	 * @param toInfo
 	 */
 	public <T> void removeValue(TransferableObjectInfo<T> toInfo) {
-		Object oldValue;
-		if (toInfo instanceof ColumnInfo<?>) {
-			oldValue = columnsDataMap.remove(toInfo);
-		} else if (toInfo instanceof AdditionalFieldInfo<?>) {
-			oldValue = additionnalFieldsDataMap.remove(toInfo);
-		} else {
-			throw new IllegalArgumentException();
+		Object oldValue = null;
+		int slot = getSlot(toInfo);
+		if (slot >= 0) {
+			oldValue = getSlotValue(slot);
+			setSlotValue(slot, null);
+			presentValues[slot >>> 6] &= ~(1L << slot);
 		}
 		firePropertyChange(toInfo, oldValue, null);
 	}
 	
+	/**
+	 * @return true if a column was modified since the TO was read from the database or
+	 * last saved, or if the TO was never read nor saved.
+	 */
+	public boolean isDirty() {
+		if (dirtyColumns == null) {
+			return true;
+		}
+		for (long dirty : dirtyColumns) {
+			if (dirty != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param column
+	 * @return true if the column was modified since the TO was read from the database or
+	 * last saved, or if the TO was never read nor saved.
+	 */
+	public boolean isDirty(ColumnInfo<?> column) {
+		if (dirtyColumns == null) {
+			return true;
+		}
+		int slot = getSlot(column);
+		return slot >= 0 && (dirtyColumns[slot >>> 6] & (1L << slot)) != 0;
+	}
+	
+	/**
+	 * Tells that the values of the TO are the ones of the database, which is done by the DAO
+	 * when the TO is read or after it is saved. The columns modified afterwards are dirty.
+	 */
+	public void markClean() {
+		ensureValuesAllocated();
+		if (dirtyColumns == null) {
+			dirtyColumns = new long[(columnValues.length + 63) >>> 6];
+		} else {
+			Arrays.fill(dirtyColumns, 0L);
+		}
+	}
+	
+	/**
+	 * Tells that the loaded columns of the TO may differ from the database, i.e. for a
+	 * TO read from another database, so the next update sets them all.
+	 */
+	public void markDirty() {
+		ensureValuesAllocated();
+		if (dirtyColumns == null) {
+			// Never read nor saved, all the columns are already dirty
+			return;
+		}
+		for (int slot = 0; slot < columnValues.length; slot++) {
+			if (isSlotLoaded(slot)) {
+				markSlotDirty(slot);
+			}
+		}
+	}
+	
+	/**
+	 * Tells whether a column holds the value of the database. A TO read with only some
+	 * of its columns returns null for the other ones, as for a null value: this method
+	 * tells them apart. A column is always loaded once it is set.
+	 * @param column
+	 * @return false if the TO was read without this column and it was not set since
+	 */
+	public boolean isLoaded(ColumnInfo<?> column) {
+		if (loadedColumns == null) {
+			return true;
+		}
+		int slot = getSlot(column);
+		return slot >= 0 && (loadedColumns[slot >>> 6] & (1L << slot)) != 0;
+	}
+	
+	/**
+	 * @return false if a column of the TO is not loaded (see {@link #isLoaded(ColumnInfo)})
+	 */
+	public boolean isFullyLoaded() {
+		if (loadedColumns == null) {
+			return true;
+		}
+		
+		int columnCount = columnValues.length;
+		for (int i = 0; i < loadedColumns.length; i++) {
+			int bits = Math.min(64, columnCount - (i << 6));
+			long all = (bits == 64 ? -1L : (1L << bits) - 1);
+			if ((loadedColumns[i] & all) != all) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Tells which columns were read from the database, done by {@link TOHydrator}
+	 * when only some columns were selected.
+	 * @param loadedColumns A bit per column, by ordinal; null if they all were
+	 */
+	void setLoadedColumns(long[] loadedColumns) {
+		ensureValuesAllocated();
+		this.loadedColumns = (loadedColumns == null ? null : loadedColumns.clone());
+	}
+	
+	LazyColumnLoader getLazyLoader() {
+		return lazyLoader;
+	}
+	
+	/**
+	 * @return The position of the TO in the list of its loader, -1 for a copy
+	 */
+	int getLazyPosition() {
+		return lazyPosition;
+	}
+	
+	/**
+	 * Loads the lazy columns of the TO through the loader on their first get(), done by
+	 * {@link LazyColumnLoader#attach(java.util.List)} once the TO was read without them.
+	 * @param lazyLoader
+	 * @param lazyPosition The position of the TO in the list of the loader
+	 */
+	void setLazyLoader(LazyColumnLoader lazyLoader, int lazyPosition) {
+		this.lazyPosition = lazyPosition;
+		this.lazyLoader = lazyLoader;
+	}
+	
+	/**
+	 * Sets the values of the lazy columns read by the {@link LazyColumnLoader}, as they
+	 * are in the database: they are neither dirty nor notified. A column set since the
+	 * TO was read keeps its value.
+	 * @param row A TO holding the values read, null if the row was deleted since
+	 * @param columns The lazy columns
+	 */
+	void loadLazyColumns(TransferableObject row, ColumnInfo<?>[] columns) {
+		if (loadedColumns == null) {
+			// Synchronized meanwhile with a TO holding all the columns
+			lazyLoader = null;
+			return;
+		}
+		
+		for (ColumnInfo<?> column : columns) {
+			int slot = getSlot(column);
+			if (slot < 0 || (loadedColumns[slot >>> 6] & (1L << slot)) != 0) {
+				continue;
+			}
+			
+			Object value = (row == null ? null : row.get(column));
+			columnValues[slot] = value;
+			if (value != null) {
+				presentValues[slot >>> 6] |= 1L << slot;
+			}
+			loadedColumns[slot >>> 6] |= 1L << slot;
+		}
+		lazyLoader = null;
+	}
+	
 	public abstract TransferableObjectStructureIF getTOStructure();
 	
 	/**
@@ -357,27 +680,37 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 					return false;
 				}
 			}
-			//handle null values
-			else if (value1 == null || value2 == null){
-				//an auto-number with a null value is necessarily not equal
-				if (columns[i].getMetaData().isAutoNumber() || value1 != null || value2 != null) {
-					return false;
-				}
-			}
-			//handle array
-			else if (value1.getClass().isArray()){
-				if (!Arrays.deepEquals((Object[])value1, (Object[])value2)) {
-					return false;
-				}
-			}
-			//handle regular base type values
-			else if (!value1.equals(value2)){
+			else if (!valueEquals(columns[i], value1, value2)) {
 				return false;
 			}
 		}
 		return true;
 	}
 	
+	/**
+	 * Compares the value of a column of two TOs, as {@link #deepEquals(Object)} does.
+	 * @param to A TO of the same class
+	 * @param column A column out of the primary key
+	 * @return true if both TOs hold the same value
+	 */
+	public boolean deepEquals(TransferableObject to, ColumnInfo<?> column) {
+		return valueEquals(column, get(column), to.get(column));
+	}
+	
+	private static boolean valueEquals(ColumnInfo<?> column, Object value1, Object value2) {
+		//handle null values
+		if (value1 == null || value2 == null){
+			//an auto-number with a null value is necessarily not equal
+			return !column.getMetaData().isAutoNumber() && value1 == null && value2 == null;
+		}
+		//handle array
+		else if (value1.getClass().isArray()){
+			return Arrays.deepEquals((Object[])value1, (Object[])value2);
+		}
+		//handle regular base type values
+		return value1.equals(value2);
+	}
+	
 	/**
 	 * @deprecated Use copy constructor instead of clone
 	 */
@@ -387,6 +720,13 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 		try {
 			TransferableObject to = (TransferableObject) super.clone();
 			to.uid = uidCounter.incrementAndGet();
+			if (columnValues != null) {
+				to.columnValues = columnValues.clone();
+				to.additionalFieldValues = (additionalFieldValues.length == 0 ? NO_VALUES : additionalFieldValues.clone());
+				to.presentValues = presentValues.clone();
+				to.dirtyColumns = (dirtyColumns == null ? null : dirtyColumns.clone());
+				to.loadedColumns = (loadedColumns == null ? null : loadedColumns.clone());
+			}
 			return to;
 			
 		} catch( CloneNotSupportedException e ) {
@@ -462,15 +802,17 @@ public abstract class TransferableObject implements Serializable, Cloneable, Com
 		return TOUtil.toStringCompact(this, printTOContent, printCollectionContent);
 	}
 
+	/**
+	 * @return The columns of the primary key. The array is shared and must not be modified.
+	 */
 	public ColumnInfo<?>[] getPrimaryColumns() {
-		ColumnInfo<?>[] col = new ColumnInfo<?>[getTOStructure().getPrimaryKeySize()];
-		System.arraycopy(getTOStructure().getColumns(), 0, col, 0, col.length);
-		return col;
+		return TOStructureRegistry.getPrimaryKeyColumns(getClass());
 	}
 
+	/**
+	 * @return The columns that are not part of the primary key. The array is shared and must not be modified.
+	 */
 	public ColumnInfo<?>[] getNonPrimaryColumns() {
-		ColumnInfo<?>[] col = new ColumnInfo<?>[getTOStructure().getColumns().length - getTOStructure().getPrimaryKeySize()];
-		System.arraycopy(getTOStructure().getColumns(), getTOStructure().getPrimaryKeySize(), col, 0, col.length);
-		return col;
+		return TOStructureRegistry.getNonPrimaryKeyColumns(getClass());
 	}
 }
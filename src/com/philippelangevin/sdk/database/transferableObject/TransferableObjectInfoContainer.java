@@ -23,6 +23,13 @@ public abstract class TransferableObjectInfoContainer {
 		private String name;
 		private TOColumnMetaDataIF<T> metaData;
 		
+		/*
+		 * The index of the field among the columns (or the additional fields) of its container,
+		 * used by the TOs as the index of its value. -1 until the container is built.
+		 */
+		private int ordinal = -1;
+		private String propertyName;
+		
 		public TransferableObjectInfoImpl(TOColumnMetaDataIF<T> metaData) {
 			this.metaData = metaData;
 		}
@@ -73,8 +80,11 @@ public abstract class TransferableObjectInfoContainer {
 	}
 	
 	private static final class ColumnInfoImpl<T> extends TransferableObjectInfoImpl<T> implements ColumnInfo<T> {
-		public ColumnInfoImpl(TOColumnMetaDataIF<T> metaData) {
+		private final boolean lazy;
+		
+		public ColumnInfoImpl(TOColumnMetaDataIF<T> metaData, boolean lazy) {
 			super(metaData);
+			this.lazy = lazy;
 		}
 	}
 	
@@ -85,13 +95,91 @@ public abstract class TransferableObjectInfoContainer {
 	}
 	
 	public static <T> ColumnInfo<T> createColumn(TOColumnMetaDataIF<T> metaData) {
-		return new ColumnInfoImpl<T>(metaData);
+		return new ColumnInfoImpl<T>(metaData, false);
+	}
+	
+	/**
+	 * Creates a column which the lists of TOs don't read, for the large texts, arrays or
+	 * binaries that are seldom used. The column is read on the first get() of its value,
+	 * for all the TOs of the same list at once (see {@link LazyColumnLoader}). A column
+	 * of the primary key is always read.
+	 * @param metaData
+	 * @return The column
+	 */
+	public static <T> ColumnInfo<T> createLazyColumn(TOColumnMetaDataIF<T> metaData) {
+		return new ColumnInfoImpl<T>(metaData, true);
 	}
 	
 	public static <T> AdditionalFieldInfo<T> createAdditionalField(TOColumnMetaDataIF<T> metaData) {
 		return new AdditionalFieldInfoImpl<T>(metaData);
 	}
 	
+	/**
+	 * @param column
+	 * @return true if the column was created by {@link #createLazyColumn(TOColumnMetaDataIF)}
+	 */
+	public static boolean isLazy(ColumnInfo<?> column) {
+		return column instanceof ColumnInfoImpl<?> && ((ColumnInfoImpl<?>) column).lazy;
+	}
+	
+	/**
+	 * Returns the index of a field among the columns, or the additional fields, of its container.
+	 * @param info
+	 * @return The index, -1 if the field wasn't created by a container.
+	 */
+	static int getOrdinal(TransferableObjectInfo<?> info) {
+		if (info instanceof TransferableObjectInfoImpl<?>) {
+			return ((TransferableObjectInfoImpl<?>) info).ordinal;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Same as {@link TOUtil#getPropertyName(TransferableObjectInfo)}, computed once per field.
+	 * @param info
+	 * @return The property name
+	 */
+	static String getPropertyName(TransferableObjectInfo<?> info) {
+		if (info instanceof TransferableObjectInfoImpl<?>) {
+			TransferableObjectInfoImpl<?> impl = (TransferableObjectInfoImpl<?>) info;
+			String propertyName = impl.propertyName;
+			if (propertyName == null) {
+				propertyName = TOUtil.getPropertyName(info);
+				impl.propertyName = propertyName;
+			}
+			return propertyName;
+		}
+		return TOUtil.getPropertyName(info);
+	}
+	
+	/**
+	 * The fields of a container, as generated at compile time for the containers
+	 * annotated with {@link GenerateTOInfo}: the fields in declaration order, their
+	 * names and their property names.
+	 */
+	public static final class Layout {
+		private final ColumnInfo<?>[] columns;
+		private final String[] columnNames;
+		private final String[] columnPropertyNames;
+		private final AdditionalFieldInfo<?>[] additionalFields;
+		private final String[] additionalFieldNames;
+		private final String[] additionalFieldPropertyNames;
+		
+		public Layout(ColumnInfo<?>[] columns, String[] columnNames, String[] columnPropertyNames,
+				AdditionalFieldInfo<?>[] additionalFields, String[] additionalFieldNames, String[] additionalFieldPropertyNames) {
+			if (columns.length != columnNames.length || columns.length != columnPropertyNames.length
+					|| additionalFields.length != additionalFieldNames.length || additionalFields.length != additionalFieldPropertyNames.length) {
+				throw new IllegalArgumentException("There should be one name and one property name per field");
+			}
+			this.columns = columns;
+			this.columnNames = columnNames;
+			this.columnPropertyNames = columnPropertyNames;
+			this.additionalFields = additionalFields;
+			this.additionalFieldNames = additionalFieldNames;
+			this.additionalFieldPropertyNames = additionalFieldPropertyNames;
+		}
+	}
+	
 	private ColumnInfo<?>[] columns;
 	private AdditionalFieldInfo<?>[] AdditionalFields;
 	
@@ -114,8 +202,10 @@ public abstract class TransferableObjectInfoContainer {
 						if (ci instanceof TransferableObjectInfoImpl<?>) {
 							((TransferableObjectInfoImpl<?>)ci).name = f.getName();
 							if (ci instanceof ColumnInfoImpl<?>) {
+								((TransferableObjectInfoImpl<?>)ci).ordinal = columns.size();
 								columns.add((ColumnInfo<?>) ci);
 							} else { //AdditionalFieldInfoImpl
+								((TransferableObjectInfoImpl<?>)ci).ordinal = additionals.size();
 								additionals.add((AdditionalFieldInfo<?>) ci);
 							}
 						} else {
@@ -135,6 +225,29 @@ public abstract class TransferableObjectInfoContainer {
 		this.AdditionalFields = additionals.toArray(new AdditionalFieldInfo<?>[additionals.size()]);
 	}
 	
+	/**
+	 * Builds a container from the layout generated for it, without reflection.
+	 * @param layout The layout generated by the processing of {@link GenerateTOInfo}
+	 */
+	protected TransferableObjectInfoContainer(Layout layout) {
+		nameFields(layout.columns, layout.columnNames, layout.columnPropertyNames);
+		nameFields(layout.additionalFields, layout.additionalFieldNames, layout.additionalFieldPropertyNames);
+		this.columns = layout.columns.clone();
+		this.AdditionalFields = layout.additionalFields.clone();
+	}
+	
+	private void nameFields(TransferableObjectInfo<?>[] fields, String[] names, String[] propertyNames) {
+		for (int i = 0; i < fields.length; i++) {
+			if (!(fields[i] instanceof TransferableObjectInfoImpl<?>)) {
+				throw new IllegalArgumentException(getClass() + "." + names[i] + " was not created with TransferableObjectInfoContainer.create*()");
+			}
+			TransferableObjectInfoImpl<?> impl = (TransferableObjectInfoImpl<?>) fields[i];
+			impl.name = names[i];
+			impl.ordinal = i;
+			impl.propertyName = propertyNames[i];
+		}
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
@@ -1,8 +1,13 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Arrays;
 
+import com.philippelangevin.sdk.database.util.PostgreSQLInt4Array;
+
 /*
  * @plefebvre 2010-08-06
  * Expected (and tested) results for this class:
@@ -86,4 +91,19 @@ public class ArrayIntegerMetaData implements TOColumnMetaDataIF<Integer[]> {
 		}
 		return null;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Integer[] value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setObject(parameterIndex, new PostgreSQLInt4Array(value.length == 0 ? null : value), getSQLDataType());
+		}
+	}
+
+	@Override
+	public Integer[] read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
 }
@@ -1,9 +1,13 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 
 import com.philippelangevin.sdk.dataStructure.CopyUtil;
+import com.philippelangevin.sdk.database.util.PostgreSQLInt4Array;
 
 public class ArrayListIntegerMetaData implements TOColumnMetaDataIF<ArrayList<Integer>> {
 private boolean allowNull = false;
@@ -28,6 +32,22 @@ private boolean allowNull = false;
 		return null;
 	}
 
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, ArrayList<Integer> value) throws SQLException {
+		if (value == null || value.isEmpty()) {
+			// An empty list is null, whatever the type of its elements
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setObject(parameterIndex, new PostgreSQLInt4Array(value.toArray(new Integer[value.size()])), getSQLDataType());
+		}
+	}
+
+	@Override
+	public ArrayList<Integer> read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
 	@Override
 	public int getSQLDataType() {
 		return Types.ARRAY;
@@ -1,9 +1,13 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 
 import com.philippelangevin.sdk.dataStructure.CopyUtil;
+import com.philippelangevin.sdk.database.util.PostgreSQLLongArray;
 
 /**
  * A MetaData used for an Array type in the database, but interpreted as an ArrayList in Java.
@@ -33,6 +37,22 @@ public class ArrayListLongMetaData implements TOColumnMetaDataIF<ArrayList<Long>
 		return null;
 	}
 
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, ArrayList<Long> value) throws SQLException {
+		if (value == null || value.isEmpty()) {
+			// An empty list is null, whatever the type of its elements
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setObject(parameterIndex, new PostgreSQLLongArray(value.toArray(new Long[value.size()])), getSQLDataType());
+		}
+	}
+
+	@Override
+	public ArrayList<Long> read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
 	@Override
 	public int getSQLDataType() {
 		return Types.ARRAY;
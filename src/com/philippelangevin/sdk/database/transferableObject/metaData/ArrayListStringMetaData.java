@@ -1,9 +1,13 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 
 import com.philippelangevin.sdk.dataStructure.CopyUtil;
+import com.philippelangevin.sdk.database.util.PostgreSQLTextArray;
 
 public class ArrayListStringMetaData implements TOColumnMetaDataIF<ArrayList<String>> {
 	private boolean allowNull = false;
@@ -28,6 +32,22 @@ public class ArrayListStringMetaData implements TOColumnMetaDataIF<ArrayList<Str
 		return null;
 	}
 
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, ArrayList<String> value) throws SQLException {
+		if (value == null || value.isEmpty()) {
+			// An empty list is null, whatever the type of its elements
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setObject(parameterIndex, new PostgreSQLTextArray(value.toArray(new String[value.size()])), getSQLDataType());
+		}
+	}
+
+	@Override
+	public ArrayList<String> read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
 	@Override
 	public int getSQLDataType() {
 		return Types.ARRAY;
@@ -1,8 +1,13 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Arrays;
 
+import com.philippelangevin.sdk.database.util.PostgreSQLLongArray;
+
 public class ArrayLongMetaData implements TOColumnMetaDataIF<Long[]> {
 	private boolean allowNull = false;
 	
@@ -21,6 +26,21 @@ public class ArrayLongMetaData implements TOColumnMetaDataIF<Long[]> {
 		return null;
 	}
 
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Long[] value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setObject(parameterIndex, new PostgreSQLLongArray(value.length == 0 ? null : value), getSQLDataType());
+		}
+	}
+
+	@Override
+	public Long[] read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
 	@Override
 	public int getSQLDataType() {
 		return Types.ARRAY;
@@ -1,9 +1,13 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Arrays;
 
 import com.philippelangevin.sdk.dataStructure.Money;
+import com.philippelangevin.sdk.database.util.PostgreSQLMoneyArray;
 
 /**
  * MetaData class for an array of Money.
@@ -29,6 +33,21 @@ public class ArrayMoneyMetaData implements TOColumnMetaDataIF<Money[]> {
 		}
 		return null;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Money[] value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setObject(parameterIndex, new PostgreSQLMoneyArray(value.length == 0 ? null : value), getSQLDataType());
+		}
+	}
+
+	@Override
+	public Money[] read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
 	
 	@Override
 	public int getSQLDataType() {
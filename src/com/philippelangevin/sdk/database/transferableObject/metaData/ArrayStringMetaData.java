@@ -1,9 +1,14 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.regex.Pattern;
 
+import com.philippelangevin.sdk.database.util.PostgreSQLTextArray;
+
 public class ArrayStringMetaData implements TOColumnMetaDataIF<String[]> {
 	private boolean allowNull = false;
 	
@@ -104,4 +109,19 @@ public class ArrayStringMetaData implements TOColumnMetaDataIF<String[]> {
 		return null;
 	}
 
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, String[] value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setObject(parameterIndex, new PostgreSQLTextArray(value.length == 0 ? null : value), getSQLDataType());
+		}
+	}
+
+	@Override
+	public String[] read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
 }
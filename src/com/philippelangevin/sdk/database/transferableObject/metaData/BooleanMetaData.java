@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 /**
@@ -76,5 +79,21 @@ public class BooleanMetaData implements TOColumnMetaDataIF<Boolean> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Boolean value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			// setObject() rather than setBoolean(), which some drivers (SQLite) store differently from the existing rows
+			ps.setObject(parameterIndex, value, getSQLDataType());
+		}
+	}
+
+	@Override
+	public Boolean read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
 	
 }
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 /**
@@ -89,5 +92,20 @@ public class CharMetaData implements TOColumnMetaDataIF<Character> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Character value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setString(parameterIndex, String.valueOf(value.charValue()));
+		}
+	}
+
+	@Override
+	public Character read(ResultSet rs, int columnIndex) throws SQLException {
+		String value = rs.getString(columnIndex);
+		return value == null ? null : parse(value);
+	}
 	
 }
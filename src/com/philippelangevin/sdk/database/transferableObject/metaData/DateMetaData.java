@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 
@@ -89,5 +92,20 @@ public class DateMetaData implements TOColumnMetaDataIF<Timestamp> {
 		}
 		return null;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Timestamp value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setDate(parameterIndex, new java.sql.Date(value.getTime()));
+		}
+	}
+
+	@Override
+	public Timestamp read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
 	
 }
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 import org.joda.time.DateTime;
@@ -66,4 +69,26 @@ public class DateTimeMetaData implements TOColumnMetaDataIF<DateTime> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, DateTime value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setDate(parameterIndex, format(value));
+		}
+	}
+
+	@Override
+	public DateTime read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
+	/**
+	 * The value bound for a DateTime.
+	 */
+	public static java.sql.Date format(DateTime o) {
+		return new java.sql.Date(o.toDate().getTime());
+	}
+}
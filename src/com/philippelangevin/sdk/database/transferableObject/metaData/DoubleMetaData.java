@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 /**
@@ -81,5 +84,20 @@ public class DoubleMetaData implements TOColumnMetaDataIF<Double> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Double value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setDouble(parameterIndex, value.doubleValue());
+		}
+	}
+
+	@Override
+	public Double read(ResultSet rs, int columnIndex) throws SQLException {
+		double value = rs.getDouble(columnIndex);
+		return rs.wasNull() ? null : value;
+	}
 	
 }
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 import org.joda.time.Duration;
@@ -66,6 +69,21 @@ public class DurationMetaData implements TOColumnMetaDataIF<Duration> {
 		return toCopy;
 	}
 
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Duration value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setLong(parameterIndex, format(value));
+		}
+	}
+
+	@Override
+	public Duration read(ResultSet rs, int columnIndex) throws SQLException {
+		int minutes = rs.getInt(columnIndex);
+		return rs.wasNull() ? null : new Duration(minutes * 60000L);
+	}
+
 	public static long format(Duration o) {
 		return o.getMillis() / 60000L;
 	}
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 /**
@@ -82,5 +85,20 @@ public class FloatMetaData implements TOColumnMetaDataIF<Float> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Float value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setFloat(parameterIndex, value.floatValue());
+		}
+	}
+
+	@Override
+	public Float read(ResultSet rs, int columnIndex) throws SQLException {
+		float value = rs.getFloat(columnIndex);
+		return rs.wasNull() ? null : value;
+	}
 	
 }
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 /**
@@ -87,5 +90,20 @@ public class IntegerMetaData implements TOColumnMetaDataIF<Integer> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Integer value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setInt(parameterIndex, value.intValue());
+		}
+	}
+
+	@Override
+	public Integer read(ResultSet rs, int columnIndex) throws SQLException {
+		int value = rs.getInt(columnIndex);
+		return rs.wasNull() ? null : value;
+	}
 	
 }
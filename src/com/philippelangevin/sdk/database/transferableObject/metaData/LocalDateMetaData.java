@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 import org.joda.time.LocalDate;
@@ -66,4 +69,26 @@ public class LocalDateMetaData implements TOColumnMetaDataIF<LocalDate> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, LocalDate value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setDate(parameterIndex, format(value));
+		}
+	}
+
+	@Override
+	public LocalDate read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
+	/**
+	 * The value bound for a LocalDate: its first millisecond in the default time zone.
+	 */
+	public static java.sql.Date format(LocalDate o) {
+		return new java.sql.Date(o.toDateMidnight().getMillis());
+	}
 }
@@ -1,6 +1,11 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
 import java.sql.Types;
+import java.util.TimeZone;
 
 import org.joda.time.LocalTime;
 import org.joda.time.format.DateTimeFormat;
@@ -67,4 +72,27 @@ public class LocalTimeMetaData implements TOColumnMetaDataIF<LocalTime> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, LocalTime value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setTime(parameterIndex, format(value));
+		}
+	}
+
+	@Override
+	public LocalTime read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
+	/**
+	 * The value bound for a LocalTime: its milliseconds of the day, shifted by the offset
+	 * of the default time zone since the driver shifts them back.
+	 */
+	public static Time format(LocalTime o) {
+		return new Time(o.getMillisOfDay() - TimeZone.getDefault().getRawOffset());
+	}
 }
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 /**
@@ -86,5 +89,20 @@ public class LongMetaData implements TOColumnMetaDataIF<Long> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Long value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setLong(parameterIndex, value.longValue());
+		}
+	}
+
+	@Override
+	public Long read(ResultSet rs, int columnIndex) throws SQLException {
+		long value = rs.getLong(columnIndex);
+		return rs.wasNull() ? null : value;
+	}
 	
 }
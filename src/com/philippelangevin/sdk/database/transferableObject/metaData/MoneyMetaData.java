@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 import com.philippelangevin.sdk.dataStructure.Money;
@@ -84,4 +87,22 @@ public class MoneyMetaData implements TOColumnMetaDataIF<Money> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Money value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			// Same check as parse(), at most 2 decimal digits
+			value.validateState();
+			// Not setBigDecimal(), which some drivers (SQLite) don't implement
+			ps.setObject(parameterIndex, value.bigDecimalValue(), getSQLDataType());
+		}
+	}
+
+	@Override
+	public Money read(ResultSet rs, int columnIndex) throws SQLException {
+		Object value = rs.getObject(columnIndex);
+		return value == null ? null : parse(value);
+	}
 }
@@ -1,7 +1,12 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
+import com.philippelangevin.sdk.database.util.ClassicSQLRequests;
+
 /**
    * <p> Title: {@link ObjectMetaData} <p>
    * <p> Description: This class is used to control the NullAllowed and
@@ -70,5 +75,16 @@ public class ObjectMetaData implements TOColumnMetaDataIF<Object> {
 	public Object copy(Object toCopy) {
 		return toCopy;
 	}
+
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, Object value) throws SQLException {
+		// The type of the value is only known now
+		ClassicSQLRequests.setPreparedStatement(ps, parameterIndex, value, getSQLDataType());
+	}
+
+	@Override
+	public Object read(ResultSet rs, int columnIndex) throws SQLException {
+		return rs.getObject(columnIndex);
+	}
 	
 }
@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 
 
@@ -92,4 +95,19 @@ public class StringMetaData implements TOColumnMetaDataIF<String> {
 		return toCopy;
 	}
 
+	@Override
+	public void bind(PreparedStatement ps, int parameterIndex, String value) throws SQLException {
+		if (value == null) {
+			ps.setNull(parameterIndex, getSQLDataType());
+		} else {
+			ps.setString(parameterIndex, value);
+		}
+	}
+
+	@Override
+	public String read(ResultSet rs, int columnIndex) throws SQLException {
+		String value = rs.getString(columnIndex);
+		return value == null ? null : parse(value);
+	}
+
 }
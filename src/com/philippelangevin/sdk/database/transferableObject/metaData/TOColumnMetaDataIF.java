@@ -1,5 +1,8 @@
 package com.philippelangevin.sdk.database.transferableObject.metaData;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
 /**
    * <p> Title: {@link TOColumnMetaDataIF} <p>
@@ -46,4 +49,26 @@ public interface TOColumnMetaDataIF<T> {
 	 */
 	public Object copy(Object toCopy);
 	
+	/**
+	 * Reads the value of this field in the current row of a ResultSet, using the
+	 * getter of its type when there is one (i.e. getInt() rather than getObject()).
+	 * The value is returned as {@link #parse(Object)} would return it.
+	 * @param rs
+	 * @param columnIndex The index of the column, 1-based
+	 * @return The value, null if the column is null.
+	 * @throws SQLException
+	 */
+	public T read(ResultSet rs, int columnIndex) throws SQLException;
+	
+	/**
+	 * Binds a value of this field to a parameter of a PreparedStatement, using the
+	 * setter of its type when there is one (i.e. setInt() rather than setObject()).
+	 * A null value is bound with setNull() and {@link #getSQLDataType()}.
+	 * @param ps
+	 * @param parameterIndex The index of the parameter, 1-based
+	 * @param value
+	 * @throws SQLException
+	 */
+	public void bind(PreparedStatement ps, int parameterIndex, T value) throws SQLException;
+	
 }
@@ -0,0 +1,259 @@
+package com.philippelangevin.sdk.database.transferableObject.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * <p> Title: {@link TOInfoProcessor} <p>
+ * <p> Description: Generates, for each TransferableObjectInfoContainer annotated with
+ * GenerateTOInfo, a class holding its layout (the columns and additional fields in
+ * declaration order, with their names and property names), the ordinal of each field
+ * and typed static accessors.</p>
+ * <p> The property names follow TOUtil.getPropertyName().</p>
+ */
+@SupportedAnnotationTypes(TOInfoProcessor.ANNOTATION)
+public class TOInfoProcessor extends AbstractProcessor {
+
+	static final String PACKAGE = "com.philippelangevin.sdk.database.transferableObject";
+	static final String ANNOTATION = PACKAGE + ".GenerateTOInfo";
+	private static final String CONTAINER = PACKAGE + ".TransferableObjectInfoContainer";
+	private static final String COLUMN_INFO = PACKAGE + ".ColumnInfo";
+	private static final String ADDITIONAL_FIELD_INFO = PACKAGE + ".AdditionalFieldInfo";
+	private static final String TRANSFERABLE_OBJECT = PACKAGE + ".TransferableObject";
+
+	/*
+	 * A public static final field of the container.
+	 */
+	private static final class InfoField {
+		private final String name;
+		private final String propertyName;
+		private final String valueType;
+
+		private InfoField(String name, String valueType) {
+			this.name = name;
+			this.propertyName = getPropertyName(name);
+			this.valueType = valueType;
+		}
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+		if (annotation == null) {
+			return false;
+		}
+
+		for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+			if (element.getKind() != ElementKind.CLASS) {
+				error(element, "@GenerateTOInfo can only be used on a class");
+				continue;
+			}
+
+			TypeElement container = (TypeElement) element;
+			if (!isSubtype(container.asType(), CONTAINER)) {
+				error(container, "@GenerateTOInfo can only be used on a subclass of " + CONTAINER);
+			} else if (container.getNestingKind().isNested() && !container.getModifiers().contains(Modifier.STATIC)) {
+				error(container, "A container annotated with @GenerateTOInfo must be static");
+			} else {
+				generate(container);
+			}
+		}
+		return true;
+	}
+
+	private void generate(TypeElement container) {
+		List<InfoField> columns = new ArrayList<InfoField>();
+		List<InfoField> additionalFields = new ArrayList<InfoField>();
+		boolean valid = true;
+
+		// Like the reflection in TransferableObjectInfoContainer: the public static final fields, in declaration order
+		for (VariableElement field : ElementFilter.fieldsIn(container.getEnclosedElements())) {
+			Set<Modifier> modifiers = field.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || !modifiers.contains(Modifier.STATIC) || !modifiers.contains(Modifier.FINAL)) {
+				continue;
+			}
+
+			boolean info = isSubtype(field.asType(), COLUMN_INFO) || isSubtype(field.asType(), ADDITIONAL_FIELD_INFO);
+			if (info && !hasPropertyName(field.getSimpleName().toString())) {
+				error(field, "The name of a field of a container annotated with @GenerateTOInfo can't start with an underscore nor hold two in a row");
+				valid = false;
+			} else if (isSubtype(field.asType(), COLUMN_INFO)) {
+				columns.add(new InfoField(field.getSimpleName().toString(), getValueType(field.asType())));
+			} else if (isSubtype(field.asType(), ADDITIONAL_FIELD_INFO)) {
+				additionalFields.add(new InfoField(field.getSimpleName().toString(), getValueType(field.asType())));
+			}
+		}
+		if (!valid) {
+			return;
+		}
+
+		PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(container);
+		String packageName = packageElement.getQualifiedName().toString();
+		String generatedName = getGeneratedSimpleName(container);
+		String containerName = container.getQualifiedName().toString();
+
+		try {
+			String qualifiedName = (packageElement.isUnnamed() ? generatedName : packageName + "." + generatedName);
+			PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, container).openWriter());
+			try {
+				write(out, packageElement.isUnnamed() ? null : packageName, generatedName, containerName, columns, additionalFields);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			error(container, "Failed to generate " + generatedName + ": " + e.getMessage());
+		}
+	}
+
+	private static void write(PrintWriter out, String packageName, String generatedName, String containerName,
+			List<InfoField> columns, List<InfoField> additionalFields) {
+		if (packageName != null) {
+			out.println("package " + packageName + ";");
+			out.println();
+		}
+		out.println("/**");
+		out.println(" * Generated by " + TOInfoProcessor.class.getName() + " from {@link " + containerName + "}, do not edit.");
+		out.println(" */");
+		out.println("public final class " + generatedName + " {");
+		out.println();
+
+		for (int i = 0; i < columns.size(); i++) {
+			out.println("\tpublic static final int ORDINAL_" + columns.get(i).name + " = " + i + ";");
+		}
+		for (int i = 0; i < additionalFields.size(); i++) {
+			out.println("\tpublic static final int ORDINAL_" + additionalFields.get(i).name + " = " + i + ";");
+		}
+		out.println();
+
+		out.println("\tprivate " + generatedName + "() {");
+		out.println("\t}");
+		out.println();
+
+		out.println("\tpublic static " + CONTAINER + ".Layout layout() {");
+		out.println("\t\treturn new " + CONTAINER + ".Layout(");
+		out.println("\t\t\t\tnew " + COLUMN_INFO + "<?>[] {" + join(columns, containerName + ".", "", false) + "},");
+		out.println("\t\t\t\tnew String[] {" + join(columns, "\"", "\"", false) + "},");
+		out.println("\t\t\t\tnew String[] {" + join(columns, "\"", "\"", true) + "},");
+		out.println("\t\t\t\tnew " + ADDITIONAL_FIELD_INFO + "<?>[] {" + join(additionalFields, containerName + ".", "", false) + "},");
+		out.println("\t\t\t\tnew String[] {" + join(additionalFields, "\"", "\"", false) + "},");
+		out.println("\t\t\t\tnew String[] {" + join(additionalFields, "\"", "\"", true) + "});");
+		out.println("\t}");
+
+		List<InfoField> fields = new ArrayList<InfoField>(columns);
+		fields.addAll(additionalFields);
+		for (InfoField field : fields) {
+			String accessorName = Character.toUpperCase(field.propertyName.charAt(0)) + field.propertyName.substring(1);
+			String info = containerName + "." + field.name;
+
+			out.println();
+			out.println("\tpublic static " + field.valueType + " get" + accessorName + "(" + TRANSFERABLE_OBJECT + " to) {");
+			out.println("\t\treturn to.get(" + info + ");");
+			out.println("\t}");
+			out.println();
+			out.println("\tpublic static boolean set" + accessorName + "(" + TRANSFERABLE_OBJECT + " to, " + field.valueType + " value) {");
+			out.println("\t\treturn to.set(" + info + ", value);");
+			out.println("\t}");
+		}
+
+		out.println("}");
+	}
+
+	private static String join(List<InfoField> fields, String prefix, String suffix, boolean propertyNames) {
+		StringBuilder sb = new StringBuilder();
+		for (InfoField field : fields) {
+			if (sb.length() != 0) {
+				sb.append(", ");
+			}
+			sb.append(prefix).append(propertyNames ? field.propertyName : field.name).append(suffix);
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * Outer_Inner + "Info", i.e. PhoneTOStructure_ColumnNamesInfo
+	 */
+	private static String getGeneratedSimpleName(TypeElement container) {
+		StringBuilder sb = new StringBuilder(container.getSimpleName());
+		for (Element e = container.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+			sb.insert(0, e.getSimpleName() + "_");
+		}
+		return sb.append("Info").toString();
+	}
+
+	/*
+	 * T of ColumnInfo<T>, Object if it isn't declared.
+	 */
+	private String getValueType(TypeMirror type) {
+		if (type.getKind() == TypeKind.DECLARED) {
+			List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+			if (arguments.size() == 1 && arguments.get(0).getKind() != TypeKind.WILDCARD) {
+				return arguments.get(0).toString();
+			}
+		}
+		return "Object";
+	}
+
+	private boolean isSubtype(TypeMirror type, String superTypeName) {
+		TypeElement superType = processingEnv.getElementUtils().getTypeElement(superTypeName);
+		if (superType == null) {
+			return false;
+		}
+		Types types = processingEnv.getTypeUtils();
+		return types.isSubtype(types.erasure(type), types.erasure(superType.asType()));
+	}
+
+	/*
+	 * Whether getPropertyName() is defined for a field name: each part between the
+	 * underscores must hold a character.
+	 */
+	static boolean hasPropertyName(String fieldName) {
+		return !fieldName.startsWith("_") && !fieldName.contains("__");
+	}
+
+	/*
+	 * Same as TOUtil.getPropertyName(), which can't be called from a processor.
+	 */
+	static String getPropertyName(String fieldName) {
+		StringBuilder sb = new StringBuilder();
+		for (String part : fieldName.split("_")) {
+			part = part.toLowerCase();
+			if (part.equals("id")) {
+				sb.append("ID");
+			} else if (sb.length() > 0) {
+				sb.append(part.substring(0, 1).toUpperCase()).append(part.substring(1));
+			} else {
+				sb.append(part);
+			}
+		}
+		return sb.toString();
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+	}
+}
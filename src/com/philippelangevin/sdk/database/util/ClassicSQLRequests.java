@@ -1,12 +1,16 @@
 package com.philippelangevin.sdk.database.util;
 
 import java.lang.reflect.Array;
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
@@ -14,69 +18,173 @@ import org.joda.time.LocalDate;
 import org.joda.time.LocalTime;
 
 import com.philippelangevin.sdk.dataStructure.Money;
+import com.philippelangevin.sdk.database.transferableObject.metaData.DateTimeMetaData;
 import com.philippelangevin.sdk.database.transferableObject.metaData.DurationMetaData;
+import com.philippelangevin.sdk.database.transferableObject.metaData.LocalDateMetaData;
+import com.philippelangevin.sdk.database.transferableObject.metaData.LocalTimeMetaData;
 
+/**
+ * <p> Title: {@link ClassicSQLRequests} <p>
+ * <p> Description: Binds values to the parameters of a PreparedStatement when the column
+ * they belong to isn't known, i.e. the values of the filters. The values of the columns are
+ * bound by their {@link com.philippelangevin.sdk.database.transferableObject.metaData.TOColumnMetaDataIF#bind}.</p>
+ * <p> Each type of value has its binder, chosen by the class of the value. The binders and
+ * the map holding them are never modified, so threads binding on different connections
+ * never wait for one another.</p>
+ */
 public class ClassicSQLRequests {
 
-	private final static Object dbSyncObj = new Object();
+	/*
+	 * Binds a non null value of one type.
+	 */
+	private interface ParameterBinder {
+		void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException;
+	}
 
-	public static void setPreparedStatement( PreparedStatement ps, int index, Object o, int type ) throws SQLException {
-	
-		synchronized( dbSyncObj ) {
-			if( null == o ) {
+	private static final ParameterBinder OBJECT_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			ps.setObject(index, o, type);
+		}
+	};
+
+	private static final ParameterBinder INT4_ARRAY_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			//TODO Find a cleaner way to do this, and test with MS SQL Server.
+			Integer[] array = (Integer[]) o;
+			ps.setObject(index, new PostgreSQLInt4Array( array.length == 0? null: array), type);
+		}
+	};
+
+	private static final ParameterBinder TEXT_ARRAY_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			//TODO Same
+			String[] array = (String[]) o;
+			ps.setObject(index, new PostgreSQLTextArray( array.length == 0? null: array ), type);
+		}
+	};
+
+	private static final ParameterBinder MONEY_ARRAY_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			//TODO Same
+			Money[] array = (Money[]) o;
+			ps.setObject(index, new PostgreSQLMoneyArray( array.length == 0? null: array ), type);
+		}
+	};
+
+	private static final ParameterBinder LONG_ARRAY_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			//TODO Same
+			Long[] array = (Long[]) o;
+			ps.setObject(index, new PostgreSQLLongArray( array.length == 0? null: array ), type);
+		}
+	};
+
+	private static final ParameterBinder LIST_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			//If the list is empty, the value that represents it is null regardless of inner type
+			List<?> oList = ((List<?>)o);
+			if (oList.size() <= 0){
 				ps.setNull(index, type);
-			} else if (o instanceof Integer[]) {
-				//TODO Find a cleaner way to do this, and test with MS SQL Server.
-				Integer[] array = (Integer[]) o;
-				ps.setObject(index, new PostgreSQLInt4Array( array == null || array.length == 0? null: array), type);
-			} else if (o instanceof String[]){
-				//TODO Same
-				String[] array = (String[]) o;
-				PostgreSQLTextArray temp = new PostgreSQLTextArray( array == null || array.length == 0? null: array );
-				ps.setObject(index, temp, type);
-			} else if (o instanceof Money[]){
-				//TODO Same
-				Money[] array = (Money[]) o;
-				PostgreSQLMoneyArray temp = new PostgreSQLMoneyArray( array == null || array.length == 0? null: array );
-				ps.setObject(index, temp, type);
-			}  else if (o instanceof Long[]){
-				//TODO Same
-				Long[] array = (Long[]) o;
-				PostgreSQLLongArray temp = new PostgreSQLLongArray( array == null || array.length == 0? null: array );
-				ps.setObject(index, temp, type);
-			} else if (o instanceof List<?>){
-				
-				//If the list is empty, the value that represents it is null regardless of inner type
-				List<?> oList = ((List<?>)o);
-				if (oList.size() <= 0){
-					ps.setNull(index, type);
-				} else {
-					
-					/* If the list isn't empty, we transform it into an array that matches the first element
-					 * and then we re-call this method recursively so that the correct array type is handled. */
-					Object firstElement = oList.get(0);
-					setPreparedStatement(ps, index, oList.toArray((Object[])Array.newInstance(firstElement.getClass(), 0)), type);
-				}
-			} else if (o instanceof Duration){
-				//TODO remove this patch by creating a format() method in the TOColumnMetaDataIF and use it in AbstractDatabaseDAO for formatting object instead of using toString()
-				ps.setLong(index, DurationMetaData.format((Duration)o));
-			} else if (o instanceof LocalTime){
-				//TODO remove this patch by creating a format() method in the TOColumnMetaDataIF and use it in AbstractDatabaseDAO for formatting object instead of using toString()
-				Calendar cal = Calendar.getInstance();
-				cal.clear();
-				//weird patch for the time that shift the value with the current time zone
-				cal.setTimeInMillis(((LocalTime)o).getMillisOfDay()-cal.get(Calendar.ZONE_OFFSET));
-				ps.setTime(index, new java.sql.Time(cal.getTimeInMillis()));
-			} else if (o instanceof LocalDate){
-				//TODO remove this patch by creating a format() method in the TOColumnMetaDataIF and use it in AbstractDatabaseDAO for formatting object instead of using toString()
-				ps.setDate(index, new java.sql.Date(((LocalDate)o).toDateMidnight().getMillis()));
-			} else if (o instanceof DateTime){
-				//TODO remove this patch by creating a format() method in the TOColumnMetaDataIF and use it in AbstractDatabaseDAO for formatting object instead of using toString()
-				ps.setDate(index, new java.sql.Date(((DateTime)o).toDate().getTime()));
 			} else {
-				ps.setObject(index, o, type);
+				/* If the list isn't empty, we transform it into an array that matches the first element
+				 * and then we re-call setPreparedStatement() so that the correct array type is handled. */
+				Object firstElement = oList.get(0);
+				setPreparedStatement(ps, index, oList.toArray((Object[])Array.newInstance(firstElement.getClass(), 0)), type);
 			}
 		}
+	};
+
+	private static final ParameterBinder DURATION_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			ps.setLong(index, DurationMetaData.format((Duration)o));
+		}
+	};
+
+	private static final ParameterBinder LOCAL_TIME_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			ps.setTime(index, LocalTimeMetaData.format((LocalTime)o));
+		}
+	};
+
+	private static final ParameterBinder LOCAL_DATE_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			ps.setDate(index, LocalDateMetaData.format((LocalDate)o));
+		}
+	};
+
+	private static final ParameterBinder DATE_TIME_BINDER = new ParameterBinder() {
+		@Override
+		public void bind(PreparedStatement ps, int index, Object o, int type) throws SQLException {
+			ps.setDate(index, DateTimeMetaData.format((DateTime)o));
+		}
+	};
+
+	/*
+	 * The binders of the classes that can't be subclassed (or almost never are); the other
+	 * values are matched by findBinder(). Filled once, only read afterwards.
+	 */
+	private static final Map<Class<?>, ParameterBinder> BINDERS;
+	static {
+		Map<Class<?>, ParameterBinder> binders = new HashMap<Class<?>, ParameterBinder>();
+		binders.put(Integer[].class, INT4_ARRAY_BINDER);
+		binders.put(String[].class, TEXT_ARRAY_BINDER);
+		binders.put(Money[].class, MONEY_ARRAY_BINDER);
+		binders.put(Long[].class, LONG_ARRAY_BINDER);
+		binders.put(ArrayList.class, LIST_BINDER);
+		binders.put(Duration.class, DURATION_BINDER);
+		binders.put(LocalTime.class, LOCAL_TIME_BINDER);
+		binders.put(LocalDate.class, LOCAL_DATE_BINDER);
+		binders.put(DateTime.class, DATE_TIME_BINDER);
+		for (Class<?> c : new Class<?>[] {String.class, Integer.class, Long.class, Short.class, Byte.class, Float.class,
+				Double.class, Boolean.class, Character.class, BigDecimal.class, Timestamp.class, java.sql.Date.class, java.sql.Time.class}) {
+			binders.put(c, OBJECT_BINDER);
+		}
+		BINDERS = Collections.unmodifiableMap(binders);
+	}
+
+	private static ParameterBinder findBinder(Object o) {
+		if (o instanceof Integer[]) {
+			return INT4_ARRAY_BINDER;
+		} else if (o instanceof String[]) {
+			return TEXT_ARRAY_BINDER;
+		} else if (o instanceof Money[]) {
+			return MONEY_ARRAY_BINDER;
+		} else if (o instanceof Long[]) {
+			return LONG_ARRAY_BINDER;
+		} else if (o instanceof List<?>) {
+			return LIST_BINDER;
+		} else if (o instanceof Duration) {
+			return DURATION_BINDER;
+		} else if (o instanceof LocalTime) {
+			return LOCAL_TIME_BINDER;
+		} else if (o instanceof LocalDate) {
+			return LOCAL_DATE_BINDER;
+		} else if (o instanceof DateTime) {
+			return DATE_TIME_BINDER;
+		}
+		return OBJECT_BINDER;
+	}
+
+	public static void setPreparedStatement( PreparedStatement ps, int index, Object o, int type ) throws SQLException {
+		if( null == o ) {
+			ps.setNull(index, type);
+			return;
+		}
+
+		ParameterBinder binder = BINDERS.get(o.getClass());
+		if (binder == null) {
+			binder = findBinder(o);
+		}
+		binder.bind(ps, index, o, type);
 	}
 
 	static public void setPreparedStatement( PreparedStatement ps, int index, Object o ) throws SQLException {
@@ -110,4 +218,4 @@ public class ClassicSQLRequests {
 		}
 		setPreparedStatement( ps, index, o, type );
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
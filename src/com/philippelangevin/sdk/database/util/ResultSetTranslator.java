@@ -4,14 +4,22 @@
 package com.philippelangevin.sdk.database.util;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.TreeMap;
 
+import com.philippelangevin.sdk.database.transferableObject.TOHydrator;
+import com.philippelangevin.sdk.database.transferableObject.TOStructureRegistry;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObject;
 import com.philippelangevin.sdk.database.transferableObject.TransferableObjectInfo;
+import com.philippelangevin.sdk.database.transferableObject.TransferableObjectStructureIF;
 
 /**
  * @author vgaudreault
@@ -19,46 +27,99 @@ import com.philippelangevin.sdk.database.transferableObject.TransferableObjectIn
  */
 public class ResultSetTranslator {
 	
+	/**
+	 * The indexes of the columns and additional fields of a TO class in a ResultSet,
+	 * resolved once from its metadata so the rows can be read by index. The fields
+	 * that are not in the ResultSet are left out.
+	 */
+	public static final class ColumnMapping<T extends TransferableObject> {
+		private final TOHydrator<T> hydrator;
+		
+		private ColumnMapping(TOHydrator<T> hydrator) {
+			this.hydrator = hydrator;
+		}
+		
+		public Class<T> getTOClass() {
+			return hydrator.getTOClass();
+		}
+		
+		/**
+		 * @return The number of fields found in the ResultSet.
+		 */
+		public int size() {
+			return hydrator.size();
+		}
+	}
+	
+	/**
+	 * Resolves the indexes of the fields of a TO class in a ResultSet. The mapping
+	 * stays valid for every row of that ResultSet.
+	 * @param rs
+	 * @param TOClass
+	 * @return The mapping
+	 * @throws SQLException
+	 */
+	public static <T extends TransferableObject> ColumnMapping<T> getColumnMapping( ResultSet rs, Class<T> TOClass ) throws SQLException {
+		// Like findColumn(), the labels are case insensitive and the first one wins
+		ResultSetMetaData metaData = rs.getMetaData();
+		int columnCount = metaData.getColumnCount();
+		Map<String, Integer> indexByLabel = new HashMap<String, Integer>(columnCount * 2);
+		for (int i = columnCount; i > 0; i--) {
+			indexByLabel.put(metaData.getColumnLabel(i).toLowerCase(Locale.ENGLISH), i);
+		}
+		
+		TransferableObjectStructureIF structure = TOStructureRegistry.getStructure(TOClass);
+		List<TransferableObjectInfo<?>> fields = new ArrayList<TransferableObjectInfo<?>>(columnCount);
+		List<Integer> indexes = new ArrayList<Integer>(columnCount);
+		
+		List<TransferableObjectInfo<?>> allFields = new ArrayList<TransferableObjectInfo<?>>();
+		allFields.addAll(Arrays.asList(structure.getColumns()));
+		allFields.addAll(Arrays.asList(structure.getAdditionalFields()));
+		for (TransferableObjectInfo<?> field : allFields) {
+			Integer index = indexByLabel.get(field.toString().toLowerCase(Locale.ENGLISH));
+			if (index != null) {
+				fields.add(field);
+				indexes.add(index);
+			}
+		}
+		
+		int[] indexArray = new int[indexes.size()];
+		for (int i = 0; i < indexArray.length; i++) {
+			indexArray[i] = indexes.get(i);
+		}
+		return new ColumnMapping<T>(new TOHydrator<T>(TOClass, fields.toArray(new TransferableObjectInfo<?>[fields.size()]), indexArray));
+	}
+	
 	/**
 	 * This function is useful when you want to get more than one TO from one resultSet...
 	 * BE CAREFULL though! If more than one column has the same name, the behavior of generating
 	 * more than one TO might be "special" (Haven't tried this kind of exception yet!!!).
+	 * <p>The columns are resolved on each call: to read many rows, get a {@link ColumnMapping}
+	 * once and use {@link #getDistinctTOFromResultSetFromCurrentRow(ResultSet, ColumnMapping)}.</p>
 	 * @param rs
 	 * @param TOClass
 	 * @return The TO
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends TransferableObject> T getDistinctTOFromResultSetFromCurrentRow( ResultSet rs, Class<T> TOClass ){
 		try {
-			T TO = TOClass.newInstance();
-			for(TransferableObjectInfo<?> column : TO.getTOStructure().getColumns()){
-				try{
-					TO.set((TransferableObjectInfo<Object>)column, rs.getObject(column.toString()));
-				}catch (UnsupportedOperationException e){
-					e.printStackTrace();
-				} catch (Exception e) {
-					/*
-					 * WARNING!!!
-					 * If we get here, that means that one of the column name wasn't found in
-					 * the resultSet! This also means that the next time you want to retrieve
-					 * the value of that column from the TO, null will be returned.
-					 * We don't want to print this exception.
-					 */
-				}
-			}
-			
-			for(TransferableObjectInfo<?> column : TO.getTOStructure().getAdditionalFields()){
-				try{
-					TO.set((TransferableObjectInfo<Object>)column, rs.getObject(column.toString()));
-				}catch (UnsupportedOperationException e){
-					e.printStackTrace();
-				} catch (Exception e) {
-					// TODO We might want to separate the additional fields between columns and
-					//       other data, this method generates a lot of exceptions!
-					/* Do nothing */
-				}
-			}
-			return TO;
+			return getDistinctTOFromResultSetFromCurrentRow(rs, getColumnMapping(rs, TOClass));
+		}catch( Throwable t ){
+			t.printStackTrace();
+		}
+		return null;
+	}
+	
+	/**
+	 * Builds a TO from the current row, reading its fields by index with their meta data.
+	 * If a field of the TO is not in the ResultSet, it is not set: the next time you
+	 * want to retrieve its value from the TO, null will be returned.
+	 * @param rs
+	 * @param mapping The mapping of the TO class in this ResultSet
+	 * @return The TO, null if it couldn't be created.
+	 */
+	public static <T extends TransferableObject> T getDistinctTOFromResultSetFromCurrentRow( ResultSet rs, ColumnMapping<T> mapping ){
+		try {
+			return mapping.hydrator.read(rs);
 		}catch( Throwable t ){
 			t.printStackTrace();
 		}
@@ -122,14 +183,22 @@ public class ResultSetTranslator {
 		
 		// Fill all lists
 		try {
-			T TO = getDistinctTOFromResultSet(rs, TOClass.get(0));
-		
-			while (null != TO) {
+			// The columns are only resolved once for the whole ResultSet
+			List<ColumnMapping<T>> mappings = new ArrayList<ColumnMapping<T>>(TOClass.size());
+			for (Class<T> clazz : TOClass) {
+				mappings.add(getColumnMapping(rs, clazz));
+			}
+			
+			while (rs.next()) {
+				T TO = getDistinctTOFromResultSetFromCurrentRow(rs, mappings.get(0));
+				if (null == TO) {
+					break;
+				}
+				
 				lists[0].add(TO);
 				for (int i = 1; i < lists.length; i++) {
-					lists[i].add(getDistinctTOFromResultSetFromCurrentRow(rs, TOClass.get(i)));
+					lists[i].add(getDistinctTOFromResultSetFromCurrentRow(rs, mappings.get(i)));
 				}
-				TO = getDistinctTOFromResultSet(rs, TOClass.get(0));
 			}
 
 		} catch (Throwable t) {
@@ -265,4 +334,4 @@ public class ResultSetTranslator {
 		return list;
 	
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file